@@ -0,0 +1,237 @@
+package com.stripeflow.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripeflow.model.Charge;
+import com.stripeflow.model.Customer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.type.Type;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Captures changes of audited entities in place of the V4 audit triggers.
+ *
+ * Each insert, update and delete becomes an audit record holding only the
+ * properties it changed, with associations reduced to their ids. Records are
+ * collected per transaction: those of entities listed in
+ * api.audit.transactional-entities are written just before commit, in the
+ * same transaction; all others are handed to the {@link AuditWriter} after a
+ * successful commit, so rolled-back changes are never audited.
+ */
+@Component
+public class AuditEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    
+    private static final Map<Class<?>, AuditTable> AUDITED = Map.of(
+        Customer.class, new AuditTable("customer_audit", "customer_id"),
+        Charge.class, new AuditTable("charge_audit", "charge_id"));
+    
+    // Records of the transaction running on this thread, with the session they belong to
+    private final ThreadLocal<PendingAudit> pending = new ThreadLocal<>();
+    
+    private final EntityManagerFactory entityManagerFactory;
+    private final AuditWriter auditWriter;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Set<String> transactionalEntities;
+    
+    public AuditEventListener(EntityManagerFactory entityManagerFactory,
+                              AuditWriter auditWriter,
+                              ObjectMapper objectMapper,
+                              @Value("${api.audit.enabled:true}") boolean enabled,
+                              @Value("${api.audit.transactional-entities:}") Set<String> transactionalEntities) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.auditWriter = auditWriter;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.transactionalEntities = transactionalEntities;
+    }
+    
+    /**
+     * Register with Hibernate's event listeners
+     */
+    @PostConstruct
+    public void register() {
+        if (!enabled) {
+            return;
+        }
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+    
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getSession(), event.getPersister(), event.getId(), "INSERT",
+            null, event.getState(), null);
+    }
+    
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getSession(), event.getPersister(), event.getId(), "UPDATE",
+            event.getOldState(), event.getState(), event.getDirtyProperties());
+    }
+    
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getSession(), event.getPersister(), event.getId(), "DELETE",
+            event.getDeletedState(), null, null);
+    }
+    
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+    
+    /**
+     * Add the audit record of a change to its transaction's pending records
+     */
+    private void record(EventSource session, EntityPersister persister, Object id, String action,
+                        Object[] oldState, Object[] newState, int[] dirtyProperties) {
+        AuditTable table = AUDITED.get(persister.getMappedClass());
+        if (table == null) {
+            return;
+        }
+        
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        Map<String, Object> oldValues = new LinkedHashMap<>();
+        Map<String, Object> newValues = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            if (types[i].isCollectionType() || !changed(i, oldState, newState, dirtyProperties)) {
+                continue;
+            }
+            if (oldState != null && oldState[i] != null) {
+                oldValues.put(names[i], value(session, types[i], oldState[i]));
+            }
+            if (newState != null && newState[i] != null) {
+                newValues.put(names[i], value(session, types[i], newState[i]));
+            }
+        }
+        if ("UPDATE".equals(action) && oldValues.isEmpty() && newValues.isEmpty()) {
+            return;
+        }
+        
+        AuditRecord record = new AuditRecord(table.name(), table.idColumn(), ((Number) id).longValue(), action,
+            oldValues.isEmpty() ? null : toJson(oldValues), newValues.isEmpty() ? null : toJson(newValues),
+            LocalDateTime.now());
+        PendingAudit audit = pendingAudit(session);
+        if (transactionalEntities.contains(persister.getMappedClass().getSimpleName())) {
+            audit.transactional.add(record);
+        } else {
+            audit.deferred.add(record);
+        }
+    }
+    
+    /**
+     * Get the pending records of the session's transaction, hooking them into its completion the first time
+     */
+    private PendingAudit pendingAudit(EventSource session) {
+        PendingAudit audit = pending.get();
+        if (audit != null && audit.session == session) {
+            return audit;
+        }
+        
+        PendingAudit created = new PendingAudit(session);
+        pending.set(created);
+        session.getActionQueue().registerProcess(completingSession -> {
+            if (!created.transactional.isEmpty()) {
+                completingSession.doWork(connection -> auditWriter.write(connection, created.transactional));
+            }
+        });
+        session.getActionQueue().registerProcess((boolean success, SharedSessionContractImplementor completed) -> {
+            if (pending.get() == created) {
+                pending.remove();
+            }
+            if (success && !created.deferred.isEmpty()) {
+                auditWriter.enqueue(created.deferred);
+            }
+        });
+        return created;
+    }
+    
+    /**
+     * Whether a property is part of the change: every set property of an insert or delete, the dirty ones of an update
+     */
+    static boolean changed(int index, Object[] oldState, Object[] newState, int[] dirtyProperties) {
+        if (oldState == null || newState == null) {
+            return true;
+        }
+        if (dirtyProperties != null) {
+            for (int dirty : dirtyProperties) {
+                if (dirty == index) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return !Objects.equals(oldState[index], newState[index]);
+    }
+    
+    /**
+     * Audited form of a property value: associated entities by id, without initializing them
+     */
+    private static Object value(SharedSessionContractImplementor session, Type type, Object value) {
+        if (!type.isEntityType()) {
+            return value;
+        }
+        if (value instanceof HibernateProxy proxy) {
+            return proxy.getHibernateLazyInitializer().getInternalIdentifier();
+        }
+        return session.getEntityPersister(null, value).getIdentifier(value, session);
+    }
+    
+    /**
+     * Serialize changed properties to the JSON stored in the audit table
+     */
+    private String toJson(Map<String, Object> values) {
+        try {
+            return objectMapper.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize audit values", e);
+        }
+    }
+    
+    /**
+     * Audit table of an entity and its entity id column
+     */
+    private record AuditTable(String name, String idColumn) {
+    }
+    
+    /**
+     * Audit records of one transaction
+     */
+    private static class PendingAudit {
+        private final EventSource session;
+        private final List<AuditRecord> transactional = new ArrayList<>();
+        private final List<AuditRecord> deferred = new ArrayList<>();
+        
+        PendingAudit(EventSource session) {
+            this.session = session;
+        }
+    }
+}
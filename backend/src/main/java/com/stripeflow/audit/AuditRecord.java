@@ -0,0 +1,11 @@
+package com.stripeflow.audit;
+
+import java.time.LocalDateTime;
+
+/**
+ * One audited change of an entity, as written to its audit table.
+ * Old and new values are JSON objects of the changed properties only.
+ */
+public record AuditRecord(String table, String idColumn, Long entityId, String action,
+                          String oldValues, String newValues, LocalDateTime changedAt) {
+}
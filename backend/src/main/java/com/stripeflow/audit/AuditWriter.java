@@ -0,0 +1,162 @@
+package com.stripeflow.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes audit records with batched inserts.
+ *
+ * Records of committed transactions are buffered and flushed in batches off the
+ * request path. When the buffer is full the caller flushes it, so bursts slow
+ * writers down instead of losing audit records. Each batch is written in its
+ * own transaction, so a batch spanning several audit tables is written whole
+ * or kept whole for the next flush. Records that must commit with their
+ * change are written directly on the transaction's connection.
+ */
+@Component
+public class AuditWriter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AuditWriter.class);
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<AuditRecord> buffer;
+    private final int batchSize;
+    private final Counter written;
+    private final Counter dropped;
+    
+    public AuditWriter(JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${api.audit.buffer-size:10000}") int bufferSize,
+                       @Value("${api.audit.batch-size:500}") int batchSize) {
+        if (bufferSize <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Audit buffer and batch sizes must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        // A flush may run while a committing transaction is still bound to the thread, so it never joins one
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.batchSize = batchSize;
+        this.written = Counter.builder("stripeflow.audit.records.written")
+            .description("Audit records written")
+            .register(meterRegistry);
+        this.dropped = Counter.builder("stripeflow.audit.records.dropped")
+            .description("Audit records lost because they could not be written or buffered")
+            .register(meterRegistry);
+        Gauge.builder("stripeflow.audit.buffer.size", buffer, BlockingQueue::size)
+            .description("Audit records waiting to be written")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Buffer records of a committed transaction for the next flush
+     */
+    public void enqueue(List<AuditRecord> records) {
+        for (AuditRecord record : records) {
+            if (!buffer.offer(record)) {
+                flush();
+                if (!buffer.offer(record)) {
+                    dropped.increment();
+                    logger.error("Audit buffer full, dropping {} record of {} {}", 
+                        record.action(), record.table(), record.entityId());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Write all buffered records in batches, returning how many were written
+     */
+    public synchronized int flush() {
+        int total = 0;
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> 
+                    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                        write(connection, batch);
+                        return null;
+                    }));
+                total += batch.size();
+            } catch (Exception e) {
+                // Keep the batch for the next flush while there is room for it
+                logger.error("Error writing {} audit records: {}", batch.size(), e.getMessage());
+                for (AuditRecord record : batch) {
+                    if (!buffer.offer(record)) {
+                        dropped.increment();
+                    }
+                }
+                break;
+            }
+            batch.clear();
+        }
+        return total;
+    }
+    
+    /**
+     * Insert records on a connection, with one batched insert per audit table
+     */
+    public void write(Connection connection, List<AuditRecord> records) throws SQLException {
+        Map<String, List<AuditRecord>> byTable = new LinkedHashMap<>();
+        for (AuditRecord record : records) {
+            byTable.computeIfAbsent(record.table(), table -> new ArrayList<>()).add(record);
+        }
+        
+        for (List<AuditRecord> tableRecords : byTable.values()) {
+            AuditRecord first = tableRecords.get(0);
+            String sql = "INSERT INTO " + first.table() + " (" + first.idColumn() + 
+                ", action, old_values, new_values, changed_at) VALUES (?, ?, ?::jsonb, ?::jsonb, ?)";
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (AuditRecord record : tableRecords) {
+                    statement.setLong(1, record.entityId());
+                    statement.setString(2, record.action());
+                    statement.setString(3, record.oldValues());
+                    statement.setString(4, record.newValues());
+                    statement.setTimestamp(5, Timestamp.valueOf(record.changedAt()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+        written.increment(records.size());
+    }
+    
+    /**
+     * Get the number of records waiting to be written
+     */
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+    
+    /**
+     * Write what is still buffered before shutting down
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
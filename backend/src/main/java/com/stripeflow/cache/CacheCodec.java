@@ -0,0 +1,40 @@
+package com.stripeflow.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary codec for one immutable cached value type.
+ * 
+ * The type ID identifies the codec in the serialized header and must never be
+ * reused; the schema version is bumped whenever the field layout changes, so
+ * entries written with an older layout are treated as cache misses.
+ */
+public interface CacheCodec<T> {
+    
+    /**
+     * Stable ID of the value type in the serialized header (1-255)
+     */
+    int getTypeId();
+    
+    /**
+     * Version of the field layout written by {@link #write}
+     */
+    int getSchemaVersion();
+    
+    /**
+     * Value type handled by this codec
+     */
+    Class<T> getType();
+    
+    /**
+     * Write the fields of a value
+     */
+    void write(T value, DataOutput out) throws IOException;
+    
+    /**
+     * Read a value written with the current schema version
+     */
+    T read(DataInput in) throws IOException;
+}
@@ -0,0 +1,192 @@
+package com.stripeflow.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Invalidation of Redis keys without blocking the server.
+ *
+ * Pattern deletes walk the keyspace incrementally with SCAN and free the
+ * matching keys with UNLINK in batches, so Redis never runs an O(N) command
+ * and reclaims memory in the background.
+ *
+ * Namespaced keys embed a generation number read from Redis; bumping the
+ * generation invalidates every key of the namespace in O(1), and the orphaned
+ * keys expire with their TTL. Generations are cached locally so reads don't pay
+ * an extra round trip; a bump is announced on the cache invalidation channel,
+ * and the local TTL bounds staleness if the announcement is lost.
+ *
+ * Tagged keys are indexed in a Redis set per tag, so a write can evict exactly
+ * the cached results that depend on what it changed.
+ */
+@Component
+public class CacheInvalidator implements MessageListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidator.class);
+    
+    static final String GENERATION_PREFIX = "cache_ns:";
+    static final String TAG_PREFIX = "cache_tag:";
+    
+    // Add the key to every tag set, only ever extending a set's TTL so it outlives all its entries
+    static final RedisScript<Long> TAG_SCRIPT = new DefaultRedisScript<>(
+        "for _, tagKey in ipairs(KEYS) do " +
+        "redis.call('sadd', tagKey, ARGV[1]) " +
+        "if redis.call('ttl', tagKey) < tonumber(ARGV[2]) then redis.call('expire', tagKey, ARGV[2]) end " +
+        "end return #KEYS",
+        Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    private final int batchSize;
+    private final Cache<String, Long> generations;
+    
+    public CacheInvalidator(StringRedisTemplate redisTemplate,
+                            @Value("${api.cache.invalidation.batch-size:500}") int batchSize,
+                            @Value("${api.cache.invalidation.generation-ttl-ms:10000}") long generationTtlMillis) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Cache invalidation batch size must be positive: " + batchSize);
+        }
+        this.redisTemplate = redisTemplate;
+        this.batchSize = batchSize;
+        this.generations = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMillis(generationTtlMillis))
+            .build();
+    }
+    
+    /**
+     * Delete every key matching a glob pattern, returning the number of keys unlinked
+     */
+    public long deleteByPattern(String pattern) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+        
+        long deleted = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= batchSize) {
+                    deleted += unlink(batch);
+                }
+            }
+        }
+        deleted += unlink(batch);
+        
+        logger.debug("Unlinked {} keys matching {}", deleted, pattern);
+        return deleted;
+    }
+    
+    /**
+     * Build the key of an entry in the current generation of a namespace
+     */
+    public String namespacedKey(String namespace, String key) {
+        return namespace + ":v" + getGeneration(namespace) + ":" + key;
+    }
+    
+    /**
+     * Get the current generation of a namespace, from the local copy when there is one;
+     * namespaces start at generation 0
+     */
+    public long getGeneration(String namespace) {
+        return generations.get(namespace, this::readGeneration);
+    }
+    
+    /**
+     * Read the generation of a namespace from Redis
+     */
+    private long readGeneration(String namespace) {
+        String generation = redisTemplate.opsForValue().get(GENERATION_PREFIX + namespace);
+        return generation != null ? Long.parseLong(generation) : 0L;
+    }
+    
+    /**
+     * Invalidate every key of a namespace by moving it to a new generation, and tell the other nodes
+     */
+    public long invalidateNamespace(String namespace) {
+        Long generation = redisTemplate.opsForValue().increment(GENERATION_PREFIX + namespace);
+        long current = generation != null ? generation : 0L;
+        generations.put(namespace, current);
+        try {
+            redisTemplate.convertAndSend(TwoTierCacheManager.INVALIDATION_CHANNEL, GENERATION_PREFIX + namespace);
+        } catch (Exception e) {
+            // Other nodes pick up the new generation when their local copy expires
+            logger.warn("Failed to announce new generation of cache namespace {}: {}", namespace, e.getMessage());
+        }
+        logger.info("Invalidated cache namespace {}, now at generation {}", namespace, current);
+        return current;
+    }
+    
+    /**
+     * Drop the local generation of a namespace another node moved forward. Other messages on
+     * the channel are L1 invalidations for the cache manager.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (body.startsWith(GENERATION_PREFIX)) {
+            generations.invalidate(body.substring(GENERATION_PREFIX.length()));
+        }
+    }
+    
+    /**
+     * Index a cached key under its tags in one round trip. A tag set's TTL is only ever
+     * extended, so it lives as long as the longest-lived entry tagged with it.
+     */
+    public void tag(String key, Collection<String> tags, Duration ttl) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        
+        List<String> tagKeys = new ArrayList<>(tags.size());
+        for (String tag : tags) {
+            tagKeys.add(TAG_PREFIX + tag);
+        }
+        redisTemplate.execute(TAG_SCRIPT, tagKeys, key, Long.toString(ttl.toSeconds()));
+    }
+    
+    /**
+     * Evict every key indexed under the given tags, returning the number of keys unlinked
+     */
+    public long invalidateTags(Collection<String> tags) {
+        long deleted = 0;
+        for (String tag : tags) {
+            String tagKey = TAG_PREFIX + tag;
+            // SPOP removes members atomically, so keys tagged while evicting stay indexed
+            List<String> batch = redisTemplate.opsForSet().pop(tagKey, batchSize);
+            while (batch != null && !batch.isEmpty()) {
+                deleted += unlink(new ArrayList<>(batch));
+                batch = redisTemplate.opsForSet().pop(tagKey, batchSize);
+            }
+        }
+        
+        logger.debug("Unlinked {} keys tagged {}", deleted, tags);
+        return deleted;
+    }
+    
+    /**
+     * Unlink a batch of keys with a single variadic UNLINK and reset the batch
+     */
+    private long unlink(List<String> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Long unlinked = redisTemplate.unlink(batch);
+        batch.clear();
+        return unlinked != null ? unlinked : 0;
+    }
+}
@@ -0,0 +1,222 @@
+package com.stripeflow.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-region cache instrumentation.
+ *
+ * Every region records hits by tier, misses, load latency and explicit
+ * evictions; regions with an in-process tier also report its size and
+ * size-based evictions. The untagged stripeflow.cache.hits/misses totals are
+ * kept in step. Regions are ranked by the load time their hits saved.
+ */
+@Component
+public class CacheMetrics {
+    
+    public static final String TIER_LOCAL = "local";
+    public static final String TIER_REDIS = "redis";
+    
+    private final MeterRegistry meterRegistry;
+    private final Counter totalHits;
+    private final Counter totalMisses;
+    private final ConcurrentMap<String, Region> regions = new ConcurrentHashMap<>();
+    
+    public CacheMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        // Same name and tags as the beans in PerformanceMonitoringConfig, so the registry returns those counters
+        this.totalHits = Counter.builder("stripeflow.cache.hits")
+            .description("Number of cache hits")
+            .register(meterRegistry);
+        this.totalMisses = Counter.builder("stripeflow.cache.misses")
+            .description("Number of cache misses")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Record a hit served by the given tier
+     */
+    public void recordHit(String region, String tier) {
+        Region stats = region(region);
+        (TIER_LOCAL.equals(tier) ? stats.localHits : stats.redisHits).increment();
+        totalHits.increment();
+    }
+    
+    /**
+     * Record a miss
+     */
+    public void recordMiss(String region) {
+        region(region).misses.increment();
+        totalMisses.increment();
+    }
+    
+    /**
+     * Record a hit if the looked-up value is present and a miss otherwise, returning the value
+     */
+    public <T> T recordLookup(String region, String tier, T value) {
+        if (value != null) {
+            recordHit(region, tier);
+        } else {
+            recordMiss(region);
+        }
+        return value;
+    }
+    
+    /**
+     * Record the time taken to load a missing value
+     */
+    public void recordLoad(String region, long nanos) {
+        region(region).loads.record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Record entries removed by an explicit evict or clear
+     */
+    public void recordEviction(String region) {
+        region(region).explicitEvictions.increment();
+    }
+    
+    /**
+     * Report the size and size-based evictions of a region's in-process tier
+     */
+    public void bindLocalCache(String region, com.github.benmanes.caffeine.cache.Cache<?, ?> localCache) {
+        Region stats = region(region);
+        stats.localCache = localCache;
+        Gauge.builder("stripeflow.cache.size", localCache, com.github.benmanes.caffeine.cache.Cache::estimatedSize)
+            .tag("cache", region)
+            .tag("tier", TIER_LOCAL)
+            .description("Estimated number of entries in the in-process tier")
+            .register(meterRegistry);
+        FunctionCounter.builder("stripeflow.cache.evictions", localCache, cache -> cache.stats().evictionCount())
+            .tag("cache", region)
+            .tag("cause", "size")
+            .description("Entries evicted from the in-process tier to stay within its maximum size")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Statistics of every region, ranked by the estimated load time their hits saved
+     */
+    public List<RegionStatistics> getRegionStatistics() {
+        List<RegionStatistics> statistics = new ArrayList<>();
+        regions.forEach((name, region) -> statistics.add(region.snapshot(name)));
+        statistics.sort(Comparator.comparingDouble(RegionStatistics::getTimeSavedSeconds).reversed()
+            .thenComparing(Comparator.comparingLong(RegionStatistics::getHits).reversed()));
+        return statistics;
+    }
+    
+    /**
+     * Get or register the meters of a region
+     */
+    private Region region(String name) {
+        return regions.computeIfAbsent(name, Region::new);
+    }
+    
+    /**
+     * Meters of one cache region
+     */
+    private class Region {
+        private final Counter localHits;
+        private final Counter redisHits;
+        private final Counter misses;
+        private final Counter explicitEvictions;
+        private final Timer loads;
+        private volatile com.github.benmanes.caffeine.cache.Cache<?, ?> localCache;
+        
+        Region(String name) {
+            this.localHits = gets(name, "hit", TIER_LOCAL);
+            this.redisHits = gets(name, "hit", TIER_REDIS);
+            this.misses = gets(name, "miss", "none");
+            this.explicitEvictions = Counter.builder("stripeflow.cache.evictions")
+                .tag("cache", name)
+                .tag("cause", "explicit")
+                .description("Entries removed by an explicit evict or clear")
+                .register(meterRegistry);
+            this.loads = Timer.builder("stripeflow.cache.load")
+                .tag("cache", name)
+                .description("Time taken to load a value missing from the cache")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        }
+        
+        /**
+         * Register a lookup counter of the region
+         */
+        private Counter gets(String name, String result, String tier) {
+            return Counter.builder("stripeflow.cache.gets")
+                .tag("cache", name)
+                .tag("result", result)
+                .tag("tier", tier)
+                .description("Cache lookups by result and serving tier")
+                .register(meterRegistry);
+        }
+        
+        /**
+         * Take a point-in-time view of the region
+         */
+        RegionStatistics snapshot(String name) {
+            long hits = (long) (localHits.count() + redisHits.count());
+            long missCount = (long) misses.count();
+            double meanLoadSeconds = loads.mean(TimeUnit.NANOSECONDS) / 1e9;
+            long evictions = (long) explicitEvictions.count()
+                + (localCache != null ? localCache.stats().evictionCount() : 0);
+            Long size = localCache != null ? localCache.estimatedSize() : null;
+            return new RegionStatistics(name, hits, (long) localHits.count(), missCount, loads.count(),
+                meanLoadSeconds * 1000, evictions, size, hits * meanLoadSeconds);
+        }
+    }
+    
+    /**
+     * Point-in-time statistics of a cache region
+     */
+    public static class RegionStatistics {
+        private final String name;
+        private final long hits;
+        private final long localHits;
+        private final long misses;
+        private final long loads;
+        private final double meanLoadMillis;
+        private final long evictions;
+        private final Long localSize;
+        private final double timeSavedSeconds;
+        
+        public RegionStatistics(String name, long hits, long localHits, long misses, long loads,
+                                double meanLoadMillis, long evictions, Long localSize, double timeSavedSeconds) {
+            this.name = name;
+            this.hits = hits;
+            this.localHits = localHits;
+            this.misses = misses;
+            this.loads = loads;
+            this.meanLoadMillis = meanLoadMillis;
+            this.evictions = evictions;
+            this.localSize = localSize;
+            this.timeSavedSeconds = timeSavedSeconds;
+        }
+        
+        public String getName() { return name; }
+        public long getHits() { return hits; }
+        public long getLocalHits() { return localHits; }
+        public long getMisses() { return misses; }
+        public long getLoads() { return loads; }
+        public double getMeanLoadMillis() { return meanLoadMillis; }
+        public long getEvictions() { return evictions; }
+        public Long getLocalSize() { return localSize; }
+        public double getTimeSavedSeconds() { return timeSavedSeconds; }
+        
+        public double getHitRatio() {
+            long lookups = hits + misses;
+            return lookups > 0 ? (double) hits / lookups : 0.0;
+        }
+    }
+}
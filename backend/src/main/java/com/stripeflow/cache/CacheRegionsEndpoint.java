@@ -0,0 +1,30 @@
+package com.stripeflow.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint listing cache regions ranked by the load time their hits saved,
+ * to show which regions are worth more memory or a longer TTL
+ */
+@Component
+@Endpoint(id = "cacheregions")
+public class CacheRegionsEndpoint {
+    
+    private final CacheMetrics cacheMetrics;
+    
+    public CacheRegionsEndpoint(CacheMetrics cacheMetrics) {
+        this.cacheMetrics = cacheMetrics;
+    }
+    
+    /**
+     * Get the statistics of every region, most beneficial first
+     */
+    @ReadOperation
+    public List<CacheMetrics.RegionStatistics> regions() {
+        return cacheMetrics.getRegionStatistics();
+    }
+}
@@ -0,0 +1,170 @@
+package com.stripeflow.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis serializer that writes registered immutable cache DTOs with compact binary codecs.
+ *
+ * Every value starts with a 4-byte header: magic, type ID, schema version and
+ * flags. Bodies of at least the compression threshold are LZ4-compressed.
+ * Types without a codec are written as JSON behind the same header, and values
+ * without the header (written before this serializer) are read as plain JSON.
+ */
+public class CacheValueSerializer implements RedisSerializer<Object> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CacheValueSerializer.class);
+    
+    static final byte MAGIC = (byte) 0xB1;
+    static final int HEADER_LENGTH = 4;
+    static final int JSON_TYPE_ID = 0;
+    static final int JSON_SCHEMA_VERSION = 1;
+    static final int FLAG_LZ4 = 1;
+    
+    private final Map<Integer, CacheCodec<?>> codecsById = new HashMap<>();
+    private final Map<Class<?>, CacheCodec<?>> codecsByType = new HashMap<>();
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = createJsonSerializer();
+    private final int compressionThreshold;
+    
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+    
+    public CacheValueSerializer(List<CacheCodec<?>> codecs, int compressionThreshold) {
+        for (CacheCodec<?> codec : codecs) {
+            if (codec.getTypeId() <= JSON_TYPE_ID || codec.getTypeId() > 255) {
+                throw new IllegalArgumentException("Cache codec type ID must be between 1 and 255: " + codec.getTypeId());
+            }
+            if (codecsById.putIfAbsent(codec.getTypeId(), codec) != null) {
+                throw new IllegalArgumentException("Duplicate cache codec type ID: " + codec.getTypeId());
+            }
+            codecsByType.put(codec.getType(), codec);
+        }
+        this.compressionThreshold = compressionThreshold;
+    }
+    
+    /**
+     * JSON serializer with type information and java.time support, for values without a codec
+     */
+    public static GenericJackson2JsonRedisSerializer createJsonSerializer() {
+        ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        GenericJackson2JsonRedisSerializer.registerNullValueSerializer(objectMapper, null);
+        objectMapper.activateDefaultTyping(objectMapper.getPolymorphicTypeValidator(), 
+            ObjectMapper.DefaultTyping.EVERYTHING, JsonTypeInfo.As.PROPERTY);
+        return new GenericJackson2JsonRedisSerializer(objectMapper);
+    }
+    
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        
+        CacheCodec<?> codec = codecsByType.get(value.getClass());
+        byte[] body = codec != null ? writeBody(codec, value) : jsonSerializer.serialize(value);
+        int typeId = codec != null ? codec.getTypeId() : JSON_TYPE_ID;
+        int schemaVersion = codec != null ? codec.getSchemaVersion() : JSON_SCHEMA_VERSION;
+        
+        if (body.length >= compressionThreshold) {
+            byte[] compressed = compressor.compress(body);
+            // Only keep the compressed form when it is smaller, counting the length prefix
+            if (compressed.length + Integer.BYTES < body.length) {
+                return ByteBuffer.allocate(HEADER_LENGTH + Integer.BYTES + compressed.length)
+                    .put(header(typeId, schemaVersion, FLAG_LZ4))
+                    .putInt(body.length)
+                    .put(compressed)
+                    .array();
+            }
+        }
+        
+        return ByteBuffer.allocate(HEADER_LENGTH + body.length)
+            .put(header(typeId, schemaVersion, 0))
+            .put(body)
+            .array();
+    }
+    
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        
+        // Entries written before the binary format carry no header
+        if (bytes[0] != MAGIC) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH) {
+            throw new SerializationException("Truncated cache value header");
+        }
+        
+        int typeId = bytes[1] & 0xFF;
+        int schemaVersion = bytes[2] & 0xFF;
+        int flags = bytes[3] & 0xFF;
+        
+        byte[] body;
+        if ((flags & FLAG_LZ4) != 0) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+            int length = buffer.getInt();
+            body = decompressor.decompress(bytes, HEADER_LENGTH + Integer.BYTES, length);
+        } else {
+            body = new byte[bytes.length - HEADER_LENGTH];
+            System.arraycopy(bytes, HEADER_LENGTH, body, 0, body.length);
+        }
+        
+        if (typeId == JSON_TYPE_ID) {
+            return jsonSerializer.deserialize(body);
+        }
+        
+        CacheCodec<?> codec = codecsById.get(typeId);
+        if (codec == null || codec.getSchemaVersion() != schemaVersion) {
+            // Written by a different schema; treat as a miss so the entry is reloaded
+            logger.debug("Ignoring cached value with type {} and schema version {}", typeId, schemaVersion);
+            return null;
+        }
+        
+        try {
+            return codec.read(new DataInputStream(new ByteArrayInputStream(body)));
+        } catch (IOException e) {
+            throw new SerializationException("Failed to read cached " + codec.getType().getSimpleName(), e);
+        }
+    }
+    
+    /**
+     * Write a value with its codec
+     */
+    @SuppressWarnings("unchecked")
+    private <T> byte[] writeBody(CacheCodec<T> codec, Object value) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            codec.write((T) value, out);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to write cached " + codec.getType().getSimpleName(), e);
+        }
+        return buffer.toByteArray();
+    }
+    
+    private static byte[] header(int typeId, int schemaVersion, int flags) {
+        return new byte[]{MAGIC, (byte) typeId, (byte) schemaVersion, (byte) flags};
+    }
+}
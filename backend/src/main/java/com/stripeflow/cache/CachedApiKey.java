@@ -0,0 +1,16 @@
+package com.stripeflow.cache;
+
+import com.stripeflow.model.ApiKey;
+
+/**
+ * Cached identity of an enabled API key, looked up by the hash of its secret
+ */
+public record CachedApiKey(Long id, String name) {
+    
+    /**
+     * Build the cached identity of an API key
+     */
+    public static CachedApiKey from(ApiKey apiKey) {
+        return new CachedApiKey(apiKey.getId(), apiKey.getName());
+    }
+}
@@ -0,0 +1,50 @@
+package com.stripeflow.cache;
+
+import com.stripeflow.dto.ChargeResponse;
+import com.stripeflow.model.Charge;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable cached form of a charge and its customer, detached from the JPA entity
+ */
+public record CachedCharge(Long id, BigDecimal amount, String currency, CachedCustomer customer, String status,
+                           String paymentMethod, String description, String metadata, String idempotencyKey,
+                           LocalDateTime createdAt, LocalDateTime updatedAt) {
+    
+    /**
+     * Build the cached form of a charge entity, including its customer
+     */
+    public static CachedCharge from(Charge charge) {
+        return from(charge, charge.getCustomer() != null ? CachedCustomer.from(charge.getCustomer()) : null);
+    }
+    
+    /**
+     * Build the cached form with an already cached customer, without touching the charge's customer association
+     */
+    public static CachedCharge from(Charge charge, CachedCustomer customer) {
+        return new CachedCharge(charge.getId(), charge.getAmount(), charge.getCurrency(), customer,
+            charge.getStatus().name(), charge.getPaymentMethod(), charge.getDescription(), charge.getMetadata(),
+            charge.getIdempotencyKey(), charge.getCreatedAt(), charge.getUpdatedAt());
+    }
+    
+    /**
+     * Convert to the API response
+     */
+    public ChargeResponse toResponse() {
+        ChargeResponse response = new ChargeResponse();
+        response.setId(id);
+        response.setAmount(amount);
+        response.setCurrency(currency);
+        response.setCustomer(customer != null ? customer.toResponse() : null);
+        response.setStatus(status);
+        response.setPaymentMethod(paymentMethod);
+        response.setDescription(description);
+        response.setMetadata(metadata);
+        response.setIdempotencyKey(idempotencyKey);
+        response.setCreatedAt(createdAt);
+        response.setUpdatedAt(updatedAt);
+        return response;
+    }
+}
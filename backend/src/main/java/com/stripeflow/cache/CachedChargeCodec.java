@@ -0,0 +1,64 @@
+package com.stripeflow.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Binary codec for {@link CachedCharge}; the customer is embedded with the customer codec
+ */
+public class CachedChargeCodec implements CacheCodec<CachedCharge> {
+    
+    public static final int TYPE_ID = 2;
+    
+    private final CachedCustomerCodec customerCodec = new CachedCustomerCodec();
+    
+    @Override
+    public int getTypeId() {
+        return TYPE_ID;
+    }
+    
+    @Override
+    public int getSchemaVersion() {
+        // Embeds the customer layout, so it changes whenever the customer schema does
+        return 1;
+    }
+    
+    @Override
+    public Class<CachedCharge> getType() {
+        return CachedCharge.class;
+    }
+    
+    @Override
+    public void write(CachedCharge charge, DataOutput out) throws IOException {
+        CodecIO.writeLong(out, charge.id());
+        CodecIO.writeDecimal(out, charge.amount());
+        CodecIO.writeString(out, charge.currency());
+        
+        out.writeBoolean(charge.customer() != null);
+        if (charge.customer() != null) {
+            customerCodec.write(charge.customer(), out);
+        }
+        
+        CodecIO.writeString(out, charge.status());
+        CodecIO.writeString(out, charge.paymentMethod());
+        CodecIO.writeString(out, charge.description());
+        CodecIO.writeString(out, charge.metadata());
+        CodecIO.writeString(out, charge.idempotencyKey());
+        CodecIO.writeDateTime(out, charge.createdAt());
+        CodecIO.writeDateTime(out, charge.updatedAt());
+    }
+    
+    @Override
+    public CachedCharge read(DataInput in) throws IOException {
+        Long id = CodecIO.readLong(in);
+        BigDecimal amount = CodecIO.readDecimal(in);
+        String currency = CodecIO.readString(in);
+        CachedCustomer customer = in.readBoolean() ? customerCodec.read(in) : null;
+        
+        return new CachedCharge(id, amount, currency, customer,
+            CodecIO.readString(in), CodecIO.readString(in), CodecIO.readString(in), CodecIO.readString(in),
+            CodecIO.readString(in), CodecIO.readDateTime(in), CodecIO.readDateTime(in));
+    }
+}
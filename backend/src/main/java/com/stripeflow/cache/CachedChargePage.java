@@ -0,0 +1,30 @@
+package com.stripeflow.cache;
+
+import com.stripeflow.dto.ChargeResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cached form of a page of charges; Page implementations cannot be read back from JSON
+ */
+public record CachedChargePage(List<ChargeResponse> content, long totalElements) {
+    
+    /**
+     * Build the cached form of a page
+     */
+    public static CachedChargePage from(Page<ChargeResponse> page) {
+        // Copy, as the page's own content list is an unmodifiable view that JSON cannot recreate
+        return new CachedChargePage(new ArrayList<>(page.getContent()), page.getTotalElements());
+    }
+    
+    /**
+     * Rebuild the page for the request that loaded it
+     */
+    public Page<ChargeResponse> toPage(Pageable pageable) {
+        return new PageImpl<>(content, pageable, totalElements);
+    }
+}
@@ -0,0 +1,25 @@
+package com.stripeflow.cache;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Cached charge totals of one day, currency and status, as stored in mv_charge_statistics
+ */
+public record CachedChargeStatistics(LocalDate date, String currency, String status, long count,
+                                     BigDecimal totalAmount, BigDecimal averageAmount) {
+    
+    /**
+     * Build the statistics of a (date, currency, status, count, total_amount, avg_amount) view row
+     */
+    public static CachedChargeStatistics from(Object[] row) {
+        return new CachedChargeStatistics(
+            row[0] instanceof Date date ? date.toLocalDate() : (LocalDate) row[0],
+            (String) row[1],
+            (String) row[2],
+            ((Number) row[3]).longValue(),
+            (BigDecimal) row[4],
+            (BigDecimal) row[5]);
+    }
+}
@@ -0,0 +1,59 @@
+package com.stripeflow.cache;
+
+import com.stripeflow.dto.AddressDto;
+import com.stripeflow.dto.CustomerResponse;
+import com.stripeflow.model.Customer;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable cached form of a customer, detached from the JPA entity
+ */
+public record CachedCustomer(Long id, String email, String name, String phone, Address address,
+                             LocalDateTime createdAt, LocalDateTime updatedAt) {
+    
+    /**
+     * Cached form of a customer address
+     */
+    public record Address(String line1, String line2, String city, String state, String postalCode, String country) {
+    }
+    
+    /**
+     * Build the cached form of a customer entity
+     */
+    public static CachedCustomer from(Customer customer) {
+        Address address = null;
+        if (customer.getAddress() != null) {
+            address = new Address(customer.getAddress().getLine1(), customer.getAddress().getLine2(),
+                customer.getAddress().getCity(), customer.getAddress().getState(),
+                customer.getAddress().getPostalCode(), customer.getAddress().getCountry());
+        }
+        return new CachedCustomer(customer.getId(), customer.getEmail(), customer.getName(), customer.getPhone(),
+            address, customer.getCreatedAt(), customer.getUpdatedAt());
+    }
+    
+    /**
+     * Convert to the API response
+     */
+    public CustomerResponse toResponse() {
+        CustomerResponse response = new CustomerResponse();
+        response.setId(id);
+        response.setEmail(email);
+        response.setName(name);
+        response.setPhone(phone);
+        response.setCreatedAt(createdAt);
+        response.setUpdatedAt(updatedAt);
+        
+        if (address != null) {
+            AddressDto addressDto = new AddressDto();
+            addressDto.setLine1(address.line1());
+            addressDto.setLine2(address.line2());
+            addressDto.setCity(address.city());
+            addressDto.setState(address.state());
+            addressDto.setPostalCode(address.postalCode());
+            addressDto.setCountry(address.country());
+            response.setAddress(addressDto);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,67 @@
+package com.stripeflow.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary codec for {@link CachedCustomer}
+ */
+public class CachedCustomerCodec implements CacheCodec<CachedCustomer> {
+    
+    public static final int TYPE_ID = 1;
+    
+    @Override
+    public int getTypeId() {
+        return TYPE_ID;
+    }
+    
+    @Override
+    public int getSchemaVersion() {
+        return 1;
+    }
+    
+    @Override
+    public Class<CachedCustomer> getType() {
+        return CachedCustomer.class;
+    }
+    
+    @Override
+    public void write(CachedCustomer customer, DataOutput out) throws IOException {
+        CodecIO.writeLong(out, customer.id());
+        CodecIO.writeString(out, customer.email());
+        CodecIO.writeString(out, customer.name());
+        CodecIO.writeString(out, customer.phone());
+        
+        CachedCustomer.Address address = customer.address();
+        out.writeBoolean(address != null);
+        if (address != null) {
+            CodecIO.writeString(out, address.line1());
+            CodecIO.writeString(out, address.line2());
+            CodecIO.writeString(out, address.city());
+            CodecIO.writeString(out, address.state());
+            CodecIO.writeString(out, address.postalCode());
+            CodecIO.writeString(out, address.country());
+        }
+        
+        CodecIO.writeDateTime(out, customer.createdAt());
+        CodecIO.writeDateTime(out, customer.updatedAt());
+    }
+    
+    @Override
+    public CachedCustomer read(DataInput in) throws IOException {
+        Long id = CodecIO.readLong(in);
+        String email = CodecIO.readString(in);
+        String name = CodecIO.readString(in);
+        String phone = CodecIO.readString(in);
+        
+        CachedCustomer.Address address = null;
+        if (in.readBoolean()) {
+            address = new CachedCustomer.Address(CodecIO.readString(in), CodecIO.readString(in),
+                CodecIO.readString(in), CodecIO.readString(in), CodecIO.readString(in), CodecIO.readString(in));
+        }
+        
+        return new CachedCustomer(id, email, name, phone, address, 
+            CodecIO.readDateTime(in), CodecIO.readDateTime(in));
+    }
+}
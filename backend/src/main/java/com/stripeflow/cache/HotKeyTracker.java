@@ -0,0 +1,219 @@
+package com.stripeflow.cache;
+
+import com.stripeflow.util.CountMinSketch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks the most frequently read keys of selected cache regions.
+ *
+ * Each region counts reads in a count-min sketch and keeps the keys whose
+ * estimated count reaches the current top-N threshold. The top keys are
+ * merged into a shared Redis set periodically, so a node starting cold can
+ * preload the keys the cluster was reading most before it takes traffic.
+ * The shared scores decay with a half-life of one record interval, so a node
+ * that just started adds its few reads to the cluster's hot set instead of
+ * replacing it, and keys the cluster stopped reading fade out.
+ */
+@Component
+public class HotKeyTracker {
+    
+    private static final Logger logger = LoggerFactory.getLogger(HotKeyTracker.class);
+    
+    static final String HOT_KEYS_PREFIX = "cache_hot_keys:";
+    static final String DECAYED_AT_SUFFIX = ":decayed_at";
+    
+    // Decay the shared scores by the time since the last merge, add this node's counts and trim to the largest scores.
+    // KEYS: hot set, decay timestamp; ARGV: now ms, half-life ms, max size, retention s, then key/count pairs
+    static final RedisScript<Long> MERGE_SCRIPT = new DefaultRedisScript<>(
+        "local now = tonumber(ARGV[1]) " +
+        "local last = tonumber(redis.call('get', KEYS[2])) " +
+        "if last and now > last then " +
+        "redis.call('zunionstore', KEYS[1], 1, KEYS[1], 'WEIGHTS', tostring(0.5 ^ ((now - last) / tonumber(ARGV[2])))) end " +
+        "if not last or now > last then redis.call('set', KEYS[2], ARGV[1], 'EX', ARGV[4]) end " +
+        "for i = 5, #ARGV, 2 do redis.call('zincrby', KEYS[1], ARGV[i + 1], ARGV[i]) end " +
+        "redis.call('zremrangebyrank', KEYS[1], 0, -(tonumber(ARGV[3]) + 1)) " +
+        "redis.call('expire', KEYS[1], ARGV[4]) " +
+        "return redis.call('zcard', KEYS[1])",
+        Long.class);
+    
+    // Set while warm-up reads run, so they don't count as reads
+    private static final ThreadLocal<Boolean> RECORDING_SUSPENDED = new ThreadLocal<>();
+    private static final int SKETCH_WIDTH = 4096;
+    private static final int SKETCH_DEPTH = 4;
+    
+    private final StringRedisTemplate redisTemplate;
+    private final Set<String> trackedRegions;
+    private final int topKeys;
+    private final Duration retention;
+    private final long halfLifeMillis;
+    private final ConcurrentMap<String, RegionTracker> regions = new ConcurrentHashMap<>();
+    
+    public HotKeyTracker(StringRedisTemplate redisTemplate,
+                         @Value("${api.cache.warmup.regions:customers,charges}") String[] trackedRegions,
+                         @Value("${api.cache.warmup.top-keys:1000}") int topKeys,
+                         @Value("${api.cache.warmup.retention-hours:24}") long retentionHours,
+                         @Value("${api.cache.warmup.record-interval-ms:60000}") long recordIntervalMillis) {
+        if (topKeys <= 0) {
+            throw new IllegalArgumentException("Number of hot keys to track must be positive: " + topKeys);
+        }
+        this.redisTemplate = redisTemplate;
+        this.trackedRegions = Set.copyOf(Arrays.asList(trackedRegions));
+        this.topKeys = topKeys;
+        this.retention = Duration.ofHours(retentionHours);
+        this.halfLifeMillis = recordIntervalMillis;
+    }
+    
+    /**
+     * Count a read of a key; reads of untracked regions and warm-up reads are ignored
+     */
+    public void recordAccess(String region, String key) {
+        if (!trackedRegions.contains(region) || RECORDING_SUSPENDED.get() != null) {
+            return;
+        }
+        regions.computeIfAbsent(region, name -> new RegionTracker()).record(key);
+    }
+    
+    /**
+     * Get the hottest keys of a region seen by this node, hottest first
+     */
+    public List<String> getHotKeys(String region) {
+        RegionTracker tracker = regions.get(region);
+        return tracker != null ? tracker.top() : List.of();
+    }
+    
+    /**
+     * Run reads on the calling thread without counting them, e.g. cache warm-up reads of keys that are hot already
+     */
+    public <T> T withoutRecording(Supplier<T> reads) {
+        RECORDING_SUSPENDED.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            RECORDING_SUSPENDED.remove();
+        }
+    }
+    
+    /**
+     * Merge this node's hot keys of every region into the shared sets and age the local counts
+     */
+    public void persist() {
+        regions.forEach((region, tracker) -> {
+            Map<String, Long> hotKeys = tracker.snapshot();
+            if (hotKeys.isEmpty()) {
+                return;
+            }
+            
+            List<String> args = new ArrayList<>(4 + 2 * hotKeys.size());
+            args.add(Long.toString(System.currentTimeMillis()));
+            args.add(Long.toString(halfLifeMillis));
+            args.add(Integer.toString(2 * topKeys));
+            args.add(Long.toString(retention.toSeconds()));
+            hotKeys.forEach((key, count) -> {
+                args.add(key);
+                args.add(Long.toString(count));
+            });
+            String redisKey = HOT_KEYS_PREFIX + region;
+            redisTemplate.execute(MERGE_SCRIPT, List.of(redisKey, redisKey + DECAYED_AT_SUFFIX), args.toArray());
+            tracker.age();
+            logger.debug("Merged {} hot keys of cache {}", hotKeys.size(), region);
+        });
+    }
+    
+    /**
+     * Load the persisted hot keys of a region, hottest first
+     */
+    public List<String> loadPersistedHotKeys(String region) {
+        Set<String> keys = redisTemplate.opsForZSet().reverseRange(HOT_KEYS_PREFIX + region, 0, topKeys - 1);
+        return keys != null ? new ArrayList<>(keys) : List.of();
+    }
+    
+    /**
+     * Regions whose hot keys are tracked
+     */
+    public Set<String> getTrackedRegions() {
+        return trackedRegions;
+    }
+    
+    /**
+     * Read counts and top-key candidates of one region
+     */
+    private class RegionTracker {
+        private final CountMinSketch sketch = new CountMinSketch(SKETCH_WIDTH, SKETCH_DEPTH);
+        private final ConcurrentMap<String, Long> candidates = new ConcurrentHashMap<>();
+        // Estimated count a key needs to become a candidate; raised whenever the candidates are pruned
+        private volatile long threshold = 1;
+        
+        /**
+         * Count a read and keep the key as a candidate if it is hot enough
+         */
+        void record(String key) {
+            long estimate = sketch.add(key);
+            if (estimate >= threshold) {
+                candidates.put(key, estimate);
+                if (candidates.size() > 2 * topKeys) {
+                    prune();
+                }
+            }
+        }
+        
+        /**
+         * Shrink the candidates to the top N and raise the threshold to the smallest retained count
+         */
+        synchronized void prune() {
+            if (candidates.size() <= topKeys) {
+                return;
+            }
+            List<Map.Entry<String, Long>> sorted = new ArrayList<>(candidates.entrySet());
+            sorted.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+            for (Map.Entry<String, Long> entry : sorted.subList(topKeys, sorted.size())) {
+                candidates.remove(entry.getKey(), entry.getValue());
+            }
+            threshold = sorted.get(topKeys - 1).getValue();
+        }
+        
+        /**
+         * Top N keys with their estimated counts
+         */
+        Map<String, Long> snapshot() {
+            prune();
+            return candidates.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        }
+        
+        /**
+         * Top N keys, hottest first
+         */
+        List<String> top() {
+            return snapshot().entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        }
+        
+        /**
+         * Halve all counts so keys that cooled down drop out of the top N
+         */
+        synchronized void age() {
+            sketch.halve();
+            candidates.replaceAll((key, count) -> count >>> 1);
+            threshold = Math.max(1, threshold >>> 1);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.stripeflow.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker for cache calls to Redis.
+ *
+ * Consecutive Redis errors or slow calls open the breaker; while open, calls
+ * are not attempted and callers fall back to the in-process tier or the
+ * database. After the open interval a single probe call is let through: if it
+ * succeeds the breaker closes and recovery listeners run in the background,
+ * otherwise it opens again. Only Redis data access errors trip the breaker;
+ * other exceptions propagate as before, but still reopen the breaker when the
+ * probe throws them. Bulk operations (scans, clears, pipelines) are expected
+ * to take long and are exempt from the slow-call rule.
+ */
+@Component
+public class RedisCircuitBreaker {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+    
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+    
+    private final int failureThreshold;
+    private final long slowCallNanos;
+    private final long openMillis;
+    
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAt;
+    private final List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+    private final Executor recoveryExecutor;
+    
+    private final Counter shortCircuitedCalls;
+    
+    public RedisCircuitBreaker(MeterRegistry meterRegistry,
+                               @Qualifier("cacheRecoveryExecutor") Executor recoveryExecutor,
+                               @Value("${api.cache.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                               @Value("${api.cache.circuit-breaker.slow-call-ms:250}") long slowCallMillis,
+                               @Value("${api.cache.circuit-breaker.open-ms:5000}") long openMillis) {
+        this.recoveryExecutor = recoveryExecutor;
+        this.failureThreshold = failureThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.openMillis = openMillis;
+        
+        Gauge.builder("stripeflow.cache.redis.circuit.state", state, current -> current.get().ordinal())
+            .description("Redis cache circuit breaker state: 0 closed, 1 open, 2 half-open")
+            .register(meterRegistry);
+        this.shortCircuitedCalls = Counter.builder("stripeflow.cache.redis.short.circuited")
+            .description("Cache calls that skipped Redis because the circuit breaker was open")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Run a Redis call, returning the fallback's value if the breaker is open or the call fails
+     */
+    public <T> T execute(Supplier<T> call, Supplier<T> fallback) {
+        return execute(call, fallback, true);
+    }
+    
+    /**
+     * Run a bulk Redis operation, which is not counted as slow however long it takes
+     */
+    public <T> T executeBulk(Supplier<T> call, Supplier<T> fallback) {
+        return execute(call, fallback, false);
+    }
+    
+    /**
+     * Run a Redis call, returning whether it ran and succeeded
+     */
+    public boolean run(Runnable call) {
+        return execute(() -> {
+            call.run();
+            return true;
+        }, () -> false, true);
+    }
+    
+    /**
+     * Run a bulk Redis operation, returning whether it ran and succeeded
+     */
+    public boolean runBulk(Runnable call) {
+        return execute(() -> {
+            call.run();
+            return true;
+        }, () -> false, false);
+    }
+    
+    /**
+     * Register an action to run in the background when the breaker closes after being open
+     */
+    public void addRecoveryListener(Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+    
+    /**
+     * Get the current state
+     */
+    public State getState() {
+        return state.get();
+    }
+    
+    /**
+     * Run a Redis call through the breaker, timing it against the slow-call threshold if requested
+     */
+    private <T> T execute(Supplier<T> call, Supplier<T> fallback, boolean timed) {
+        State permission = acquirePermission();
+        if (permission == null) {
+            shortCircuitedCalls.increment();
+            return fallback.get();
+        }
+        
+        long start = System.nanoTime();
+        boolean recorded = false;
+        try {
+            T result = call.get();
+            recorded = true;
+            onSuccess(timed ? System.nanoTime() - start : 0);
+            return result;
+        } catch (DataAccessException e) {
+            recorded = true;
+            onFailure(e.getMessage());
+            return fallback.get();
+        } finally {
+            // A probe that throws anything else must not leave the breaker half-open, letting no call through
+            if (!recorded && permission == State.HALF_OPEN) {
+                onFailure("probe threw an unexpected exception");
+            }
+        }
+    }
+    
+    /**
+     * The state a call may go to Redis in, or null if it may not; after the open interval the first caller becomes the probe
+     */
+    private State acquirePermission() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return State.CLOSED;
+        }
+        boolean probe = current == State.OPEN
+            && System.currentTimeMillis() - openedAt >= openMillis
+            && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        return probe ? State.HALF_OPEN : null;
+    }
+    
+    /**
+     * Record a completed call; slow calls count as failures
+     */
+    private void onSuccess(long elapsedNanos) {
+        if (elapsedNanos > slowCallNanos) {
+            onFailure("slow call");
+            return;
+        }
+        
+        consecutiveFailures.set(0);
+        if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            logger.info("Redis cache circuit breaker closed");
+            // Recovery actions may replay thousands of evictions, so they don't run on the probing request's thread
+            for (Runnable listener : recoveryListeners) {
+                recoveryExecutor.execute(() -> {
+                    try {
+                        listener.run();
+                    } catch (Exception e) {
+                        logger.warn("Redis cache recovery action failed: {}", e.getMessage());
+                    }
+                });
+            }
+        }
+    }
+    
+    /**
+     * Record a failed or slow call, opening the breaker once failures reach the threshold
+     */
+    private void onFailure(String cause) {
+        // The open time is set before the state changes, so no caller sees an open breaker with a stale open time
+        if (state.get() == State.HALF_OPEN) {
+            openedAt = System.currentTimeMillis();
+            if (state.compareAndSet(State.HALF_OPEN, State.OPEN)) {
+                logger.warn("Redis cache probe failed, circuit breaker stays open: {}", cause);
+            }
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold && state.get() == State.CLOSED) {
+            openedAt = System.currentTimeMillis();
+            if (state.compareAndSet(State.CLOSED, State.OPEN)) {
+                logger.warn("Redis cache circuit breaker opened after {} consecutive failures: {}",
+                    failureThreshold, cause);
+            }
+        }
+    }
+}
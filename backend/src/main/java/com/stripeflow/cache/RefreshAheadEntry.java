@@ -0,0 +1,20 @@
+package com.stripeflow.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cached value with what refresh-ahead needs to decide when to recompute it:
+ * how long the last computation took and when the value is due for a refresh.
+ */
+public record RefreshAheadEntry(Object value, long computeMillis, long refreshAt) {
+    
+    /**
+     * Probabilistic early expiration (XFetch): the chance of refreshing rises as the
+     * refresh time nears, and earlier for values that are slow to compute. Larger betas
+     * refresh earlier; past the refresh time this is always true.
+     */
+    public boolean shouldRefresh(long now, double beta) {
+        double random = ThreadLocalRandom.current().nextDouble();
+        return now - computeMillis * beta * Math.log(random) >= refreshAt;
+    }
+}
@@ -0,0 +1,313 @@
+package com.stripeflow.cache;
+
+import com.stripeflow.util.SingleFlight;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Cache with a bounded in-process L1 tier in front of a shared Redis L2 tier.
+ *
+ * Reads are served from L1 when possible and fill L1 from L2 on a miss. Writes
+ * go to both tiers and publish an invalidation so other nodes drop their L1 copy.
+ * Loads through {@link #get(Object, Callable)} are single-flight per key on each node.
+ */
+public class TwoTierCache implements Cache {
+    
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> localCache;
+    private final Cache remoteCache;
+    private final TwoTierCacheManager cacheManager;
+    private final SingleFlight singleFlight = new SingleFlight();
+    
+    TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> localCache,
+                 Cache remoteCache, TwoTierCacheManager cacheManager) {
+        this.name = name;
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.cacheManager = cacheManager;
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public Object getNativeCache() {
+        return remoteCache.getNativeCache();
+    }
+    
+    @Override
+    public ValueWrapper get(Object key) {
+        cacheManager.recordAccess(name, localKey(key));
+        Object local = localCache.getIfPresent(localKey(key));
+        if (local != null) {
+            cacheManager.getCacheMetrics().recordHit(name, CacheMetrics.TIER_LOCAL);
+            return new SimpleValueWrapper(local);
+        }
+        
+        // While Redis is unavailable a local miss is a miss
+        ValueWrapper remote = cacheManager.callRemote(() -> remoteCache.get(key), () -> null);
+        if (remote != null && remote.get() != null) {
+            cacheManager.getCacheMetrics().recordHit(name, CacheMetrics.TIER_REDIS);
+            localCache.put(localKey(key), remote.get());
+        } else {
+            cacheManager.getCacheMetrics().recordMiss(name);
+        }
+        return remote;
+    }
+    
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        return cast(wrapper != null ? wrapper.get() : null, type);
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper remote = get(key);
+        if (remote != null && remote.get() != null) {
+            return (T) remote.get();
+        }
+        
+        try {
+            return singleFlight.execute(localKey(key), () -> load(key, valueLoader));
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+    
+    @Override
+    public void put(Object key, Object value) {
+        // Redis does not cache nulls, so a null value removes the entry from both tiers instead
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        if (!cacheManager.runRemote(() -> remoteCache.put(key, value))) {
+            // Redis may still hold the previous value; drop it once Redis is back
+            cacheManager.deferEviction(name, key);
+        }
+        localCache.put(localKey(key), value);
+        cacheManager.publishInvalidation(name, localKey(key));
+    }
+    
+    @Override
+    public void evict(Object key) {
+        cacheManager.getCacheMetrics().recordEviction(name);
+        if (!cacheManager.runRemote(() -> remoteCache.evict(key))) {
+            cacheManager.deferEviction(name, key);
+        }
+        localCache.invalidate(localKey(key));
+        cacheManager.publishInvalidation(name, localKey(key));
+    }
+    
+    @Override
+    public void clear() {
+        cacheManager.getCacheMetrics().recordEviction(name);
+        if (!clearRemote()) {
+            cacheManager.deferEviction(name, null);
+        }
+        localCache.invalidateAll();
+        cacheManager.publishInvalidation(name, null);
+    }
+    
+    /**
+     * Get the cached values of several keys: L1 first, then a single Redis MGET for the rest.
+     * Keys without a cached value are absent from the result.
+     */
+    public <T> Map<Object, T> getAll(Collection<?> keys, Class<T> type) {
+        Map<Object, T> hits = new HashMap<>();
+        List<Object> misses = new ArrayList<>();
+        for (Object key : keys) {
+            cacheManager.recordAccess(name, localKey(key));
+            Object local = localCache.getIfPresent(localKey(key));
+            if (local != null) {
+                cacheManager.getCacheMetrics().recordHit(name, CacheMetrics.TIER_LOCAL);
+                hits.put(key, cast(local, type));
+            } else {
+                misses.add(key);
+            }
+        }
+        
+        if (misses.isEmpty()) {
+            return hits;
+        }
+        
+        if (!(remoteCache instanceof RedisCache redisCache)) {
+            for (Object key : misses) {
+                T value = get(key, type);
+                if (value != null) {
+                    hits.put(key, value);
+                }
+            }
+            return hits;
+        }
+        
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        byte[][] redisKeys = misses.stream().map(key -> redisKey(config, key)).toArray(byte[][]::new);
+        List<byte[]> values = cacheManager.callRemoteBulk(() -> {
+            try (RedisConnection connection = cacheManager.getConnectionFactory().getConnection()) {
+                return connection.stringCommands().mGet(redisKeys);
+            }
+        }, () -> null);
+        
+        for (int i = 0; i < misses.size(); i++) {
+            byte[] bytes = values != null ? values.get(i) : null;
+            if (bytes == null) {
+                cacheManager.getCacheMetrics().recordMiss(name);
+                continue;
+            }
+            cacheManager.getCacheMetrics().recordHit(name, CacheMetrics.TIER_REDIS);
+            Object value = config.getValueSerializationPair().read(ByteBuffer.wrap(bytes));
+            localCache.put(localKey(misses.get(i)), value);
+            hits.put(misses.get(i), cast(value, type));
+        }
+        return hits;
+    }
+    
+    /**
+     * Store freshly loaded values in both tiers, writing Redis in a single pipeline
+     */
+    public void putAll(Map<?, ?> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        
+        // Freshly loaded values replace nothing newer, so a failed remote write needs no deferred eviction
+        if (remoteCache instanceof RedisCache redisCache) {
+            RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+            cacheManager.runRemoteBulk(() -> {
+                try (RedisConnection connection = cacheManager.getConnectionFactory().getConnection()) {
+                    connection.openPipeline();
+                    values.forEach((key, value) -> {
+                        Duration ttl = config.getTtlFunction().getTimeToLive(key, value);
+                        connection.stringCommands().set(redisKey(config, key), 
+                            ByteUtils.getBytes(config.getValueSerializationPair().write(value)),
+                            ttl.isZero() || ttl.isNegative() ? Expiration.persistent() : Expiration.from(ttl),
+                            RedisStringCommands.SetOption.upsert());
+                    });
+                    connection.closePipeline();
+                }
+            });
+        } else {
+            cacheManager.runRemoteBulk(() -> values.forEach(remoteCache::put));
+        }
+        
+        values.forEach((key, value) -> localCache.put(localKey(key), value));
+    }
+    
+    /**
+     * Load a missing value, at most once per key across the cluster while the distributed lease is enabled
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T load(Object key, Callable<T> valueLoader) throws Exception {
+        String leaseKey = null;
+        if (cacheManager.isLoadLeaseEnabled()) {
+            leaseKey = cacheManager.tryAcquireLoadLease(name, localKey(key));
+            if (leaseKey == null) {
+                // Another node is loading; wait for its value before falling back to loading here
+                Object loaded = cacheManager.awaitRemoteValue(remoteCache, key);
+                if (loaded != null) {
+                    localCache.put(localKey(key), loaded);
+                    return (T) loaded;
+                }
+            }
+        }
+        
+        try {
+            long start = System.nanoTime();
+            T value = valueLoader.call();
+            cacheManager.getCacheMetrics().recordLoad(name, System.nanoTime() - start);
+            if (value != null) {
+                // A fresh load replaces nothing other nodes hold in L1, so no invalidation is published
+                cacheManager.runRemote(() -> remoteCache.put(key, value));
+                localCache.put(localKey(key), value);
+            }
+            return value;
+        } finally {
+            if (leaseKey != null) {
+                cacheManager.releaseLoadLease(leaseKey);
+            }
+        }
+    }
+    
+    /**
+     * Evict a key from the Redis tier only, returning whether Redis applied it
+     */
+    boolean evictRemote(Object key) {
+        return cacheManager.runRemote(() -> remoteCache.evict(key));
+    }
+    
+    /**
+     * Clear the Redis tier only, returning whether Redis applied it
+     */
+    boolean clearRemote() {
+        return cacheManager.runRemoteBulk(remoteCache::clear);
+    }
+    
+    /**
+     * Drop a key from this node's L1 tier only
+     */
+    void evictLocal(String key) {
+        localCache.invalidate(key);
+    }
+    
+    /**
+     * Drop all keys from this node's L1 tier only
+     */
+    void clearLocal() {
+        localCache.invalidateAll();
+    }
+    
+    /**
+     * Get the estimated number of entries in the L1 tier
+     */
+    public long getLocalSize() {
+        return localCache.estimatedSize();
+    }
+    
+    /**
+     * Redis key of an entry, built the same way as RedisCache builds it
+     */
+    private byte[] redisKey(RedisCacheConfiguration config, Object key) {
+        String convertedKey = key instanceof String stringKey 
+            ? stringKey 
+            : config.getConversionService().convert(key, String.class);
+        return ByteUtils.getBytes(config.getKeySerializationPair().write(config.getKeyPrefixFor(name) + convertedKey));
+    }
+    
+    /**
+     * Check a cached value against the type the caller expects
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object value, Class<T> type) {
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+    
+    /**
+     * L1 keys use the same string form as the Redis keys, so invalidation messages match them
+     */
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
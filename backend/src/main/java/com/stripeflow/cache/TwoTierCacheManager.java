@@ -0,0 +1,350 @@
+package com.stripeflow.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Cache manager that layers a Caffeine L1 tier over the caches of a Redis cache manager.
+ *
+ * Every node subscribes to {@link #INVALIDATION_CHANNEL}; a write on one node
+ * publishes the cache name and key, and the other nodes drop the key from their
+ * L1 tier. The L1 TTL bounds staleness if an invalidation message is lost.
+ * 
+ * With the optional load lease, a node that misses a key takes a short-lived
+ * Redis lock before loading it, and other nodes wait for the loaded value
+ * instead of querying the database at the same time.
+ * 
+ * With a circuit breaker, Redis calls are skipped while Redis is failing and
+ * the caches run on their L1 tier and the database. Remote evictions skipped
+ * meanwhile are replayed when the breaker closes, so Redis cannot serve
+ * entries that changed during the outage.
+ */
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TwoTierCacheManager.class);
+    
+    public static final String INVALIDATION_CHANNEL = "stripeflow:cache:invalidation";
+    
+    private static final String SEPARATOR = "|";
+    private static final String CLEAR_MARKER = "*";
+    private static final String LEASE_PREFIX = "cache_lease:";
+    private static final long LEASE_POLL_MILLIS = 20;
+    private static final int MAX_DEFERRED_EVICTIONS = 10_000;
+    
+    private static final RedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class);
+    
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final Map<String, LocalCacheSpec> localCacheSpecs;
+    private final LocalCacheSpec defaultLocalCacheSpec;
+    private final CacheMetrics cacheMetrics;
+    
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    
+    private Duration loadLeaseTtl;
+    private Duration loadLeaseWait;
+    private HotKeyTracker hotKeyTracker;
+    private RedisCircuitBreaker circuitBreaker;
+    
+    // Remote evictions skipped while Redis was unavailable, replayed once it recovers
+    private final ConcurrentMap<String, Set<Object>> deferredEvictions = new ConcurrentHashMap<>();
+    private final Set<String> deferredClears = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger deferredEvictionCount = new AtomicInteger();
+    
+    public TwoTierCacheManager(CacheManager remoteCacheManager, StringRedisTemplate redisTemplate,
+                               Map<String, LocalCacheSpec> localCacheSpecs, LocalCacheSpec defaultLocalCacheSpec,
+                               CacheMetrics cacheMetrics) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.localCacheSpecs = localCacheSpecs;
+        this.defaultLocalCacheSpec = defaultLocalCacheSpec;
+        this.cacheMetrics = cacheMetrics;
+    }
+    
+    /**
+     * Enable the distributed load lease; a null TTL disables it
+     */
+    public void setLoadLease(Duration leaseTtl, Duration leaseWait) {
+        this.loadLeaseTtl = leaseTtl;
+        this.loadLeaseWait = leaseWait;
+    }
+    
+    /**
+     * Count reads per key so the hottest keys can be preloaded after a restart
+     */
+    public void setHotKeyTracker(HotKeyTracker hotKeyTracker) {
+        this.hotKeyTracker = hotKeyTracker;
+    }
+    
+    /**
+     * Guard Redis calls with a circuit breaker and replay skipped evictions when it closes
+     */
+    public void setCircuitBreaker(RedisCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+        circuitBreaker.addRecoveryListener(this::replayDeferredEvictions);
+    }
+    
+    @Override
+    public Cache getCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        
+        Cache remoteCache = remoteCacheManager.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> createCache(cacheName, remoteCache));
+    }
+    
+    @Override
+    public Collection<String> getCacheNames() {
+        Set<String> names = new LinkedHashSet<>(remoteCacheManager.getCacheNames());
+        names.addAll(caches.keySet());
+        return Collections.unmodifiableSet(names);
+    }
+    
+    /**
+     * Tell the other nodes to drop a key, or the whole cache when the key is null, from their L1 tier
+     */
+    void publishInvalidation(String cacheName, String key) {
+        String message = nodeId + SEPARATOR + cacheName + SEPARATOR + (key != null ? key : CLEAR_MARKER);
+        try {
+            if (!runRemote(() -> redisTemplate.convertAndSend(INVALIDATION_CHANNEL, message))) {
+                // Other nodes fall back to their L1 TTL
+                logger.debug("Skipped cache invalidation for {} while Redis is unavailable", cacheName);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to publish cache invalidation for {}: {}", cacheName, e.getMessage());
+        }
+    }
+    
+    /**
+     * Run a Redis call through the circuit breaker, returning the fallback's value if Redis is unavailable
+     */
+    <T> T callRemote(Supplier<T> call, Supplier<T> fallback) {
+        return circuitBreaker != null ? circuitBreaker.execute(call, fallback) : call.get();
+    }
+    
+    /**
+     * Run a Redis call through the circuit breaker, returning whether it succeeded
+     */
+    boolean runRemote(Runnable call) {
+        if (circuitBreaker != null) {
+            return circuitBreaker.run(call);
+        }
+        call.run();
+        return true;
+    }
+    
+    /**
+     * Run a bulk Redis operation through the circuit breaker without the slow-call rule
+     */
+    <T> T callRemoteBulk(Supplier<T> call, Supplier<T> fallback) {
+        return circuitBreaker != null ? circuitBreaker.executeBulk(call, fallback) : call.get();
+    }
+    
+    /**
+     * Run a bulk Redis operation through the circuit breaker without the slow-call rule, returning whether it succeeded
+     */
+    boolean runRemoteBulk(Runnable call) {
+        if (circuitBreaker != null) {
+            return circuitBreaker.runBulk(call);
+        }
+        call.run();
+        return true;
+    }
+    
+    /**
+     * Remember a remote eviction that could not be applied; past the limit the whole cache is cleared instead
+     */
+    void deferEviction(String cacheName, Object key) {
+        if (key == null || deferredEvictionCount.get() >= MAX_DEFERRED_EVICTIONS) {
+            deferredClears.add(cacheName);
+            return;
+        }
+        if (deferredEvictions.computeIfAbsent(cacheName, name -> ConcurrentHashMap.newKeySet()).add(key)) {
+            deferredEvictionCount.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Apply the remote evictions skipped while Redis was unavailable
+     */
+    void replayDeferredEvictions() {
+        for (String cacheName : List.copyOf(deferredClears)) {
+            TwoTierCache cache = caches.get(cacheName);
+            if (cache != null && cache.clearRemote()) {
+                deferredClears.remove(cacheName);
+                deferredEvictions.remove(cacheName);
+            }
+        }
+        
+        int replayed = 0;
+        for (Map.Entry<String, Set<Object>> entry : deferredEvictions.entrySet()) {
+            TwoTierCache cache = caches.get(entry.getKey());
+            for (Object key : List.copyOf(entry.getValue())) {
+                if (cache == null || cache.evictRemote(key)) {
+                    entry.getValue().remove(key);
+                    deferredEvictionCount.decrementAndGet();
+                    replayed++;
+                }
+            }
+        }
+        logger.info("Replayed {} cache evictions deferred while Redis was unavailable", replayed);
+    }
+    
+    /**
+     * Connection factory for bulk reads and writes that bypass the per-key cache API
+     */
+    RedisConnectionFactory getConnectionFactory() {
+        return redisTemplate.getConnectionFactory();
+    }
+    
+    /**
+     * Metrics the caches of this manager report to
+     */
+    CacheMetrics getCacheMetrics() {
+        return cacheMetrics;
+    }
+    
+    /**
+     * Count a read of a key for hot-key tracking
+     */
+    void recordAccess(String cacheName, String key) {
+        if (hotKeyTracker != null) {
+            hotKeyTracker.recordAccess(cacheName, key);
+        }
+    }
+    
+    /**
+     * Whether loads coordinate across nodes through the Redis lease
+     */
+    boolean isLoadLeaseEnabled() {
+        return loadLeaseTtl != null;
+    }
+    
+    /**
+     * Try to take the cluster-wide lease for loading a key, returning the lease key if acquired
+     */
+    String tryAcquireLoadLease(String cacheName, String key) {
+        String leaseKey = LEASE_PREFIX + cacheName + ":" + key;
+        try {
+            // Without Redis there is nobody to coordinate with; load locally
+            Boolean acquired = callRemote(() -> redisTemplate.opsForValue().setIfAbsent(leaseKey, nodeId, loadLeaseTtl),
+                () -> null);
+            return Boolean.FALSE.equals(acquired) ? null : leaseKey;
+        } catch (Exception e) {
+            // Without Redis there is nobody to coordinate with; load locally
+            logger.warn("Failed to acquire cache load lease for {}: {}", leaseKey, e.getMessage());
+            return leaseKey;
+        }
+    }
+    
+    /**
+     * Release a load lease if this node still holds it
+     */
+    void releaseLoadLease(String leaseKey) {
+        try {
+            // A lease that cannot be released expires with its TTL
+            runRemote(() -> redisTemplate.execute(RELEASE_LEASE_SCRIPT, Collections.singletonList(leaseKey), nodeId));
+        } catch (Exception e) {
+            logger.warn("Failed to release cache load lease {}: {}", leaseKey, e.getMessage());
+        }
+    }
+    
+    /**
+     * Poll the remote cache for a value another node is loading, up to the lease wait
+     */
+    Object awaitRemoteValue(Cache remoteCache, Object key) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + loadLeaseWait.toMillis();
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(LEASE_POLL_MILLIS);
+            Cache.ValueWrapper loaded = callRemote(() -> remoteCache.get(key), () -> null);
+            if (loaded != null && loaded.get() != null) {
+                return loaded.get();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Apply an invalidation published by another node
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        
+        TwoTierCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        
+        if (CLEAR_MARKER.equals(parts[2])) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[2]);
+        }
+    }
+    
+    /**
+     * Build the L1 tier of a cache from its spec
+     */
+    private TwoTierCache createCache(String name, Cache remoteCache) {
+        LocalCacheSpec spec = localCacheSpecs.getOrDefault(name, defaultLocalCacheSpec);
+        // Caffeine's default eviction policy is W-TinyLFU
+        com.github.benmanes.caffeine.cache.Cache<String, Object> localCache = Caffeine.newBuilder()
+            .maximumSize(spec.getMaximumSize())
+            .expireAfterWrite(spec.getTimeToLive())
+            .recordStats()
+            .build();
+        cacheMetrics.bindLocalCache(name, localCache);
+        return new TwoTierCache(name, localCache, remoteCache, this);
+    }
+    
+    /**
+     * Size and TTL of the L1 tier of a cache
+     */
+    public static class LocalCacheSpec {
+        private final long maximumSize;
+        private final Duration timeToLive;
+        
+        public LocalCacheSpec(long maximumSize, Duration timeToLive) {
+            this.maximumSize = maximumSize;
+            this.timeToLive = timeToLive;
+        }
+        
+        public long getMaximumSize() { return maximumSize; }
+        public Duration getTimeToLive() { return timeToLive; }
+    }
+}
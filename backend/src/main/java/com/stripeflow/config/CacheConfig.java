@@ -1,18 +1,32 @@
 package com.stripeflow.config;
 
-import org.springframework.cache.CacheManager;
+import com.stripeflow.cache.CacheInvalidator;
+import com.stripeflow.cache.CacheMetrics;
+import com.stripeflow.cache.CacheValueSerializer;
+import com.stripeflow.cache.CachedChargeCodec;
+import com.stripeflow.cache.CachedCustomerCodec;
+import com.stripeflow.cache.HotKeyTracker;
+import com.stripeflow.cache.RedisCircuitBreaker;
+import com.stripeflow.cache.TwoTierCacheManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -23,14 +37,27 @@ import java.util.Map;
 public class CacheConfig {
 
     /**
-     * Configure Redis cache manager with multiple cache configurations
+     * Configure two-tier cache manager: in-process L1 over Redis L2 with multiple cache configurations
      */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory, 
+                                            StringRedisTemplate stringRedisTemplate,
+                                            CacheMetrics cacheMetrics,
+                                            HotKeyTracker hotKeyTracker,
+                                            RedisCircuitBreaker redisCircuitBreaker,
+                                            @Value("${api.cache.load-lease.enabled:false}") boolean loadLeaseEnabled,
+                                            @Value("${api.cache.load-lease.ttl-ms:5000}") long loadLeaseTtlMillis,
+                                            @Value("${api.cache.load-lease.wait-ms:500}") long loadLeaseWaitMillis,
+                                            @Value("${api.cache.compression.min-size-bytes:512}") int compressionThreshold,
+                                            @Value("${api.cache.invalidation.batch-size:500}") int invalidationBatchSize) {
+        // Binary codecs for the immutable cache DTOs, JSON for everything else
+        CacheValueSerializer valueSerializer = new CacheValueSerializer(
+                List.of(new CachedCustomerCodec(), new CachedChargeCodec()), compressionThreshold);
+
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(30))
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer))
                 .disableCachingNullValues();
 
         // Cache-specific configurations
@@ -57,13 +84,72 @@ public class CacheConfig {
         // Session cache - 24 hours TTL
         cacheConfigurations.put("sessions", defaultConfig.entryTtl(Duration.ofHours(24)));
         
-        // API key cache - 1 hour TTL
-        cacheConfigurations.put("apiKeys", defaultConfig.entryTtl(Duration.ofHours(1)));
+        // API key cache - 1 minute TTL; keys are disabled in api_keys without an eviction, so this bounds how long
+        // a disabled key keeps authenticating
+        cacheConfigurations.put("apiKeys", defaultConfig.entryTtl(Duration.ofMinutes(1)));
+
+        // Clearing a cache region scans its keys instead of running KEYS, which blocks the server
+        RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory, 
+                BatchStrategies.scan(invalidationBatchSize));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(cacheWriter)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
+        redisCacheManager.initializeCaches();
+
+        // L1 tiers - TTLs stay well below the Redis TTLs to bound staleness if an invalidation is missed
+        Map<String, TwoTierCacheManager.LocalCacheSpec> localCacheSpecs = new HashMap<>();
+        localCacheSpecs.put("customers", new TwoTierCacheManager.LocalCacheSpec(10_000, Duration.ofMinutes(5)));
+        localCacheSpecs.put("charges", new TwoTierCacheManager.LocalCacheSpec(50_000, Duration.ofMinutes(2)));
+        localCacheSpecs.put("refunds", new TwoTierCacheManager.LocalCacheSpec(10_000, Duration.ofMinutes(5)));
+        localCacheSpecs.put("subscriptions", new TwoTierCacheManager.LocalCacheSpec(10_000, Duration.ofMinutes(5)));
+        localCacheSpecs.put("statistics", new TwoTierCacheManager.LocalCacheSpec(100, Duration.ofSeconds(30)));
+        localCacheSpecs.put("apiKeys", new TwoTierCacheManager.LocalCacheSpec(10_000, Duration.ofSeconds(30)));
+
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(redisCacheManager, stringRedisTemplate, 
+                localCacheSpecs, new TwoTierCacheManager.LocalCacheSpec(1_000, Duration.ofMinutes(1)), cacheMetrics);
+
+        // Count reads so the hottest keys can be preloaded after a restart
+        cacheManager.setHotKeyTracker(hotKeyTracker);
+
+        // Serve from L1 and the database while Redis is failing
+        cacheManager.setCircuitBreaker(redisCircuitBreaker);
+
+        // Optionally limit loads of a missing key to one node cluster-wide
+        if (loadLeaseEnabled) {
+            cacheManager.setLoadLease(Duration.ofMillis(loadLeaseTtlMillis), Duration.ofMillis(loadLeaseWaitMillis));
+        }
+        return cacheManager;
+    }
+
+    /**
+     * Redis template with string keys for the direct reads and writes in CacheService
+     */
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(CacheValueSerializer.createJsonSerializer());
+        template.setHashValueSerializer(CacheValueSerializer.createJsonSerializer());
+        return template;
+    }
+
+    /**
+     * Subscribe the cache manager to L1 invalidations and the invalidator to namespace
+     * generation changes published by other nodes
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                             TwoTierCacheManager cacheManager,
+                                                                             CacheInvalidator cacheInvalidator) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoTierCacheManager.INVALIDATION_CHANNEL));
+        container.addMessageListener(cacheInvalidator, new ChannelTopic(TwoTierCacheManager.INVALIDATION_CHANNEL));
+        return container;
     }
 }
 
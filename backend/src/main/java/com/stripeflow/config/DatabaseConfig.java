@@ -1,10 +1,20 @@
 package com.stripeflow.config;
 
+import com.stripeflow.datasource.InstrumentedDataSource;
+import com.stripeflow.datasource.QueryInspector;
+import com.stripeflow.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
@@ -12,10 +22,15 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
  * Database configuration for connection pooling and performance optimization
+ * 
+ * Read-only transactions are served by read replicas when any are configured
+ * and caught up; everything else runs on the primary.
  */
 @Configuration
 @EnableJpaRepositories(basePackages = "com.stripeflow.repository")
@@ -23,15 +38,60 @@ import java.util.Properties;
 public class DatabaseConfig {
     
     /**
-     * HikariCP DataSource configuration
+     * HikariCP pool of the primary database, configured by spring.datasource.hikari.
+     * Publishes the hikaricp.connections metrics: active, idle and pending connections, acquire and usage times.
      */
     @Bean
-    @Primary
     @ConfigurationProperties(prefix = "spring.datasource.hikari")
-    public DataSource dataSource() {
-        // HikariCP is already configured in application.yml
-        // This bean is for additional configuration if needed
-        return null; // Spring Boot auto-configuration will handle this
+    public HikariDataSource primaryDataSource(DataSourceProperties properties, MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
+    }
+    
+    /**
+     * Routing over the primary and the read replicas; without replicas every connection comes from the primary
+     */
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+                                                      MeterRegistry meterRegistry,
+                                                      @Value("${api.datasource.replicas.urls:}") String[] replicaUrls,
+                                                      @Value("${api.datasource.replicas.maximum-pool-size:20}") int replicaPoolSize,
+                                                      @Value("${api.datasource.replicas.connection-timeout-ms:1000}") long replicaConnectionTimeoutMillis,
+                                                      @Value("${api.datasource.replicas.max-lag-ms:5000}") long maxLagMillis) {
+        List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            // Same credentials and pool settings as the primary, but a short connection timeout so reads fail over quickly
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            String name = "replica-" + (replicas.size() + 1);
+            config.setPoolName(name);
+            config.setJdbcUrl(url.trim());
+            config.setMaximumPoolSize(replicaPoolSize);
+            config.setConnectionTimeout(replicaConnectionTimeoutMillis);
+            config.setReadOnly(true);
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new ReplicaRoutingDataSource.Replica(name, new HikariDataSource(config)));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagMillis, meterRegistry);
+    }
+    
+    /**
+     * Application DataSource: defers taking a connection until the first statement, so the
+     * routing sees whether the surrounding transaction is read-only, and reports every
+     * statement to the query inspector
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource,
+                                 QueryInspector queryInspector,
+                                 @Value("${api.datasource.query-inspection.enabled:true}") boolean inspectQueries) {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        return inspectQueries ? new InstrumentedDataSource(dataSource, queryInspector) : dataSource;
     }
     
     /**
@@ -55,6 +115,7 @@ public class DatabaseConfig {
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
         properties.setProperty("hibernate.format_sql", "true");
         properties.setProperty("hibernate.use_sql_comments", "true");
+        // Insert batching relies on the pooled sequence ids of the entities; IDENTITY ids would disable it
         properties.setProperty("hibernate.jdbc.batch_size", "25");
         properties.setProperty("hibernate.order_inserts", "true");
         properties.setProperty("hibernate.order_updates", "true");
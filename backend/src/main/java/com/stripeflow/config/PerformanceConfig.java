@@ -73,6 +73,40 @@ public class PerformanceConfig {
         return executor;
     }
     
+    /**
+     * Executor for refresh-ahead cache reloads; refreshes are dropped rather than queued
+     * without bound, as the entry being refreshed is still served
+     */
+    @Bean(name = "cacheRefreshExecutor")
+    public Executor cacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * Executor for the actions that run once Redis recovers, such as replaying
+     * deferred evictions; recoveries are rare, so a single thread suffices
+     */
+    @Bean(name = "cacheRecoveryExecutor")
+    public Executor cacheRecoveryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(50);
+        executor.setThreadNamePrefix("cache-recovery-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+    
     /**
      * Optimized RestTemplate for webhook delivery
      */
@@ -80,15 +80,8 @@ public class PerformanceMonitoringConfig {
     }
     
     /**
-     * Database performance metrics
+     * Database performance metrics; query times are recorded per repository method by QueryInspector
      */
-    @Bean
-    public Timer databaseQueryTimer(MeterRegistry meterRegistry) {
-        return Timer.builder("stripeflow.database.query.time")
-                .description("Database query execution time")
-                .register(meterRegistry);
-    }
-    
     @Bean
     public Counter databaseConnectionCounter(MeterRegistry meterRegistry) {
         return Counter.builder("stripeflow.database.connections")
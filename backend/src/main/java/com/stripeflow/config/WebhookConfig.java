@@ -1,5 +1,7 @@
 package com.stripeflow.config;
 
+import com.stripeflow.util.KeyedSerialExecutor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -33,6 +35,14 @@ public class WebhookConfig {
         return executor;
     }
     
+    /**
+     * Delivery executor that keeps events for the same endpoint and object in order
+     */
+    @Bean
+    public KeyedSerialExecutor webhookDeliveryExecutor(@Qualifier("webhookExecutor") Executor webhookExecutor) {
+        return new KeyedSerialExecutor(webhookExecutor);
+    }
+    
     /**
      * RestTemplate for webhook HTTP calls
      */
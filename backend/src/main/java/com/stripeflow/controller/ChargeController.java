@@ -1,5 +1,6 @@
 package com.stripeflow.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stripeflow.dto.ChargeResponse;
 import com.stripeflow.dto.CreateChargeRequest;
 import com.stripeflow.model.Charge;
@@ -9,14 +10,22 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+
 /**
  * REST controller for charge operations
  */
@@ -28,6 +37,9 @@ public class ChargeController {
     @Autowired
     private ChargeService chargeService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     /**
      * Create a new charge
      */
@@ -142,6 +154,39 @@ public class ChargeController {
         return ResponseEntity.ok(charges);
     }
     
+    /**
+     * Export the charges created within a date range as newline-delimited JSON.
+     * Charges are written as they are read from the cursor, so any range is exported in constant memory.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export charges", description = "Export charges created within a date range as NDJSON")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Charges exported successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid date range")
+    })
+    public void exportCharges(
+            @Parameter(description = "Start of the range (inclusive)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "End of the range (inclusive)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            HttpServletResponse response) throws IOException {
+        if (endDate.isBefore(startDate)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        ServletOutputStream out = response.getOutputStream();
+        chargeService.forEachChargeCreatedBetween(startDate, endDate, charge -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(charge));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+    }
+    
     /**
      * Update charge status
      */
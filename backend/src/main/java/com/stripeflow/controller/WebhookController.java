@@ -231,7 +231,10 @@ public class WebhookController {
      * Get webhook statistics
      */
     @GetMapping("/statistics")
-    @Operation(summary = "Get webhook statistics", description = "Get webhook delivery statistics")
+    @Operation(summary = "Get webhook statistics", 
+               description = "Get webhook delivery statistics. Event counts cover the events created since " +
+                             "eventsSince and lag by up to one statistics refresh; pendingEvents is the live " +
+                             "backlog and is not included in totalEvents.")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully")
     })
@@ -239,6 +242,25 @@ public class WebhookController {
         WebhookManagementService.WebhookStatistics statistics = webhookManagementService.getWebhookStatistics();
         return ResponseEntity.ok(statistics);
     }
+    
+    /**
+     * Get webhook endpoint statistics
+     */
+    @GetMapping("/endpoints/{id}/statistics")
+    @Operation(summary = "Get webhook endpoint statistics", 
+               description = "Get rolling-window success rate, latency percentiles and backlog for an endpoint")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully"),
+        @ApiResponse(responseCode = "404", description = "Webhook endpoint not found")
+    })
+    public ResponseEntity<WebhookManagementService.EndpointStatistics> getWebhookEndpointStatistics(
+            @Parameter(description = "Webhook endpoint ID") @PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(webhookManagementService.getEndpointStatistics(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
 }
 
 
@@ -0,0 +1,148 @@
+package com.stripeflow.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource whose connections report every executed statement and its
+ * duration to a {@link QueryInspector}.
+ *
+ * Connections and statements are wrapped in JDK proxies that only intercept
+ * statement creation and execution; everything else, including unwrap, goes
+ * straight to the underlying objects.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+    
+    private final QueryInspector queryInspector;
+    
+    public InstrumentedDataSource(DataSource targetDataSource, QueryInspector queryInspector) {
+        super(targetDataSource);
+        this.queryInspector = queryInspector;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return instrument(obtainTargetDataSource().getConnection());
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return instrument(obtainTargetDataSource().getConnection(username, password));
+    }
+    
+    /**
+     * Wrap a connection so the statements it creates are instrumented
+     */
+    private Connection instrument(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+            new ConnectionHandler(connection));
+    }
+    
+    /**
+     * Invoke a method on the wrapped object, rethrowing what it throws rather than the reflection wrapper
+     */
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Handle the calls every wrapper answers itself: unwrapping, equality and hash code
+     */
+    private static Object handleWrapperMethod(Object proxy, Object target, Method method, Object[] args) 
+            throws Throwable {
+        return switch (method.getName()) {
+            case "unwrap" -> ((Class<?>) args[0]).isInstance(proxy) ? proxy : invokeTarget(target, method, args);
+            case "isWrapperFor" -> ((Class<?>) args[0]).isInstance(proxy) || (boolean) invokeTarget(target, method, args);
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> invokeTarget(target, method, args);
+        };
+    }
+    
+    /**
+     * Connection wrapper instrumenting the statements it creates
+     */
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = handleWrapperMethod(proxy, target, method, args);
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+            return switch (method.getName()) {
+                case "createStatement" -> statement(proxy, (Statement) result, Statement.class, null);
+                case "prepareStatement" -> statement(proxy, (Statement) result, PreparedStatement.class, sql);
+                case "prepareCall" -> statement(proxy, (Statement) result, CallableStatement.class, sql);
+                default -> result;
+            };
+        }
+        
+        /**
+         * Wrap a statement as the JDBC interface it was created as
+         */
+        private Object statement(Object connection, Statement statement, Class<? extends Statement> type, String sql) {
+            return Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[] {type},
+                new StatementHandler(connection, statement, sql));
+        }
+    }
+    
+    /**
+     * Statement wrapper timing every execution
+     */
+    private class StatementHandler implements InvocationHandler {
+        private final Object connection;
+        private final Statement target;
+        private final String preparedSql;
+        private String batchSql;
+        
+        StatementHandler(Object connection, Statement target, String preparedSql) {
+            this.connection = connection;
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("getConnection".equals(name)) {
+                return connection;
+            }
+            if ("addBatch".equals(name) && args != null && args[0] instanceof String sql && batchSql == null) {
+                batchSql = sql;
+            }
+            if (!name.startsWith("execute")) {
+                return handleWrapperMethod(proxy, target, method, args);
+            }
+            
+            String sql = preparedSql != null ? preparedSql
+                : args != null && args.length > 0 && args[0] instanceof String text ? text : batchSql;
+            long start = System.nanoTime();
+            try {
+                return invokeTarget(target, method, args);
+            } finally {
+                queryInspector.record(sql, System.nanoTime() - start);
+                if (name.contains("Batch")) {
+                    batchSql = null;
+                }
+            }
+        }
+    }
+}
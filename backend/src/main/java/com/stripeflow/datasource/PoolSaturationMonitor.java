@@ -0,0 +1,116 @@
+package com.stripeflow.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Watches the connection pools for saturation.
+ *
+ * HikariCP publishes the active, idle and pending connections and the acquire
+ * and usage times of every pool. On top of those, a pool that has threads
+ * waiting for a connection on several consecutive checks raises an alarm: it
+ * is logged, counted, and flagged by the stripeflow.datasource.pool.saturated
+ * gauge until no thread waits anymore.
+ */
+@Component
+public class PoolSaturationMonitor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PoolSaturationMonitor.class);
+    
+    private final List<PoolState> pools = new ArrayList<>();
+    private final int alarmAfterChecks;
+    
+    public PoolSaturationMonitor(HikariDataSource primaryDataSource,
+                                 ReplicaRoutingDataSource routingDataSource,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${api.datasource.pool-monitor.alarm-after-checks:3}") int alarmAfterChecks) {
+        if (alarmAfterChecks <= 0) {
+            throw new IllegalArgumentException("Pool alarms need at least one check");
+        }
+        this.alarmAfterChecks = alarmAfterChecks;
+        
+        List<HikariDataSource> dataSources = new ArrayList<>();
+        dataSources.add(primaryDataSource);
+        for (ReplicaRoutingDataSource.Replica replica : routingDataSource.getReplicas()) {
+            if (replica.getDataSource() instanceof HikariDataSource hikariDataSource) {
+                dataSources.add(hikariDataSource);
+            }
+        }
+        for (HikariDataSource dataSource : dataSources) {
+            PoolState pool = new PoolState(dataSource, Counter.builder("stripeflow.datasource.pool.wait.alarms")
+                .tag("pool", dataSource.getPoolName())
+                .description("Times threads kept waiting for a connection of the pool")
+                .register(meterRegistry));
+            Gauge.builder("stripeflow.datasource.pool.saturated", pool, state -> state.alarmed ? 1 : 0)
+                .tag("pool", dataSource.getPoolName())
+                .description("Whether threads have been waiting for a connection of the pool on consecutive checks")
+                .register(meterRegistry);
+            pools.add(pool);
+        }
+    }
+    
+    /**
+     * Sample every pool, raising or clearing its alarm
+     */
+    public void check() {
+        for (PoolState pool : pools) {
+            HikariPoolMXBean poolBean = pool.dataSource.getHikariPoolMXBean();
+            if (poolBean == null) {
+                // Not started yet
+                continue;
+            }
+            
+            int waiting = poolBean.getThreadsAwaitingConnection();
+            if (waiting > 0) {
+                pool.waitingChecks++;
+                if (pool.waitingChecks == alarmAfterChecks) {
+                    pool.alarmed = true;
+                    pool.alarms.increment();
+                    logger.warn("Connection pool {} saturated: {} threads waiting, {} of {} connections active, {} idle",
+                        pool.dataSource.getPoolName(), waiting, poolBean.getActiveConnections(), 
+                        pool.dataSource.getMaximumPoolSize(), poolBean.getIdleConnections());
+                }
+            } else {
+                if (pool.alarmed) {
+                    logger.info("Connection pool {} no longer saturated: {} of {} connections active",
+                        pool.dataSource.getPoolName(), poolBean.getActiveConnections(), 
+                        pool.dataSource.getMaximumPoolSize());
+                }
+                pool.waitingChecks = 0;
+                pool.alarmed = false;
+            }
+        }
+    }
+    
+    /**
+     * Whether a pool is currently in alarm
+     */
+    public boolean isSaturated(String poolName) {
+        return pools.stream().anyMatch(pool -> pool.alarmed && pool.dataSource.getPoolName().equals(poolName));
+    }
+    
+    /**
+     * Alarm state of one pool
+     */
+    private static class PoolState {
+        private final HikariDataSource dataSource;
+        private final Counter alarms;
+        private int waitingChecks;
+        private volatile boolean alarmed;
+        
+        PoolState(HikariDataSource dataSource, Counter alarms) {
+            this.dataSource = dataSource;
+            this.alarms = alarms;
+        }
+    }
+}
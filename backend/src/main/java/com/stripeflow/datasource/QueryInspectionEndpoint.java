@@ -0,0 +1,31 @@
+package com.stripeflow.datasource;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint showing the sampled slow queries and the N+1 patterns seen in requests
+ */
+@Component
+@Endpoint(id = "queries")
+public class QueryInspectionEndpoint {
+    
+    private final QueryInspector queryInspector;
+    
+    public QueryInspectionEndpoint(QueryInspector queryInspector) {
+        this.queryInspector = queryInspector;
+    }
+    
+    /**
+     * Get the slow query log and the N+1 patterns
+     */
+    @ReadOperation
+    public Map<String, Object> queries() {
+        return Map.of(
+            "slowQueries", queryInspector.getSlowQueries(),
+            "nPlusOnePatterns", queryInspector.getNPlusOnePatterns());
+    }
+}
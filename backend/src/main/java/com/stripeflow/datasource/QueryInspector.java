@@ -0,0 +1,299 @@
+package com.stripeflow.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Records every SQL statement run through an {@link InstrumentedDataSource}.
+ *
+ * Statements are timed per repository method and statement type. Statements
+ * slower than the threshold are sampled into a bounded log, with literals
+ * replaced by placeholders so no values are kept. Within a request, a SELECT
+ * repeated at least the N+1 threshold times, such as one customer lookup per
+ * listed charge, is reported as an N+1 pattern.
+ */
+@Component
+public class QueryInspector {
+    
+    private static final Logger logger = LoggerFactory.getLogger(QueryInspector.class);
+    
+    static final String NO_REPOSITORY = "none";
+    
+    // Comments Hibernate puts in front of statements with hibernate.use_sql_comments
+    private static final Pattern LEADING_COMMENTS = Pattern.compile("^\\s*(?:/\\*.*?\\*/\\s*)+", Pattern.DOTALL);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    
+    // Distinct N+1 statements kept for the endpoint
+    private static final int MAX_N_PLUS_ONE_PATTERNS = 200;
+    
+    // Repository method running on this thread, set by RepositoryMethodTagger
+    private static final ThreadLocal<String> currentRepositoryMethod = new ThreadLocal<>();
+    
+    private final ThreadLocal<RequestQueries> requestQueries = new ThreadLocal<>();
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, NPlusOnePattern> nPlusOnePatterns = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+    
+    private final MeterRegistry meterRegistry;
+    private final long slowQueryNanos;
+    private final double slowQuerySampleRate;
+    private final int slowQueryLogSize;
+    private final int nPlusOneThreshold;
+    private final Counter slowQueryCounter;
+    private final Counter nPlusOneCounter;
+    
+    public QueryInspector(MeterRegistry meterRegistry,
+                          @Value("${api.datasource.query-inspection.slow-query-ms:200}") long slowQueryMillis,
+                          @Value("${api.datasource.query-inspection.slow-query-sample-rate:1.0}") double slowQuerySampleRate,
+                          @Value("${api.datasource.query-inspection.slow-query-log-size:100}") int slowQueryLogSize,
+                          @Value("${api.datasource.query-inspection.n-plus-one-threshold:10}") int nPlusOneThreshold) {
+        if (slowQueryLogSize <= 0 || nPlusOneThreshold < 2) {
+            throw new IllegalArgumentException("Slow query log size must be positive and the N+1 threshold at least 2");
+        }
+        this.meterRegistry = meterRegistry;
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMillis);
+        this.slowQuerySampleRate = slowQuerySampleRate;
+        this.slowQueryLogSize = slowQueryLogSize;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.slowQueryCounter = Counter.builder("stripeflow.database.slow.queries")
+            .description("Statements slower than the slow query threshold")
+            .register(meterRegistry);
+        this.nPlusOneCounter = Counter.builder("stripeflow.database.n_plus_one")
+            .description("Requests that repeated a SELECT at least the N+1 threshold times")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Record an executed statement and how long it took
+     */
+    public void record(String sql, long nanos) {
+        String repositoryMethod = currentRepositoryMethod.get();
+        String repository = repositoryMethod != null ? repositoryMethod : NO_REPOSITORY;
+        String statement = redact(sql);
+        String type = statementType(statement);
+        
+        timers.computeIfAbsent(repository + '|' + type, key -> Timer.builder("stripeflow.database.query.time")
+                .tag("repository", repository)
+                .tag("type", type)
+                .description("Database query execution time")
+                .register(meterRegistry))
+            .record(nanos, TimeUnit.NANOSECONDS);
+        
+        if (nanos >= slowQueryNanos) {
+            slowQueryCounter.increment();
+            if (ThreadLocalRandom.current().nextDouble() < slowQuerySampleRate) {
+                logSlowQuery(new SlowQuery(statement, repository, TimeUnit.NANOSECONDS.toMillis(nanos), 
+                    LocalDateTime.now()));
+            }
+        }
+        
+        RequestQueries queries = requestQueries.get();
+        if (queries != null && "select".equals(type)) {
+            queries.executions.computeIfAbsent(statement, key -> new AtomicLong()).incrementAndGet();
+        }
+    }
+    
+    /**
+     * Start counting the statements of a request on this thread
+     */
+    public void beginRequest(String request) {
+        requestQueries.set(new RequestQueries(request));
+    }
+    
+    /**
+     * Stop counting the statements of this thread's request and report its N+1 patterns
+     */
+    public void endRequest() {
+        RequestQueries queries = requestQueries.get();
+        requestQueries.remove();
+        if (queries == null) {
+            return;
+        }
+        
+        queries.executions.forEach((statement, executions) -> {
+            if (executions.get() < nPlusOneThreshold) {
+                return;
+            }
+            nPlusOneCounter.increment();
+            logger.warn("Possible N+1 query: {} executed {} times in {}", statement, executions.get(), queries.request);
+            NPlusOnePattern pattern = nPlusOnePatterns.get(statement);
+            if (pattern == null && nPlusOnePatterns.size() < MAX_N_PLUS_ONE_PATTERNS) {
+                pattern = nPlusOnePatterns.computeIfAbsent(statement, NPlusOnePattern::new);
+            }
+            if (pattern != null) {
+                pattern.record(queries.request, executions.get());
+            }
+        });
+    }
+    
+    /**
+     * Get the sampled slow queries, most recent first
+     */
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+    
+    /**
+     * Get the N+1 patterns seen so far, most frequent first
+     */
+    public List<NPlusOnePattern> getNPlusOnePatterns() {
+        List<NPlusOnePattern> patterns = new ArrayList<>(nPlusOnePatterns.values());
+        patterns.sort(Comparator.comparingLong(NPlusOnePattern::getRequests).reversed());
+        return patterns;
+    }
+    
+    /**
+     * Run a repository method with its statements tagged with the method's name
+     */
+    static <T> T withRepositoryMethod(String repositoryMethod, ThrowingSupplier<T> invocation) throws Throwable {
+        String previous = currentRepositoryMethod.get();
+        // Nested repository calls keep the outermost method, which is the one the caller chose
+        if (previous == null) {
+            currentRepositoryMethod.set(repositoryMethod);
+        }
+        try {
+            return invocation.get();
+        } finally {
+            if (previous == null) {
+                currentRepositoryMethod.remove();
+            }
+        }
+    }
+    
+    /**
+     * Strip leading comments, replace literals with placeholders and collapse whitespace,
+     * so statements differing only in values match and start with their keyword
+     */
+    static String redact(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String redacted = LEADING_COMMENTS.matcher(sql).replaceFirst("");
+        redacted = STRING_LITERAL.matcher(redacted).replaceAll("?");
+        redacted = NUMBER_LITERAL.matcher(redacted).replaceAll("?");
+        redacted = PLACEHOLDER_LIST.matcher(redacted).replaceAll("?, ...");
+        return WHITESPACE.matcher(redacted).replaceAll(" ").trim();
+    }
+    
+    /**
+     * Statement type for the timer tag, from the statement's first keyword
+     */
+    private static String statementType(String statement) {
+        int end = statement.indexOf(' ');
+        String keyword = (end < 0 ? statement : statement.substring(0, end)).toLowerCase();
+        return switch (keyword) {
+            case "select", "with" -> "select";
+            case "insert", "update", "delete" -> keyword;
+            default -> "other";
+        };
+    }
+    
+    /**
+     * Add a slow query to the log, dropping the oldest entry when it is full
+     */
+    private void logSlowQuery(SlowQuery slowQuery) {
+        logger.warn("Slow query in {} took {} ms: {}", slowQuery.getRepository(), slowQuery.getMillis(), 
+            slowQuery.getStatement());
+        synchronized (slowQueries) {
+            if (slowQueries.size() >= slowQueryLogSize) {
+                slowQueries.removeLast();
+            }
+            slowQueries.addFirst(slowQuery);
+        }
+    }
+    
+    /**
+     * Repository invocation that may throw anything the repository throws
+     */
+    @FunctionalInterface
+    interface ThrowingSupplier<T> {
+        T get() throws Throwable;
+    }
+    
+    /**
+     * Executions of each SELECT within one request
+     */
+    private static class RequestQueries {
+        private final String request;
+        private final Map<String, AtomicLong> executions = new HashMap<>();
+        
+        RequestQueries(String request) {
+            this.request = request;
+        }
+    }
+    
+    /**
+     * A statement that took longer than the slow query threshold
+     */
+    public static class SlowQuery {
+        private final String statement;
+        private final String repository;
+        private final long millis;
+        private final LocalDateTime executedAt;
+        
+        public SlowQuery(String statement, String repository, long millis, LocalDateTime executedAt) {
+            this.statement = statement;
+            this.repository = repository;
+            this.millis = millis;
+            this.executedAt = executedAt;
+        }
+        
+        public String getStatement() { return statement; }
+        public String getRepository() { return repository; }
+        public long getMillis() { return millis; }
+        public LocalDateTime getExecutedAt() { return executedAt; }
+    }
+    
+    /**
+     * A SELECT that requests repeated at least the N+1 threshold times
+     */
+    public static class NPlusOnePattern {
+        private final String statement;
+        private long requests;
+        private long maxExecutions;
+        private String lastRequest;
+        private LocalDateTime lastSeenAt;
+        
+        public NPlusOnePattern(String statement) {
+            this.statement = statement;
+        }
+        
+        synchronized void record(String request, long executions) {
+            requests++;
+            maxExecutions = Math.max(maxExecutions, executions);
+            lastRequest = request;
+            lastSeenAt = LocalDateTime.now();
+        }
+        
+        public String getStatement() { return statement; }
+        public synchronized long getRequests() { return requests; }
+        public synchronized long getMaxExecutions() { return maxExecutions; }
+        public synchronized String getLastRequest() { return lastRequest; }
+        public synchronized LocalDateTime getLastSeenAt() { return lastSeenAt; }
+    }
+}
@@ -0,0 +1,195 @@
+package com.stripeflow.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource sending read-only transactions to Postgres replicas.
+ *
+ * Connections taken inside a read-only transaction come from a healthy
+ * replica, chosen round-robin; everything else uses the primary. A replica is
+ * healthy while its replication lag, checked periodically, stays within the
+ * limit. When no replica is healthy, or a replica refuses a connection, reads
+ * fall back to the primary.
+ *
+ * Must be wrapped in a LazyConnectionDataSourceProxy: the transaction manager
+ * opens its connection before the read-only flag of the transaction is set,
+ * and the proxy defers the real connection to the first statement.
+ *
+ * The replica pools are owned by this data source and closed with it; the
+ * primary is left to whoever created it.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    
+    // Zero on a primary or a caught-up replica, otherwise the age of the last replayed transaction
+    private static final String REPLICATION_LAG_QUERY =
+        "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 " +
+        "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+    
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+    private final Counter replicaFallbacks;
+    
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, long maxLagMillis, 
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLagMillis = maxLagMillis;
+        
+        this.primaryConnections = connections(meterRegistry, "primary");
+        this.replicaConnections = connections(meterRegistry, "replica");
+        this.replicaFallbacks = Counter.builder("stripeflow.datasource.replica.fallbacks")
+            .description("Read-only connections served by the primary because no replica was usable")
+            .register(meterRegistry);
+        for (Replica replica : this.replicas) {
+            Gauge.builder("stripeflow.datasource.replica.lag", replica, Replica::getLagMillis)
+                .tag("replica", replica.getName())
+                .baseUnit("milliseconds")
+                .description("Replication lag of a read replica at its last check; -1 if unreachable")
+                .register(meterRegistry);
+        }
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || replicas.isEmpty()) {
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+        
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+            if (!replica.isHealthy()) {
+                continue;
+            }
+            try {
+                Connection connection = replica.getDataSource().getConnection();
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                // Skip the replica until its next successful lag check
+                replica.markUnreachable();
+                logger.warn("Read replica {} refused a connection, marked unhealthy: {}", replica.getName(), e.getMessage());
+            }
+        }
+        
+        replicaFallbacks.increment();
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Routed connections use the credentials of each pool");
+    }
+    
+    /**
+     * Measure the replication lag of every replica and update which replicas may serve reads
+     */
+    public void checkReplicaLag() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.getDataSource().getConnection();
+                 PreparedStatement statement = connection.prepareStatement(REPLICATION_LAG_QUERY);
+                 ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                long lagMillis = (long) resultSet.getDouble(1);
+                boolean wasHealthy = replica.isHealthy();
+                replica.update(lagMillis, lagMillis <= maxLagMillis);
+                if (wasHealthy != replica.isHealthy()) {
+                    logger.info("Read replica {} is {} with a lag of {} ms", replica.getName(),
+                        replica.isHealthy() ? "serving reads" : "too far behind, reads go to the primary", lagMillis);
+                }
+            } catch (SQLException e) {
+                if (replica.isHealthy()) {
+                    logger.warn("Read replica {} is unreachable, reads go to the primary: {}", replica.getName(), e.getMessage());
+                }
+                replica.markUnreachable();
+            }
+        }
+    }
+    
+    /**
+     * Close the replica pools, releasing their connections and housekeeping threads
+     */
+    @Override
+    public void destroy() {
+        for (Replica replica : replicas) {
+            if (replica.getDataSource() instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    logger.warn("Failed to close read replica {}: {}", replica.getName(), e.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Get the replicas reads can be routed to
+     */
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+    
+    /**
+     * Register a connection counter for one routing target
+     */
+    private static Counter connections(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("stripeflow.datasource.connections")
+            .tag("target", target)
+            .description("Connections handed out by the routing data source")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * A read replica and the result of its last lag check; replicas start unhealthy until checked
+     */
+    public static class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long lagMillis = -1;
+        
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+        
+        public String getName() { return name; }
+        public DataSource getDataSource() { return dataSource; }
+        public boolean isHealthy() { return healthy; }
+        public long getLagMillis() { return lagMillis; }
+        
+        void update(long lagMillis, boolean healthy) {
+            this.lagMillis = lagMillis;
+            this.healthy = healthy;
+        }
+        
+        void markUnreachable() {
+            update(-1, false);
+        }
+    }
+}
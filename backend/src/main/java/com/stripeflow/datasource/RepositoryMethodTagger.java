@@ -0,0 +1,28 @@
+package com.stripeflow.datasource;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tags the statements run by Spring Data repositories with the repository method
+ * that ran them, e.g. ChargeRepository.findByCustomerId, for the {@link QueryInspector}.
+ * Statements outside any repository call, such as lazy loads, are tagged "none".
+ */
+@Component
+public class RepositoryMethodTagger implements BeanPostProcessor {
+    
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                (proxyFactory, repositoryInformation) -> {
+                    String repository = repositoryInformation.getRepositoryInterface().getSimpleName();
+                    proxyFactory.addAdvice(0, (MethodInterceptor) invocation -> QueryInspector.withRepositoryMethod(
+                        repository + "." + invocation.getMethod().getName(), invocation::proceed));
+                }));
+        }
+        return bean;
+    }
+}
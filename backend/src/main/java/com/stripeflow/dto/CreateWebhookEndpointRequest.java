@@ -22,6 +22,10 @@ public class CreateWebhookEndpointRequest {
     @Size(max = 500, message = "Description must not exceed 500 characters")
     private String description;
     
+    private Boolean coalesceEvents = false;
+    
+    private Boolean acceptGzip = false;
+    
     // Constructors
     public CreateWebhookEndpointRequest() {}
     
@@ -61,7 +65,20 @@ public class CreateWebhookEndpointRequest {
     public void setDescription(String description) {
         this.description = description;
     }
+    
+    public Boolean getCoalesceEvents() {
+        return coalesceEvents;
+    }
+    
+    public void setCoalesceEvents(Boolean coalesceEvents) {
+        this.coalesceEvents = coalesceEvents;
+    }
+    
+    public Boolean getAcceptGzip() {
+        return acceptGzip;
+    }
+    
+    public void setAcceptGzip(Boolean acceptGzip) {
+        this.acceptGzip = acceptGzip;
+    }
 }
-
-
-
@@ -13,6 +13,10 @@ public class WebhookEndpointResponse {
     private String url;
     private Boolean enabled;
     private String description;
+    private Boolean coalesceEvents;
+    private Boolean acceptGzip;
+    private Boolean quarantined;
+    private LocalDateTime quarantinedAt;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
@@ -24,6 +28,10 @@ public class WebhookEndpointResponse {
         this.url = endpoint.getUrl();
         this.enabled = endpoint.getEnabled();
         this.description = endpoint.getDescription();
+        this.coalesceEvents = endpoint.getCoalesceEvents();
+        this.acceptGzip = endpoint.getAcceptGzip();
+        this.quarantined = endpoint.getQuarantined();
+        this.quarantinedAt = endpoint.getQuarantinedAt();
         this.createdAt = endpoint.getCreatedAt();
         this.updatedAt = endpoint.getUpdatedAt();
     }
@@ -61,6 +69,38 @@ public class WebhookEndpointResponse {
         this.description = description;
     }
     
+    public Boolean getCoalesceEvents() {
+        return coalesceEvents;
+    }
+    
+    public void setCoalesceEvents(Boolean coalesceEvents) {
+        this.coalesceEvents = coalesceEvents;
+    }
+    
+    public Boolean getAcceptGzip() {
+        return acceptGzip;
+    }
+    
+    public void setAcceptGzip(Boolean acceptGzip) {
+        this.acceptGzip = acceptGzip;
+    }
+    
+    public Boolean getQuarantined() {
+        return quarantined;
+    }
+    
+    public void setQuarantined(Boolean quarantined) {
+        this.quarantined = quarantined;
+    }
+    
+    public LocalDateTime getQuarantinedAt() {
+        return quarantinedAt;
+    }
+    
+    public void setQuarantinedAt(LocalDateTime quarantinedAt) {
+        this.quarantinedAt = quarantinedAt;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -12,6 +12,7 @@ public class WebhookEventResponse {
     private Long id;
     private Long endpointId;
     private String eventType;
+    private String objectId;
     private String eventData;
     private String status;
     private Integer retryCount;
@@ -30,6 +31,7 @@ public class WebhookEventResponse {
         this.id = event.getId();
         this.endpointId = event.getEndpoint().getId();
         this.eventType = event.getEventType();
+        this.objectId = event.getObjectId();
         this.eventData = event.getEventData();
         this.status = event.getStatus().name();
         this.retryCount = event.getRetryCount();
@@ -67,6 +69,14 @@ public class WebhookEventResponse {
         this.eventType = eventType;
     }
     
+    public String getObjectId() {
+        return objectId;
+    }
+    
+    public void setObjectId(String objectId) {
+        this.objectId = objectId;
+    }
+    
     public String getEventData() {
         return eventData;
     }
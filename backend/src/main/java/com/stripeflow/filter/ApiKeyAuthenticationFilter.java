@@ -0,0 +1,116 @@
+package com.stripeflow.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripeflow.cache.CachedApiKey;
+import com.stripeflow.exception.GlobalExceptionHandler;
+import com.stripeflow.service.ApiKeyService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Authenticates REST API requests by the API key header.
+ *
+ * Requests without a valid enabled key get 401. The resolved key is stored
+ * as a request attribute, so later filters and controllers need not hash or
+ * look it up again. Runs before rate limiting, so keys that are not cached
+ * are rate limited by client address before they reach the database; a flood
+ * of invalid keys gets 429 instead of one query per key.
+ */
+@Component
+@Order(1)
+public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
+    
+    public static final String API_KEY_ATTRIBUTE = ApiKeyAuthenticationFilter.class.getName() + ".apiKey";
+    
+    private static final String API_PATH_PREFIX = "/api/";
+    
+    // Bucket of the key lookups a client address may make, apart from its request bucket
+    private static final String LOOKUP_CLIENT_PREFIX = "lookup:ip:";
+    
+    private final ApiKeyService apiKeyService;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final String apiKeyHeader;
+    private final boolean enabled;
+    private final boolean rateLimitEnabled;
+    
+    public ApiKeyAuthenticationFilter(ApiKeyService apiKeyService,
+                                      TokenBucketRateLimiter rateLimiter,
+                                      ObjectMapper objectMapper,
+                                      @Value("${security.api-key.header-name:X-API-Key}") String apiKeyHeader,
+                                      @Value("${security.api-key.enabled:false}") boolean enabled,
+                                      @Value("${api.rate-limit.enabled:true}") boolean rateLimitEnabled) {
+        this.apiKeyService = apiKeyService;
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.apiKeyHeader = apiKeyHeader;
+        this.enabled = enabled;
+        this.rateLimitEnabled = rateLimitEnabled;
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Controllers map /api/v1/**, inside the /api context path that actuator and the API docs share
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled || !path.startsWith(API_PATH_PREFIX);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String secret = request.getHeader(apiKeyHeader);
+        if (secret == null || secret.isBlank()) {
+            reject(response, HttpStatus.UNAUTHORIZED, "Missing API key");
+            return;
+        }
+        
+        CachedApiKey apiKey = apiKeyService.findCached(secret);
+        if (apiKey == null) {
+            if (rateLimitEnabled) {
+                TokenBucketRateLimiter.Decision decision = rateLimiter.tryAcquire(LOOKUP_CLIENT_PREFIX + request.getRemoteAddr());
+                if (!decision.isAllowed()) {
+                    long retryAfterSeconds = Math.max(1, (decision.getRetryAfterMillis() + 999) / 1000);
+                    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+                    reject(response, HttpStatus.TOO_MANY_REQUESTS, 
+                        "Too many API key lookups, retry after " + retryAfterSeconds + "s");
+                    return;
+                }
+            }
+            apiKey = apiKeyService.authenticate(secret);
+        }
+        if (apiKey == null) {
+            reject(response, HttpStatus.UNAUTHORIZED, "Invalid API key");
+            return;
+        }
+        
+        request.setAttribute(API_KEY_ATTRIBUTE, apiKey);
+        apiKeyService.recordUsage(apiKey.id());
+        filterChain.doFilter(request, response);
+    }
+    
+    /**
+     * Write an error response
+     */
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new GlobalExceptionHandler.ErrorResponse(
+            message,
+            null,
+            status.value(),
+            LocalDateTime.now()
+        ));
+    }
+}
@@ -0,0 +1,38 @@
+package com.stripeflow.filter;
+
+import com.stripeflow.datasource.QueryInspector;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Scopes the statements counted for N+1 detection to one request
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryInspectionFilter extends OncePerRequestFilter {
+    
+    private final QueryInspector queryInspector;
+    
+    public QueryInspectionFilter(QueryInspector queryInspector) {
+        this.queryInspector = queryInspector;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        queryInspector.beginRequest(request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            queryInspector.endRequest();
+        }
+    }
+}
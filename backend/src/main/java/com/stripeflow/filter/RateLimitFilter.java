@@ -0,0 +1,96 @@
+package com.stripeflow.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripeflow.cache.CachedApiKey;
+import com.stripeflow.exception.GlobalExceptionHandler;
+import com.stripeflow.service.ApiKeyService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Enforces api.rate-limit on the REST API.
+ *
+ * Clients are identified by their API key, or by remote address when they
+ * send none; keys are hashed so they never appear in Redis. Runs after API key
+ * authentication, reusing the key it resolved. Responses carry
+ * the limit and remaining tokens, and rejected requests get 429 with
+ * Retry-After.
+ */
+@Component
+@Order(2)
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    private static final String API_PATH_PREFIX = "/api/";
+    
+    private final TokenBucketRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final String apiKeyHeader;
+    private final boolean enabled;
+    
+    public RateLimitFilter(TokenBucketRateLimiter rateLimiter,
+                           ObjectMapper objectMapper,
+                           @Value("${security.api-key.header-name:X-API-Key}") String apiKeyHeader,
+                           @Value("${api.rate-limit.enabled:true}") boolean enabled) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.apiKeyHeader = apiKeyHeader;
+        this.enabled = enabled;
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Controllers map /api/v1/**, inside the /api context path that actuator and the API docs share
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled || !path.startsWith(API_PATH_PREFIX);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        TokenBucketRateLimiter.Decision decision = rateLimiter.tryAcquire(clientId(request));
+        response.setHeader("X-RateLimit-Limit", Integer.toString(rateLimiter.getRequestsPerMinute()));
+        response.setHeader("X-RateLimit-Remaining", Long.toString(decision.getRemaining()));
+        
+        if (decision.isAllowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
+        long retryAfterSeconds = Math.max(1, (decision.getRetryAfterMillis() + 999) / 1000);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new GlobalExceptionHandler.ErrorResponse(
+            "Rate limit exceeded, retry after " + retryAfterSeconds + "s",
+            null,
+            HttpStatus.TOO_MANY_REQUESTS.value(),
+            LocalDateTime.now()
+        ));
+    }
+    
+    /**
+     * Identify the client by a hash of its API key, or by its address without one
+     */
+    private String clientId(HttpServletRequest request) {
+        if (request.getAttribute(ApiKeyAuthenticationFilter.API_KEY_ATTRIBUTE) instanceof CachedApiKey apiKey) {
+            return "key:" + apiKey.id();
+        }
+        String secret = request.getHeader(apiKeyHeader);
+        if (secret == null || secret.isBlank()) {
+            return "ip:" + request.getRemoteAddr();
+        }
+        return "key:" + ApiKeyService.hashKey(secret);
+    }
+}
@@ -0,0 +1,192 @@
+package com.stripeflow.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stripeflow.cache.RedisCircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cluster-wide token bucket per client, stored in Redis.
+ *
+ * Each bucket holds up to the burst capacity and refills at the configured
+ * requests per minute. Refill and withdrawal happen in one Lua script using the
+ * Redis clock, so concurrent nodes never race and every bucket carries a TTL.
+ *
+ * Nodes lease tokens in batches: a client that used up its previous lease
+ * quickly gets a larger one, up to the lease size, so busy clients only reach
+ * Redis every few requests while occasional clients lease one token at a time
+ * and waste none. A client that ran out is rejected locally until its bucket
+ * has refilled. If Redis is unavailable, requests are allowed.
+ */
+@Component
+public class TokenBucketRateLimiter {
+    
+    static final String BUCKET_PREFIX = "rate_bucket:";
+    
+    // A lease used up within this window is followed by a larger one
+    private static final long LEASE_WINDOW_MILLIS = 1000;
+    
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TAKE_TOKENS_SCRIPT = new DefaultRedisScript<>(
+        "local capacity = tonumber(ARGV[1]) " +
+        "local refillPerMs = tonumber(ARGV[2]) " +
+        "local requested = tonumber(ARGV[3]) " +
+        "local time = redis.call('TIME') " +
+        "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+        "local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts') " +
+        "local tokens = tonumber(bucket[1]) or capacity " +
+        "local ts = tonumber(bucket[2]) or now " +
+        "tokens = math.min(capacity, tokens + math.max(0, now - ts) * refillPerMs) " +
+        "local granted = math.min(requested, math.floor(tokens)) " +
+        "tokens = tokens - granted " +
+        "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now) " +
+        "redis.call('PEXPIRE', KEYS[1], math.ceil((capacity - tokens) / refillPerMs) + 1000) " +
+        "local retryAfter = 0 " +
+        "if granted == 0 then retryAfter = math.ceil((1 - tokens) / refillPerMs) end " +
+        "return {granted, math.floor(tokens), retryAfter}",
+        List.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final int requestsPerMinute;
+    private final int burstCapacity;
+    private final int maxLeaseSize;
+    private final String refillPerMillis;
+    private final Cache<String, LocalBucket> localBuckets;
+    
+    private final Counter allowedLocally;
+    private final Counter allowedByRedis;
+    private final Counter rejectedLocally;
+    private final Counter rejectedByRedis;
+    private final Counter allowedUnchecked;
+    
+    public TokenBucketRateLimiter(StringRedisTemplate redisTemplate,
+                                  RedisCircuitBreaker circuitBreaker,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${api.rate-limit.requests-per-minute:100}") int requestsPerMinute,
+                                  @Value("${api.rate-limit.burst-capacity:200}") int burstCapacity,
+                                  @Value("${api.rate-limit.lease-size:10}") int maxLeaseSize) {
+        if (requestsPerMinute <= 0 || burstCapacity <= 0 || maxLeaseSize <= 0) {
+            throw new IllegalArgumentException("Rate limit, burst capacity and lease size must be positive");
+        }
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.requestsPerMinute = requestsPerMinute;
+        this.burstCapacity = burstCapacity;
+        this.maxLeaseSize = Math.min(maxLeaseSize, burstCapacity);
+        this.refillPerMillis = Double.toString(requestsPerMinute / 60_000.0);
+        this.localBuckets = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofMinutes(5))
+            .build();
+        
+        this.allowedLocally = requests(meterRegistry, "allowed", "local");
+        this.allowedByRedis = requests(meterRegistry, "allowed", "redis");
+        this.rejectedLocally = requests(meterRegistry, "rejected", "local");
+        this.rejectedByRedis = requests(meterRegistry, "rejected", "redis");
+        this.allowedUnchecked = requests(meterRegistry, "allowed", "unavailable");
+    }
+    
+    /**
+     * Take one token from a client's bucket
+     */
+    public Decision tryAcquire(String clientId) {
+        LocalBucket bucket = localBuckets.get(clientId, id -> new LocalBucket());
+        long now = System.currentTimeMillis();
+        
+        // Concurrent requests of a client wait for one lease instead of each calling Redis
+        synchronized (bucket) {
+            if (now < bucket.blockedUntil) {
+                rejectedLocally.increment();
+                return new Decision(false, 0, bucket.blockedUntil - now);
+            }
+            if (bucket.tokens > 0) {
+                bucket.tokens--;
+                allowedLocally.increment();
+                return new Decision(true, bucket.remaining + bucket.tokens, 0);
+            }
+            
+            int leaseSize = now - bucket.leasedAt < LEASE_WINDOW_MILLIS
+                ? Math.min(bucket.leaseSize * 2, maxLeaseSize) : 1;
+            List<?> result = circuitBreaker.execute(() -> redisTemplate.execute(TAKE_TOKENS_SCRIPT,
+                Collections.singletonList(BUCKET_PREFIX + clientId),
+                Integer.toString(burstCapacity), refillPerMillis, Integer.toString(leaseSize)), () -> null);
+            if (result == null) {
+                allowedUnchecked.increment();
+                return new Decision(true, burstCapacity, 0);
+            }
+            
+            long granted = ((Number) result.get(0)).longValue();
+            bucket.remaining = ((Number) result.get(1)).longValue();
+            if (granted == 0) {
+                bucket.blockedUntil = now + ((Number) result.get(2)).longValue();
+                rejectedByRedis.increment();
+                return new Decision(false, 0, bucket.blockedUntil - now);
+            }
+            
+            bucket.leaseSize = leaseSize;
+            bucket.leasedAt = now;
+            bucket.tokens = (int) granted - 1;
+            allowedByRedis.increment();
+            return new Decision(true, bucket.remaining + bucket.tokens, 0);
+        }
+    }
+    
+    /**
+     * Get the sustained number of requests allowed per minute
+     */
+    public int getRequestsPerMinute() {
+        return requestsPerMinute;
+    }
+    
+    /**
+     * Register a request counter for one outcome
+     */
+    private static Counter requests(MeterRegistry meterRegistry, String result, String tier) {
+        return Counter.builder("stripeflow.ratelimit.requests")
+            .tag("result", result)
+            .tag("tier", tier)
+            .description("Rate-limited requests by outcome and the tier that decided it")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Tokens this node leased from a client's bucket
+     */
+    private static class LocalBucket {
+        private int tokens;
+        private int leaseSize;
+        private long leasedAt;
+        private long remaining;
+        private long blockedUntil;
+    }
+    
+    /**
+     * Outcome of a rate limit check
+     */
+    public static class Decision {
+        private final boolean allowed;
+        private final long remaining;
+        private final long retryAfterMillis;
+        
+        public Decision(boolean allowed, long remaining, long retryAfterMillis) {
+            this.allowed = allowed;
+            this.remaining = remaining;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+        
+        public boolean isAllowed() { return allowed; }
+        public long getRemaining() { return remaining; }
+        public long getRetryAfterMillis() { return retryAfterMillis; }
+    }
+}
@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 public class ApiKey {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "api_keys_id_seq")
+    @SequenceGenerator(name = "api_keys_id_seq", sequenceName = "api_keys_id_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Key hash is required")
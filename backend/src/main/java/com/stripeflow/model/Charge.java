@@ -21,7 +21,8 @@ import java.util.List;
 public class Charge {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "charges_id_seq")
+    @SequenceGenerator(name = "charges_id_seq", sequenceName = "charges_id_seq", allocationSize = 50)
     private Long id;
     
     @NotNull(message = "Amount is required")
@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class Refund {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refunds_id_seq")
+    @SequenceGenerator(name = "refunds_id_seq", sequenceName = "refunds_id_seq", allocationSize = 50)
     private Long id;
     
     @NotNull(message = "Charge is required")
@@ -18,7 +18,8 @@ import java.util.List;
 public class WebhookEndpoint {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "webhook_endpoints_id_seq")
+    @SequenceGenerator(name = "webhook_endpoints_id_seq", sequenceName = "webhook_endpoints_id_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "URL is required")
@@ -35,6 +36,21 @@ public class WebhookEndpoint {
     @Size(max = 500, message = "Description must not exceed 500 characters")
     private String description;
     
+    @Column(name = "coalesce_events", nullable = false)
+    private Boolean coalesceEvents = false;
+    
+    @Column(name = "accept_gzip", nullable = false)
+    private Boolean acceptGzip = false;
+    
+    @Column(nullable = false)
+    private Boolean quarantined = false;
+    
+    @Column(name = "quarantined_at")
+    private LocalDateTime quarantinedAt;
+    
+    @Column(name = "last_probe_at")
+    private LocalDateTime lastProbeAt;
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     @CreationTimestamp
     private LocalDateTime createdAt;
@@ -94,6 +110,46 @@ public class WebhookEndpoint {
         this.description = description;
     }
     
+    public Boolean getCoalesceEvents() {
+        return coalesceEvents;
+    }
+    
+    public void setCoalesceEvents(Boolean coalesceEvents) {
+        this.coalesceEvents = coalesceEvents;
+    }
+    
+    public Boolean getAcceptGzip() {
+        return acceptGzip;
+    }
+    
+    public void setAcceptGzip(Boolean acceptGzip) {
+        this.acceptGzip = acceptGzip;
+    }
+    
+    public Boolean getQuarantined() {
+        return quarantined;
+    }
+    
+    public void setQuarantined(Boolean quarantined) {
+        this.quarantined = quarantined;
+    }
+    
+    public LocalDateTime getQuarantinedAt() {
+        return quarantinedAt;
+    }
+    
+    public void setQuarantinedAt(LocalDateTime quarantinedAt) {
+        this.quarantinedAt = quarantinedAt;
+    }
+    
+    public LocalDateTime getLastProbeAt() {
+        return lastProbeAt;
+    }
+    
+    public void setLastProbeAt(LocalDateTime lastProbeAt) {
+        this.lastProbeAt = lastProbeAt;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -16,8 +16,10 @@ import java.time.LocalDateTime;
 @Table(name = "webhook_events")
 public class WebhookEvent {
     
+    // One id per nextval: delivery ordering and coalescing compare ids, so ids must follow insertion order across nodes
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "webhook_events_id_seq")
+    @SequenceGenerator(name = "webhook_events_id_seq", sequenceName = "webhook_events_id_seq", allocationSize = 1)
     private Long id;
     
     @NotNull(message = "Endpoint is required")
@@ -30,6 +32,10 @@ public class WebhookEvent {
     @Column(name = "event_type", nullable = false)
     private String eventType;
     
+    @Size(max = 100, message = "Object ID must not exceed 100 characters")
+    @Column(name = "object_id", length = 100)
+    private String objectId;
+    
     @NotBlank(message = "Event data is required")
     @Column(name = "event_data", nullable = false, columnDefinition = "TEXT")
     private String eventData;
@@ -103,6 +109,14 @@ public class WebhookEvent {
         this.eventType = eventType;
     }
     
+    public String getObjectId() {
+        return objectId;
+    }
+    
+    public void setObjectId(String objectId) {
+        this.objectId = objectId;
+    }
+    
     public String getEventData() {
         return eventData;
     }
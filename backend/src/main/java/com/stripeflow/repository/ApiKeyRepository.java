@@ -0,0 +1,31 @@
+package com.stripeflow.repository;
+
+import com.stripeflow.model.ApiKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Repository interface for ApiKey entity operations
+ */
+@Repository
+public interface ApiKeyRepository extends JpaRepository<ApiKey, Long> {
+    
+    /**
+     * Find an enabled API key by the hash of its secret
+     */
+    Optional<ApiKey> findByKeyHashAndEnabledTrue(String keyHash);
+    
+    /**
+     * Set the last use time of several keys in one statement
+     */
+    @Modifying
+    @Query("UPDATE ApiKey k SET k.lastUsed = :lastUsed WHERE k.id IN :ids")
+    int updateLastUsed(@Param("ids") Collection<Long> ids, @Param("lastUsed") LocalDateTime lastUsed);
+}
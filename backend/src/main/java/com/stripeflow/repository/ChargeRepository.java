@@ -2,17 +2,23 @@ package com.stripeflow.repository;
 
 import com.stripeflow.model.Charge;
 import com.stripeflow.model.Customer;
+import com.stripeflow.util.EntityStreams;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for Charge entity operations
@@ -36,22 +42,38 @@ public interface ChargeRepository extends JpaRepository<Charge, Long> {
     Page<Charge> findByCustomerAndStatus(Customer customer, Charge.ChargeStatus status, Pageable pageable);
     
     /**
-     * Find charge by idempotency key
+     * Find charge by idempotency key; the key index records the charge's partition, so only that partition is read
      */
-    Optional<Charge> findByIdempotencyKey(String idempotencyKey);
+    @Query(value = "SELECT c.* FROM charges c JOIN charge_idempotency_keys k " +
+                   "ON c.id = k.charge_id AND c.created_at = k.created_at " +
+                   "WHERE k.idempotency_key = :idempotencyKey", nativeQuery = true)
+    Optional<Charge> findByIdempotencyKey(@Param("idempotencyKey") String idempotencyKey);
     
     /**
      * Check if idempotency key exists
      */
-    boolean existsByIdempotencyKey(String idempotencyKey);
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM charge_idempotency_keys WHERE idempotency_key = :idempotencyKey)", 
+           nativeQuery = true)
+    boolean existsByIdempotencyKey(@Param("idempotencyKey") String idempotencyKey);
     
     /**
-     * Find charges created within date range
+     * Find charges created within date range, reading only the monthly partitions it covers
      */
     @Query("SELECT c FROM Charge c WHERE c.createdAt BETWEEN :startDate AND :endDate")
     List<Charge> findChargesCreatedBetween(@Param("startDate") LocalDateTime startDate, 
                                          @Param("endDate") LocalDateTime endDate);
     
+    /**
+     * Stream charges created within date range, with their customers, from a forward-only cursor
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EntityStreams.FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Charge c JOIN FETCH c.customer WHERE c.createdAt BETWEEN :startDate AND :endDate")
+    Stream<Charge> streamChargesCreatedBetween(@Param("startDate") LocalDateTime startDate,
+                                               @Param("endDate") LocalDateTime endDate);
+    
     /**
      * Find charges by amount range
      */
@@ -89,17 +111,44 @@ public interface ChargeRepository extends JpaRepository<Charge, Long> {
     @Query("SELECT c FROM Charge c ORDER BY c.createdAt DESC")
     Page<Charge> findRecentCharges(Pageable pageable);
     
+    /**
+     * Find charges created since a point in time, newest first; the lower bound limits
+     * both the page and its count to the most recent partitions
+     */
+    @Query(value = "SELECT c FROM Charge c WHERE c.createdAt >= :since ORDER BY c.createdAt DESC",
+           countQuery = "SELECT COUNT(c) FROM Charge c WHERE c.createdAt >= :since")
+    Page<Charge> findRecentCharges(@Param("since") LocalDateTime since, Pageable pageable);
+    
     /**
      * Count charges by status
      */
     @Query("SELECT COUNT(c) FROM Charge c WHERE c.status = :status")
     long countChargesByStatus(@Param("status") Charge.ChargeStatus status);
     
+    /**
+     * Daily charge counts and amounts per currency and status from the mv_charge_statistics materialized view
+     */
+    @Query(value = "SELECT date, currency, status, count, total_amount, avg_amount FROM mv_charge_statistics " +
+                   "ORDER BY date DESC, currency, status", nativeQuery = true)
+    List<Object[]> getChargeStatistics();
+    
     /**
      * Calculate total revenue by currency
      */
     @Query("SELECT c.currency, COALESCE(SUM(c.amount), 0) FROM Charge c WHERE c.status = 'SUCCEEDED' GROUP BY c.currency")
     List<Object[]> calculateRevenueByCurrency();
+    
+    /**
+     * Find charges by ID together with their customers in a single query
+     */
+    @Query("SELECT c FROM Charge c JOIN FETCH c.customer WHERE c.id IN :ids")
+    List<Charge> findAllWithCustomerByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Create any missing monthly partitions from the current month to the given number of months ahead
+     */
+    @Query(value = "SELECT ensure_monthly_partitions('charges', :monthsAhead)", nativeQuery = true)
+    int ensureMonthlyPartitions(@Param("monthsAhead") int monthsAhead);
 }
 
 
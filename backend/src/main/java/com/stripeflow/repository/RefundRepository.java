@@ -35,7 +35,7 @@ public interface RefundRepository extends JpaRepository<Refund, Long> {
     Page<Refund> findByChargeAndStatus(Charge charge, Refund.RefundStatus status, Pageable pageable);
     
     /**
-     * Find refunds created within date range
+     * Find refunds created within date range, reading only the monthly partitions it covers
      */
     @Query("SELECT r FROM Refund r WHERE r.createdAt BETWEEN :startDate AND :endDate")
     List<Refund> findRefundsCreatedBetween(@Param("startDate") LocalDateTime startDate, 
@@ -60,11 +60,19 @@ public interface RefundRepository extends JpaRepository<Refund, Long> {
     Page<Refund> findByCustomerEmail(@Param("email") String email, Pageable pageable);
     
     /**
-     * Find recent refunds for dashboard
+     * Find recent refunds, newest first
      */
     @Query("SELECT r FROM Refund r ORDER BY r.createdAt DESC")
     Page<Refund> findRecentRefunds(Pageable pageable);
     
+    /**
+     * Find refunds created since a point in time, newest first; the lower bound limits
+     * both the page and its count to the most recent partitions
+     */
+    @Query(value = "SELECT r FROM Refund r WHERE r.createdAt >= :since ORDER BY r.createdAt DESC",
+           countQuery = "SELECT COUNT(r) FROM Refund r WHERE r.createdAt >= :since")
+    Page<Refund> findRecentRefunds(@Param("since") LocalDateTime since, Pageable pageable);
+    
     /**
      * Count refunds by status
      */
@@ -76,7 +84,10 @@ public interface RefundRepository extends JpaRepository<Refund, Long> {
      */
     @Query("SELECT r.charge.currency, COALESCE(SUM(r.amount), 0) FROM Refund r WHERE r.status = 'SUCCEEDED' GROUP BY r.charge.currency")
     List<Object[]> calculateRefundedAmountByCurrency();
+    
+    /**
+     * Create any missing monthly partitions from the current month to the given number of months ahead
+     */
+    @Query(value = "SELECT ensure_monthly_partitions('refunds', :monthsAhead)", nativeQuery = true)
+    int ensureMonthlyPartitions(@Param("monthsAhead") int monthsAhead);
 }
-
-
-
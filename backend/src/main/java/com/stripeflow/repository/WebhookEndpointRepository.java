@@ -4,9 +4,11 @@ import com.stripeflow.model.WebhookEndpoint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -21,6 +23,11 @@ public interface WebhookEndpointRepository extends JpaRepository<WebhookEndpoint
      */
     List<WebhookEndpoint> findByEnabledTrue();
     
+    /**
+     * Find enabled webhook endpoints by quarantine state
+     */
+    List<WebhookEndpoint> findByEnabledTrueAndQuarantined(Boolean quarantined);
+    
     /**
      * Find webhook endpoints by URL
      */
@@ -59,6 +66,40 @@ public interface WebhookEndpointRepository extends JpaRepository<WebhookEndpoint
     @Query("SELECT w FROM WebhookEndpoint w WHERE w.createdAt BETWEEN :startDate AND :endDate")
     List<WebhookEndpoint> findEndpointsCreatedBetween(@Param("startDate") java.time.LocalDateTime startDate, 
                                                      @Param("endDate") java.time.LocalDateTime endDate);
+    
+    /**
+     * Stop sending gzip-compressed payloads to an endpoint, leaving its other columns untouched
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookEndpoint w SET w.acceptGzip = false WHERE w.id = :id")
+    int disableGzip(@Param("id") Long id);
+    
+    /**
+     * Quarantine an endpoint, leaving its other columns untouched
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookEndpoint w SET w.quarantined = true, w.quarantinedAt = :quarantinedAt " +
+           "WHERE w.id = :id AND w.quarantined = false")
+    int quarantine(@Param("id") Long id, @Param("quarantinedAt") java.time.LocalDateTime quarantinedAt);
+    
+    /**
+     * Lift the quarantine of an endpoint after a successful probe
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookEndpoint w SET w.quarantined = false, w.quarantinedAt = null, w.lastProbeAt = :probedAt " +
+           "WHERE w.id = :id")
+    int releaseQuarantine(@Param("id") Long id, @Param("probedAt") java.time.LocalDateTime probedAt);
+    
+    /**
+     * Record a failed probe of a quarantined endpoint
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE WebhookEndpoint w SET w.lastProbeAt = :probedAt WHERE w.id = :id")
+    int recordProbe(@Param("id") Long id, @Param("probedAt") java.time.LocalDateTime probedAt);
 }
 
 
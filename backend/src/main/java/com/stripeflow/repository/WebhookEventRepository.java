@@ -1,16 +1,23 @@
 package com.stripeflow.repository;
 
-import com.stripeflow.model.WebhookEvent;
 import com.stripeflow.model.WebhookEndpoint;
+import com.stripeflow.model.WebhookEvent;
+import com.stripeflow.util.EntityStreams;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for WebhookEvent entity operations
@@ -43,9 +50,16 @@ public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long
     /**
      * Find webhook events ready for retry
      */
-    @Query("SELECT w FROM WebhookEvent w WHERE w.status = 'PENDING' AND w.nextRetry <= :now")
+    @Query("SELECT w FROM WebhookEvent w JOIN FETCH w.endpoint e " +
+           "WHERE w.status = 'PENDING' AND w.nextRetry <= :now AND e.quarantined = false ORDER BY w.id")
     List<WebhookEvent> findEventsReadyForRetry(@Param("now") LocalDateTime now);
     
+    /**
+     * Find the oldest webhook event of an endpoint with the given status
+     */
+    Optional<WebhookEvent> findFirstByEndpointAndStatusOrderByIdAsc(WebhookEndpoint endpoint, 
+                                                                    WebhookEvent.WebhookEventStatus status);
+    
     /**
      * Find webhook events by endpoint and event type
      */
@@ -97,18 +111,73 @@ public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long
     Page<WebhookEvent> findEventsByResponseCode(@Param("responseCode") Integer responseCode, Pageable pageable);
     
     /**
-     * Calculate webhook delivery success rate
+     * Count pending webhook events (served by the partial index on undelivered events)
+     */
+    @Query("SELECT COUNT(w) FROM WebhookEvent w WHERE w.status = 'PENDING'")
+    long countPendingEvents();
+    
+    /**
+     * Count pending webhook events for an endpoint, i.e. its delivery backlog
+     */
+    @Query("SELECT COUNT(w) FROM WebhookEvent w WHERE w.endpoint.id = :endpointId AND w.status = 'PENDING'")
+    long countPendingEventsByEndpoint(@Param("endpointId") Long endpointId);
+    
+    /**
+     * Event counts and first covered day per status from the mv_webhook_statistics materialized view
+     */
+    @Query(value = "SELECT status, SUM(count), MIN(date) FROM mv_webhook_statistics GROUP BY status", nativeQuery = true)
+    List<Object[]> summarizeStatusCountsFromView();
+    
+    /**
+     * Event counts and average delivery time per status for an endpoint from mv_webhook_statistics
      */
-    @Query("SELECT " +
-           "COUNT(CASE WHEN w.status = 'DELIVERED' THEN 1 END) * 100.0 / COUNT(*) " +
-           "FROM WebhookEvent w WHERE w.endpoint = :endpoint")
-    Double calculateSuccessRateByEndpoint(@Param("endpoint") WebhookEndpoint endpoint);
+    @Query(value = "SELECT status, SUM(count), SUM(count * avg_delivery_time) / NULLIF(SUM(count), 0) " +
+                   "FROM mv_webhook_statistics WHERE endpoint_id = :endpointId GROUP BY status", nativeQuery = true)
+    List<Object[]> summarizeEndpointStatusCountsFromView(@Param("endpointId") Long endpointId);
+    
+    /**
+     * Cancel pending events for an object that a newer event of the same family supersedes
+     */
+    @Modifying
+    @Query("UPDATE WebhookEvent w SET w.status = 'CANCELED' " +
+           "WHERE w.endpoint = :endpoint AND w.objectId = :objectId AND w.eventType LIKE :familyPattern " +
+           "AND w.status = 'PENDING' AND w.id < :latestId")
+    int cancelSupersededEvents(@Param("endpoint") WebhookEndpoint endpoint,
+                               @Param("objectId") String objectId,
+                               @Param("familyPattern") String familyPattern,
+                               @Param("latestId") Long latestId);
+    
+    /**
+     * Check whether an earlier event for the same object is still waiting for delivery
+     * (served by the partial index on undelivered events)
+     */
+    @Query("SELECT COUNT(w) > 0 FROM WebhookEvent w " +
+           "WHERE w.endpoint = :endpoint AND w.objectId = :objectId AND w.id < :id " +
+           "AND w.status IN ('PENDING', 'RETRYING') " +
+           "AND (w.status = 'PENDING' OR w.lastAttempt > :staleBefore)")
+    boolean existsEarlierUndeliveredEvent(@Param("endpoint") WebhookEndpoint endpoint,
+                                          @Param("objectId") String objectId,
+                                          @Param("id") Long id,
+                                          @Param("staleBefore") LocalDateTime staleBefore);
+    
+    /**
+     * Get the current status of a webhook event without loading the entity
+     */
+    @Query("SELECT w.status FROM WebhookEvent w WHERE w.id = :id")
+    WebhookEvent.WebhookEventStatus findStatusById(@Param("id") Long id);
     
     /**
      * Find webhook events for cleanup (older than specified days)
      */
     @Query("SELECT w FROM WebhookEvent w WHERE w.createdAt < :cutoffDate")
     List<WebhookEvent> findEventsForCleanup(@Param("cutoffDate") LocalDateTime cutoffDate);
+    
+    /**
+     * Stream webhook events for cleanup from a forward-only cursor
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EntityStreams.FETCH_SIZE))
+    @Query("SELECT w FROM WebhookEvent w WHERE w.createdAt < :cutoffDate")
+    Stream<WebhookEvent> streamEventsForCleanup(@Param("cutoffDate") LocalDateTime cutoffDate);
 }
 
 
@@ -0,0 +1,32 @@
+package com.stripeflow.scheduler;
+
+import com.stripeflow.service.AnalyticsViewService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduler for refreshing the analytics materialized views
+ */
+@Component
+public class AnalyticsViewScheduler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsViewScheduler.class);
+    
+    @Autowired
+    private AnalyticsViewService analyticsViewService;
+    
+    /**
+     * Refresh the views that are due; checked more often than they are refreshed, so a node taking over is prompt
+     */
+    @Scheduled(fixedDelayString = "${api.analytics.check-interval-ms:30000}")
+    public void refreshViews() {
+        try {
+            analyticsViewService.refreshDueViews();
+        } catch (Exception e) {
+            logger.error("Error refreshing analytics views: {}", e.getMessage());
+        }
+    }
+}
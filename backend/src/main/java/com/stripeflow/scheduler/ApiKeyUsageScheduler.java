@@ -0,0 +1,41 @@
+package com.stripeflow.scheduler;
+
+import com.stripeflow.service.ApiKeyService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduler for writing API key usage to the database
+ */
+@Component
+public class ApiKeyUsageScheduler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyUsageScheduler.class);
+    
+    @Autowired
+    private ApiKeyService apiKeyService;
+    
+    /**
+     * Write the last use time of recently used API keys in one batch
+     */
+    @Scheduled(fixedDelayString = "${security.api-key.last-used-flush-ms:30000}")
+    public void flushLastUsed() {
+        try {
+            apiKeyService.flushLastUsed();
+        } catch (Exception e) {
+            logger.error("Error updating API key last use: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Write pending usage before shutdown
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushLastUsed();
+    }
+}
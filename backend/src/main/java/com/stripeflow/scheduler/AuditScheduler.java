@@ -0,0 +1,32 @@
+package com.stripeflow.scheduler;
+
+import com.stripeflow.audit.AuditWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduler for writing buffered audit records
+ */
+@Component
+public class AuditScheduler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AuditScheduler.class);
+    
+    @Autowired
+    private AuditWriter auditWriter;
+    
+    /**
+     * Write the audit records buffered since the last flush
+     */
+    @Scheduled(fixedDelayString = "${api.audit.flush-interval-ms:1000}")
+    public void flushAuditRecords() {
+        try {
+            auditWriter.flush();
+        } catch (Exception e) {
+            logger.error("Error flushing audit records: {}", e.getMessage());
+        }
+    }
+}
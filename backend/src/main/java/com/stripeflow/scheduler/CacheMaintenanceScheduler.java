@@ -0,0 +1,32 @@
+package com.stripeflow.scheduler;
+
+import com.stripeflow.cache.HotKeyTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduler for background cache maintenance
+ */
+@Component
+public class CacheMaintenanceScheduler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CacheMaintenanceScheduler.class);
+    
+    @Autowired
+    private HotKeyTracker hotKeyTracker;
+    
+    /**
+     * Record the hottest cache keys so restarting nodes can preload them
+     */
+    @Scheduled(fixedDelayString = "${api.cache.warmup.record-interval-ms:60000}")
+    public void recordHotKeys() {
+        try {
+            hotKeyTracker.persist();
+        } catch (Exception e) {
+            logger.error("Error recording hot cache keys: {}", e.getMessage());
+        }
+    }
+}
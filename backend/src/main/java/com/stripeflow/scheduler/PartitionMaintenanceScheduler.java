@@ -0,0 +1,32 @@
+package com.stripeflow.scheduler;
+
+import com.stripeflow.service.PartitionMaintenanceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduler for creating table partitions before they are needed
+ */
+@Component
+public class PartitionMaintenanceScheduler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PartitionMaintenanceScheduler.class);
+    
+    @Autowired
+    private PartitionMaintenanceService partitionMaintenanceService;
+    
+    /**
+     * Create upcoming monthly partitions so new rows never fall into the default partition
+     */
+    @Scheduled(fixedDelayString = "${api.partitioning.check-interval-ms:21600000}")
+    public void ensurePartitions() {
+        try {
+            partitionMaintenanceService.ensurePartitions();
+        } catch (Exception e) {
+            logger.error("Error creating table partitions: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.stripeflow.scheduler;
+
+import com.stripeflow.datasource.PoolSaturationMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduler for checking the connection pools for saturation
+ */
+@Component
+public class PoolSaturationScheduler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PoolSaturationScheduler.class);
+    
+    @Autowired
+    private PoolSaturationMonitor poolSaturationMonitor;
+    
+    /**
+     * Sample the connection pools, alarming on pools that keep threads waiting
+     */
+    @Scheduled(fixedDelayString = "${api.datasource.pool-monitor.check-interval-ms:5000}")
+    public void checkPools() {
+        try {
+            poolSaturationMonitor.check();
+        } catch (Exception e) {
+            logger.error("Error checking connection pools: {}", e.getMessage());
+        }
+    }
+}
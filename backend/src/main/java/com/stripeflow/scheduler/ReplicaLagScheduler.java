@@ -0,0 +1,32 @@
+package com.stripeflow.scheduler;
+
+import com.stripeflow.datasource.ReplicaRoutingDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduler for checking the replication lag of read replicas
+ */
+@Component
+public class ReplicaLagScheduler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagScheduler.class);
+    
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+    
+    /**
+     * Check every replica's lag so reads only go to replicas that are caught up
+     */
+    @Scheduled(fixedDelayString = "${api.datasource.replicas.lag-check-interval-ms:2000}")
+    public void checkReplicaLag() {
+        try {
+            routingDataSource.checkReplicaLag();
+        } catch (Exception e) {
+            logger.error("Error checking read replica lag: {}", e.getMessage());
+        }
+    }
+}
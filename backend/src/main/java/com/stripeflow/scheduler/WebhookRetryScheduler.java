@@ -2,7 +2,12 @@ package com.stripeflow.scheduler;
 
 import com.stripeflow.model.WebhookEvent;
 import com.stripeflow.repository.WebhookEventRepository;
+import com.stripeflow.service.WebhookHealthService;
+import com.stripeflow.service.WebhookManagementService;
 import com.stripeflow.service.WebhookService;
+import com.stripeflow.util.EntityStreams;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +17,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Scheduler for processing webhook retries
@@ -24,9 +30,18 @@ public class WebhookRetryScheduler {
     @Autowired
     private WebhookEventRepository webhookEventRepository;
     
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     @Autowired
     private WebhookService webhookService;
     
+    @Autowired
+    private WebhookManagementService webhookManagementService;
+    
+    @Autowired
+    private WebhookHealthService webhookHealthService;
+    
     /**
      * Process webhook retries every 30 seconds
      */
@@ -41,7 +56,7 @@ public class WebhookRetryScheduler {
                 
                 for (WebhookEvent event : eventsReadyForRetry) {
                     try {
-                        webhookService.processWebhookDelivery(event);
+                        webhookService.dispatchDelivery(event);
                     } catch (Exception e) {
                         logger.error("Error processing webhook retry for event {}: {}", 
                             event.getId(), e.getMessage());
@@ -53,6 +68,36 @@ public class WebhookRetryScheduler {
         }
     }
     
+    /**
+     * Quarantine unhealthy webhook endpoints every minute
+     */
+    @Scheduled(fixedRate = 60000) // 1 minute
+    public void quarantineUnhealthyEndpoints() {
+        try {
+            int quarantined = webhookHealthService.quarantineUnhealthyEndpoints();
+            if (quarantined > 0) {
+                logger.info("Quarantined {} unhealthy webhook endpoints", quarantined);
+            }
+        } catch (Exception e) {
+            logger.error("Error evaluating webhook endpoint health: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Probe quarantined webhook endpoints at a low frequency
+     */
+    @Scheduled(fixedDelayString = "${api.webhook.health.probe-interval-ms:300000}") // 5 minutes
+    public void probeQuarantinedEndpoints() {
+        try {
+            int released = webhookHealthService.probeQuarantinedEndpoints();
+            if (released > 0) {
+                logger.info("Released {} recovered webhook endpoints from quarantine", released);
+            }
+        } catch (Exception e) {
+            logger.error("Error probing quarantined webhook endpoints: {}", e.getMessage());
+        }
+    }
+    
     /**
      * Clean up old webhook events daily at 2 AM
      */
@@ -62,11 +107,14 @@ public class WebhookRetryScheduler {
         try {
             // Delete webhook events older than 30 days
             LocalDateTime cutoffDate = LocalDateTime.now().minusDays(30);
-            List<WebhookEvent> eventsToDelete = webhookEventRepository.findEventsForCleanup(cutoffDate);
             
-            if (!eventsToDelete.isEmpty()) {
-                logger.info("Cleaning up {} old webhook events", eventsToDelete.size());
-                webhookEventRepository.deleteAll(eventsToDelete);
+            // Deleted while streaming, flushed in batches so the whole backlog is never held in memory
+            try (Stream<WebhookEvent> eventsToDelete = webhookEventRepository.streamEventsForCleanup(cutoffDate)) {
+                long deleted = EntityStreams.forEachClearing(eventsToDelete, entityManager, 
+                    EntityStreams.CLEAR_INTERVAL, webhookEventRepository::delete);
+                if (deleted > 0) {
+                    logger.info("Cleaned up {} old webhook events", deleted);
+                }
             }
         } catch (Exception e) {
             logger.error("Error cleaning up old webhook events: {}", e.getMessage());
@@ -79,13 +127,11 @@ public class WebhookRetryScheduler {
     @Scheduled(cron = "0 0 1 * * ?") // Daily at 1 AM
     public void generateWebhookStatistics() {
         try {
-            long totalEvents = webhookEventRepository.count();
-            long pendingEvents = webhookEventRepository.countEventsByStatus(WebhookEvent.WebhookEventStatus.PENDING);
-            long deliveredEvents = webhookEventRepository.countEventsByStatus(WebhookEvent.WebhookEventStatus.DELIVERED);
-            long failedEvents = webhookEventRepository.countEventsByStatus(WebhookEvent.WebhookEventStatus.FAILED);
+            WebhookManagementService.WebhookStatistics statistics = webhookManagementService.getWebhookStatistics();
             
-            logger.info("Webhook Statistics - Total: {}, Pending: {}, Delivered: {}, Failed: {}", 
-                totalEvents, pendingEvents, deliveredEvents, failedEvents);
+            logger.info("Webhook Statistics - Since {}: {}, Delivered: {}, Failed: {}, Pending now: {}", 
+                statistics.getEventsSince(), statistics.getTotalEvents(), statistics.getDeliveredEvents(), 
+                statistics.getFailedEvents(), statistics.getPendingEvents());
         } catch (Exception e) {
             logger.error("Error generating webhook statistics: {}", e.getMessage());
         }
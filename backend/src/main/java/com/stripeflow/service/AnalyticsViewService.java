@@ -0,0 +1,116 @@
+package com.stripeflow.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Service refreshing the analytics materialized views.
+ *
+ * Views are refreshed concurrently, so dashboards keep reading the previous
+ * contents meanwhile. Each node checks the views regularly; the node that locks
+ * a view's row in analytics_view_refreshes refreshes it once it is due, and the
+ * others skip it rather than wait or refresh it again.
+ */
+@Service
+public class AnalyticsViewService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsViewService.class);
+    
+    static final List<String> VIEWS = List.of("mv_charge_statistics", "mv_webhook_statistics");
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${api.analytics.refresh-interval-ms:300000}")
+    private long refreshIntervalMillis;
+    
+    /**
+     * Refresh every view that is due and not being refreshed by another node, returning how many were refreshed
+     */
+    public int refreshDueViews() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int refreshed = 0;
+        for (String view : VIEWS) {
+            // Each view in its own transaction, so a failed refresh neither blocks nor rolls back the others
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> refreshIfDue(view)))) {
+                    refreshed++;
+                }
+            } catch (Exception e) {
+                logger.error("Error refreshing materialized view {}: {}", view, e.getMessage());
+            }
+        }
+        return refreshed;
+    }
+    
+    /**
+     * Refresh a view if no refresh happened within the interval, holding its row lock until commit
+     */
+    private boolean refreshIfDue(String view) {
+        // Compared on the database clock, so nodes with skewed clocks agree on whether a view is due
+        List<Boolean> due = jdbcTemplate.queryForList(
+            "SELECT refreshed_at IS NULL OR refreshed_at <= CURRENT_TIMESTAMP - make_interval(secs => ?) " +
+            "FROM analytics_view_refreshes WHERE view_name = ? FOR UPDATE SKIP LOCKED",
+            Boolean.class, refreshIntervalMillis / 1000.0, view);
+        if (due.isEmpty()) {
+            skipped(view, "locked").increment();
+            return false;
+        }
+        if (!Boolean.TRUE.equals(due.get(0))) {
+            skipped(view, "fresh").increment();
+            return false;
+        }
+        
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            jdbcTemplate.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY " + view);
+            jdbcTemplate.update("UPDATE analytics_view_refreshes SET refreshed_at = CURRENT_TIMESTAMP WHERE view_name = ?",
+                view);
+            long nanos = sample.stop(refreshTimer(view, "success"));
+            logger.debug("Refreshed materialized view {} in {} ms", view, nanos / 1_000_000);
+            return true;
+        } catch (RuntimeException e) {
+            sample.stop(refreshTimer(view, "failure"));
+            throw e;
+        }
+    }
+    
+    /**
+     * Timer of the refreshes of a view with the given outcome
+     */
+    private Timer refreshTimer(String view, String result) {
+        return Timer.builder("stripeflow.analytics.view.refresh")
+            .tag("view", view)
+            .tag("result", result)
+            .description("Duration of materialized view refreshes")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Counter of the checks that left a view alone for the given reason
+     */
+    private Counter skipped(String view, String reason) {
+        return Counter.builder("stripeflow.analytics.view.refresh.skipped")
+            .tag("view", view)
+            .tag("reason", reason)
+            .description("View checks skipped because another node held the view or it was fresh")
+            .register(meterRegistry);
+    }
+}
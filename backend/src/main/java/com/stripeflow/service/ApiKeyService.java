@@ -0,0 +1,129 @@
+package com.stripeflow.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stripeflow.cache.CachedApiKey;
+import com.stripeflow.repository.ApiKeyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service for API key authentication.
+ * 
+ * Keys are looked up by the SHA-256 hash of the presented secret in the
+ * two-tier apiKeys cache, then the database; unknown hashes are remembered
+ * locally for a short time so repeated bad keys do not reach the database.
+ * Cached keys expire within a minute, so a key disabled in api_keys is
+ * rejected once its entry is gone.
+ * Key usage is collected in memory and written to last_used in batches.
+ */
+@Service
+public class ApiKeyService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyService.class);
+    
+    private static final String API_KEYS_CACHE = "apiKeys";
+    private static final Duration NEGATIVE_LOOKUP_TTL = Duration.ofSeconds(30);
+    
+    @Autowired
+    private ApiKeyRepository apiKeyRepository;
+    
+    @Autowired
+    private CacheService cacheService;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    // Hashes of keys that matched no enabled key
+    private final Cache<String, Boolean> unknownKeys = Caffeine.newBuilder()
+        .maximumSize(10_000)
+        .expireAfterWrite(NEGATIVE_LOOKUP_TTL)
+        .build();
+    
+    // Keys used since the last flush of last_used
+    private final Set<Long> usedKeys = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Hash an API key secret as stored in api_keys.key_hash
+     */
+    public static String hashKey(String apiKey) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    /**
+     * Resolve an API key secret from the cache only, without a database lookup; null if it is not cached
+     */
+    public CachedApiKey findCached(String apiKey) {
+        String keyHash = hashKey(apiKey);
+        if (unknownKeys.getIfPresent(keyHash) != null) {
+            return null;
+        }
+        return cacheManager.getCache(API_KEYS_CACHE).get(keyHash, CachedApiKey.class);
+    }
+    
+    /**
+     * Resolve an API key secret to its enabled key, or null if it matches none
+     */
+    public CachedApiKey authenticate(String apiKey) {
+        String keyHash = hashKey(apiKey);
+        if (unknownKeys.getIfPresent(keyHash) != null) {
+            return null;
+        }
+        
+        CachedApiKey key = cacheService.get(API_KEYS_CACHE, keyHash, CachedApiKey.class, 
+            () -> apiKeyRepository.findByKeyHashAndEnabledTrue(keyHash).map(CachedApiKey::from).orElse(null));
+        if (key == null) {
+            unknownKeys.put(keyHash, Boolean.TRUE);
+        }
+        return key;
+    }
+    
+    /**
+     * Record a use of a key; written to last_used by the next flush
+     */
+    public void recordUsage(Long apiKeyId) {
+        usedKeys.add(apiKeyId);
+    }
+    
+    /**
+     * Write the last use time of every key used since the previous flush in one statement
+     */
+    @Transactional
+    public int flushLastUsed() {
+        if (usedKeys.isEmpty()) {
+            return 0;
+        }
+        
+        List<Long> ids = new ArrayList<>(usedKeys);
+        usedKeys.removeAll(ids);
+        try {
+            int updated = apiKeyRepository.updateLastUsed(ids, LocalDateTime.now());
+            logger.debug("Updated last use of {} API keys", updated);
+            return updated;
+        } catch (RuntimeException e) {
+            // Retry with the next flush
+            usedKeys.addAll(ids);
+            throw e;
+        }
+    }
+}
@@ -1,26 +1,91 @@
 package com.stripeflow.service;
 
+import com.stripeflow.cache.CacheInvalidator;
+import com.stripeflow.cache.CacheMetrics;
+import com.stripeflow.cache.CachedCharge;
+import com.stripeflow.cache.CachedCustomer;
+import com.stripeflow.cache.RedisCircuitBreaker;
+import com.stripeflow.cache.RefreshAheadEntry;
+import com.stripeflow.cache.TwoTierCache;
+import com.stripeflow.util.SingleFlight;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * High-performance caching service for StripeFlow
+ * 
+ * Redis calls go through a circuit breaker: while Redis is unavailable, lookups
+ * miss, writes are dropped and read-through values come straight from their
+ * loaders. Namespaces whose invalidation was dropped are bumped on recovery.
  */
 @Service
 public class CacheService {
     
+    private static final Logger logger = LoggerFactory.getLogger(CacheService.class);
+    
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
     
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+    
+    @Autowired
+    private CacheMetrics cacheMetrics;
+    
+    @Autowired
+    private RedisCircuitBreaker redisCircuitBreaker;
+    
+    @Autowired
+    @Qualifier("cacheRefreshExecutor")
+    private Executor cacheRefreshExecutor;
+    
+    @Value("${api.cache.refresh-ahead.beta:1.0}")
+    private double refreshBeta;
+    
+    // Concurrent misses of the same Redis key share one load per node
+    private final SingleFlight redisLoads = new SingleFlight();
+    
+    // Foreground loads and background refreshes of a refresh-ahead entry share one computation
+    private final SingleFlight refreshes = new SingleFlight();
+    
+    // Set when an invalidation could not reach Redis; the namespaces are bumped once it recovers
+    private final AtomicBoolean namespacesStale = new AtomicBoolean();
+    
     // Cache keys constants
     private static final String CUSTOMER_PREFIX = "customer:";
     private static final String CHARGE_PREFIX = "charge:";
@@ -30,20 +95,117 @@ public class CacheService {
     private static final String SESSION_PREFIX = "session:";
     private static final String API_KEY_PREFIX = "apikey:";
     
+    // Read-through namespaces; each can be invalidated at once by bumping its generation
+    public static final String PAGINATED_NAMESPACE = "paginated";
+    public static final String SEARCH_NAMESPACE = "search";
+    public static final String FREQUENT_NAMESPACE = "frequent";
+    
+    // Counters that lost their TTL, e.g. after a failed EXPIRE in an older version, get one on their next increment
+    private static final RedisScript<Long> INCREMENT_WITH_EXPIRY_SCRIPT = new DefaultRedisScript<>(
+        "local count = redis.call('INCR', KEYS[1]) " +
+        "if count == 1 or redis.call('PTTL', KEYS[1]) < 0 then redis.call('PEXPIRE', KEYS[1], ARGV[1]) end " +
+        "return count",
+        Long.class);
+    
+    // Key prefixes of cached values outside the cache regions and namespaces
+    private static final List<String> CACHED_KEY_PATTERNS = List.of(
+        API_KEY_PREFIX + "*", "webhook_status:*", "payment_status:*", "sliding:*");
+    
     /**
-     * Cache customer data with TTL
+     * Invalidate the read-through namespaces once Redis recovers if invalidations were dropped meanwhile
      */
-    @CachePut(value = "customers", key = "#customerId")
-    public Object cacheCustomer(Long customerId, Object customer) {
-        return customer;
+    @PostConstruct
+    void registerRecoveryListener() {
+        redisCircuitBreaker.addRecoveryListener(() -> {
+            if (namespacesStale.getAndSet(false)) {
+                invalidateNamespace(PAGINATED_NAMESPACE);
+                invalidateNamespace(SEARCH_NAMESPACE);
+                invalidateNamespace(FREQUENT_NAMESPACE);
+            }
+        });
+    }
+    
+    /**
+     * Read through a cache region; concurrent misses of a key share a single load
+     */
+    public <T> T get(String cacheName, Object key, Class<T> type, Callable<T> loader) {
+        T value = getCache(cacheName).get(key, loader);
+        if (value != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value in " + cacheName + " is not of required type [" 
+                + type.getName() + "]: " + value);
+        }
+        return value;
+    }
+    
+    /**
+     * Read through a cache region with refresh-ahead: once an entry nears its refresh time,
+     * reads trigger a background reload while they keep getting the current value.
+     * The refresh interval should be well below the region's TTL, so hot entries are
+     * refreshed before they expire.
+     */
+    public <T> T getOrRefresh(String cacheName, Object key, Duration refreshAfter, Callable<T> loader) {
+        Cache cache = getCache(cacheName);
+        return refreshAhead(cacheName, cacheName + ":" + key, () -> {
+            Cache.ValueWrapper wrapper = cache.get(key);
+            return wrapper != null ? wrapper.get() : null;
+        }, entry -> cache.put(key, entry), refreshAfter, loader);
+    }
+    
+    /**
+     * Read through a cache region for several keys: one Redis MGET for the keys not held locally,
+     * one bulk load for the remaining misses and one pipelined write to cache them.
+     * Keys the bulk loader cannot find are absent from the result.
+     */
+    public <K, V> Map<K, V> getAll(String cacheName, Collection<K> keys, Class<V> type,
+                                   Function<Collection<K>, Map<K, V>> bulkLoader) {
+        Cache cache = getCache(cacheName);
+        
+        Map<Object, V> cached;
+        if (cache instanceof TwoTierCache twoTierCache) {
+            cached = twoTierCache.getAll(keys, type);
+        } else {
+            cached = new LinkedHashMap<>();
+            for (K key : keys) {
+                V value = cache.get(key, type);
+                if (value != null) {
+                    cached.put(key, value);
+                }
+            }
+        }
+        
+        List<K> misses = new ArrayList<>();
+        for (K key : keys) {
+            if (!cached.containsKey(key)) {
+                misses.add(key);
+            }
+        }
+        
+        Map<K, V> loaded = misses.isEmpty() ? Map.of() : bulkLoader.apply(misses);
+        if (!loaded.isEmpty()) {
+            if (cache instanceof TwoTierCache twoTierCache) {
+                twoTierCache.putAll(loaded);
+            } else {
+                loaded.forEach(cache::put);
+            }
+        }
+        
+        // Preserve the order of the requested keys
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = cached.containsKey(key) ? cached.get(key) : loaded.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
     }
     
     /**
-     * Get cached customer data
+     * Cache customer data with TTL
      */
-    @Cacheable(value = "customers", key = "#customerId")
-    public Object getCachedCustomer(Long customerId) {
-        return null; // Will be populated by cache
+    @CachePut(value = "customers", key = "#customerId")
+    public CachedCustomer cacheCustomer(Long customerId, CachedCustomer customer) {
+        return customer;
     }
     
     /**
@@ -58,18 +220,10 @@ public class CacheService {
      * Cache charge data with TTL
      */
     @CachePut(value = "charges", key = "#chargeId")
-    public Object cacheCharge(Long chargeId, Object charge) {
+    public CachedCharge cacheCharge(Long chargeId, CachedCharge charge) {
         return charge;
     }
     
-    /**
-     * Get cached charge data
-     */
-    @Cacheable(value = "charges", key = "#chargeId")
-    public Object getCachedCharge(Long chargeId) {
-        return null; // Will be populated by cache
-    }
-    
     /**
      * Evict charge cache
      */
@@ -86,20 +240,12 @@ public class CacheService {
         return statistics;
     }
     
-    /**
-     * Get cached statistics
-     */
-    @Cacheable(value = "statistics", key = "#statisticsType")
-    public Object getCachedStatistics(String statisticsType) {
-        return null; // Will be populated by cache
-    }
-    
     /**
      * Cache API key validation
      */
     public void cacheApiKeyValidation(String apiKey, boolean isValid) {
         String key = API_KEY_PREFIX + apiKey;
-        redisTemplate.opsForValue().set(key, isValid, Duration.ofHours(1));
+        withRedis(() -> redisTemplate.opsForValue().set(key, isValid, Duration.ofHours(1)));
     }
     
     /**
@@ -107,7 +253,8 @@ public class CacheService {
      */
     public Boolean getCachedApiKeyValidation(String apiKey) {
         String key = API_KEY_PREFIX + apiKey;
-        return (Boolean) redisTemplate.opsForValue().get(key);
+        return cacheMetrics.recordLookup("api_key", CacheMetrics.TIER_REDIS, 
+            withRedis(() -> (Boolean) redisTemplate.opsForValue().get(key), null));
     }
     
     /**
@@ -115,7 +262,7 @@ public class CacheService {
      */
     public void cacheSession(String sessionId, Object sessionData) {
         String key = SESSION_PREFIX + sessionId;
-        redisTemplate.opsForValue().set(key, sessionData, Duration.ofHours(24));
+        withRedis(() -> redisTemplate.opsForValue().set(key, sessionData, Duration.ofHours(24)));
     }
     
     /**
@@ -123,7 +270,8 @@ public class CacheService {
      */
     public Object getCachedSession(String sessionId) {
         String key = SESSION_PREFIX + sessionId;
-        return redisTemplate.opsForValue().get(key);
+        return cacheMetrics.recordLookup("session", CacheMetrics.TIER_REDIS, 
+            withRedis(() -> redisTemplate.opsForValue().get(key), null));
     }
     
     /**
@@ -131,61 +279,92 @@ public class CacheService {
      */
     public void evictSession(String sessionId) {
         String key = SESSION_PREFIX + sessionId;
-        redisTemplate.delete(key);
+        withRedis(() -> redisTemplate.delete(key));
     }
     
     /**
      * Cache paginated results
      */
     public void cachePaginatedResults(String cacheKey, Object results, Duration ttl) {
-        redisTemplate.opsForValue().set(cacheKey, results, ttl);
+        withRedis(() -> redisTemplate.opsForValue().set(cacheInvalidator.namespacedKey(PAGINATED_NAMESPACE, cacheKey), results, ttl));
     }
     
     /**
      * Get cached paginated results
      */
     public Object getCachedPaginatedResults(String cacheKey) {
-        return redisTemplate.opsForValue().get(cacheKey);
+        return cacheMetrics.recordLookup(PAGINATED_NAMESPACE, CacheMetrics.TIER_REDIS, 
+            withRedis(() -> redisTemplate.opsForValue().get(cacheInvalidator.namespacedKey(PAGINATED_NAMESPACE, cacheKey)), null));
+    }
+    
+    /**
+     * Get cached paginated results, loading and caching them once on a miss
+     */
+    public <T> T getOrLoadPaginatedResults(String cacheKey, Duration ttl, Callable<T> loader) {
+        return readThrough(PAGINATED_NAMESPACE, cacheKey, ttl, loader, null);
+    }
+    
+    /**
+     * Get cached paginated results, loading them once on a miss and tagging them for invalidation
+     */
+    public <T> T getOrLoadPaginatedResults(String cacheKey, Duration ttl, 
+                                           Function<? super T, ? extends Collection<String>> tags, Callable<T> loader) {
+        return readThrough(PAGINATED_NAMESPACE, cacheKey, ttl, loader, tags);
     }
     
     /**
      * Cache search results
      */
     public void cacheSearchResults(String searchKey, Object results, Duration ttl) {
-        redisTemplate.opsForValue().set("search:" + searchKey, results, ttl);
+        withRedis(() -> redisTemplate.opsForValue().set(cacheInvalidator.namespacedKey(SEARCH_NAMESPACE, searchKey), results, ttl));
     }
     
     /**
      * Get cached search results
      */
     public Object getCachedSearchResults(String searchKey) {
-        return redisTemplate.opsForValue().get("search:" + searchKey);
+        return cacheMetrics.recordLookup(SEARCH_NAMESPACE, CacheMetrics.TIER_REDIS, 
+            withRedis(() -> redisTemplate.opsForValue().get(cacheInvalidator.namespacedKey(SEARCH_NAMESPACE, searchKey)), null));
+    }
+    
+    /**
+     * Get cached search results, loading and caching them once on a miss
+     */
+    public <T> T getOrLoadSearchResults(String searchKey, Duration ttl, Callable<T> loader) {
+        return readThrough(SEARCH_NAMESPACE, searchKey, ttl, loader, null);
+    }
+    
+    /**
+     * Get cached search results, loading them once on a miss and tagging them for invalidation
+     */
+    public <T> T getOrLoadSearchResults(String searchKey, Duration ttl, 
+                                        Function<? super T, ? extends Collection<String>> tags, Callable<T> loader) {
+        return readThrough(SEARCH_NAMESPACE, searchKey, ttl, loader, tags);
     }
     
     /**
      * Cache rate limiting data
      */
     public void cacheRateLimit(String key, int count, Duration window) {
-        redisTemplate.opsForValue().set("rate_limit:" + key, count, window);
+        withRedis(() -> redisTemplate.opsForValue().set("rate_limit:" + key, count, window));
     }
     
     /**
      * Get cached rate limit data
      */
     public Integer getCachedRateLimit(String key) {
-        return (Integer) redisTemplate.opsForValue().get("rate_limit:" + key);
+        return cacheMetrics.recordLookup("rate_limit", CacheMetrics.TIER_REDIS, 
+            withRedis(() -> (Integer) redisTemplate.opsForValue().get("rate_limit:" + key), null));
     }
     
     /**
-     * Increment rate limit counter
+     * Increment rate limit counter, setting its expiry in the same atomic step;
+     * fails open with a count of 0 while Redis is unavailable
      */
     public Long incrementRateLimit(String key, Duration window) {
-        String rateLimitKey = "rate_limit:" + key;
-        Long count = redisTemplate.opsForValue().increment(rateLimitKey);
-        if (count == 1) {
-            redisTemplate.expire(rateLimitKey, window);
-        }
-        return count;
+        return withRedis(() -> redisTemplate.execute(INCREMENT_WITH_EXPIRY_SCRIPT, RedisSerializer.string(),
+            new GenericToStringSerializer<>(Long.class), Collections.singletonList("rate_limit:" + key),
+            Long.toString(window.toMillis())), 0L);
     }
     
     /**
@@ -193,7 +372,7 @@ public class CacheService {
      */
     public void cacheWebhookStatus(Long webhookId, String status) {
         String key = "webhook_status:" + webhookId;
-        redisTemplate.opsForValue().set(key, status, Duration.ofMinutes(30));
+        withRedis(() -> redisTemplate.opsForValue().set(key, status, Duration.ofMinutes(30)));
     }
     
     /**
@@ -201,7 +380,8 @@ public class CacheService {
      */
     public String getCachedWebhookStatus(Long webhookId) {
         String key = "webhook_status:" + webhookId;
-        return (String) redisTemplate.opsForValue().get(key);
+        return cacheMetrics.recordLookup("webhook_status", CacheMetrics.TIER_REDIS, 
+            withRedis(() -> (String) redisTemplate.opsForValue().get(key), null));
     }
     
     /**
@@ -209,7 +389,7 @@ public class CacheService {
      */
     public void cachePaymentStatus(String paymentId, String status) {
         String key = "payment_status:" + paymentId;
-        redisTemplate.opsForValue().set(key, status, Duration.ofHours(1));
+        withRedis(() -> redisTemplate.opsForValue().set(key, status, Duration.ofHours(1)));
     }
     
     /**
@@ -217,59 +397,311 @@ public class CacheService {
      */
     public String getCachedPaymentStatus(String paymentId) {
         String key = "payment_status:" + paymentId;
-        return (String) redisTemplate.opsForValue().get(key);
+        return cacheMetrics.recordLookup("payment_status", CacheMetrics.TIER_REDIS, 
+            withRedis(() -> (String) redisTemplate.opsForValue().get(key), null));
     }
     
     /**
      * Cache frequently accessed data
      */
     public void cacheFrequentData(String key, Object data, Duration ttl) {
-        redisTemplate.opsForValue().set("frequent:" + key, data, ttl);
+        withRedis(() -> redisTemplate.opsForValue().set(cacheInvalidator.namespacedKey(FREQUENT_NAMESPACE, key), data, ttl));
     }
     
     /**
      * Get cached frequent data
      */
     public Object getCachedFrequentData(String key) {
-        return redisTemplate.opsForValue().get("frequent:" + key);
+        return cacheMetrics.recordLookup(FREQUENT_NAMESPACE, CacheMetrics.TIER_REDIS, 
+            withRedis(() -> redisTemplate.opsForValue().get(cacheInvalidator.namespacedKey(FREQUENT_NAMESPACE, key)), null));
+    }
+    
+    /**
+     * Get cached frequent data, loading and caching it once on a miss
+     */
+    public <T> T getOrLoadFrequentData(String key, Duration ttl, Callable<T> loader) {
+        return readThrough(FREQUENT_NAMESPACE, key, ttl, loader, null);
+    }
+    
+    /**
+     * Get cached frequent data, loading it once on a miss and tagging it for invalidation
+     */
+    public <T> T getOrLoadFrequentData(String key, Duration ttl, 
+                                       Function<? super T, ? extends Collection<String>> tags, Callable<T> loader) {
+        return readThrough(FREQUENT_NAMESPACE, key, ttl, loader, tags);
+    }
+    
+    /**
+     * Get cached frequent data with refresh-ahead, tagging it for invalidation. Entries live in
+     * Redis for twice the refresh interval, so a hot entry is served while it is refreshed.
+     */
+    public <T> T getOrRefreshFrequentData(String key, Duration refreshAfter,
+                                          Function<? super T, ? extends Collection<String>> tags, Callable<T> loader) {
+        // Without Redis there is no entry to serve or refresh; every read loads
+        String redisKey = withRedis(() -> cacheInvalidator.namespacedKey(FREQUENT_NAMESPACE, key), null);
+        Duration ttl = refreshAfter.multipliedBy(2);
+        return refreshAhead(FREQUENT_NAMESPACE, redisKey != null ? redisKey : FREQUENT_NAMESPACE + ":" + key, 
+            () -> cacheMetrics.recordLookup(FREQUENT_NAMESPACE, CacheMetrics.TIER_REDIS, 
+                redisKey != null ? withRedis(() -> redisTemplate.opsForValue().get(redisKey), null) : null),
+            entry -> {
+                if (redisKey == null) {
+                    return;
+                }
+                withRedis(() -> {
+                    redisTemplate.opsForValue().set(redisKey, entry, ttl);
+                    if (tags != null) {
+                        @SuppressWarnings("unchecked")
+                        T value = (T) entry.value();
+                        cacheInvalidator.tag(redisKey, tags.apply(value), ttl);
+                    }
+                });
+            }, refreshAfter, loader);
     }
     
     /**
      * Cache with sliding expiration
      */
     public void cacheWithSlidingExpiration(String key, Object data, Duration ttl) {
-        redisTemplate.opsForValue().set("sliding:" + key, data, ttl);
+        withRedis(() -> redisTemplate.opsForValue().set("sliding:" + key, data, ttl));
     }
     
     /**
      * Get cached data with sliding expiration
      */
     public Object getCachedDataWithSlidingExpiration(String key) {
-        return redisTemplate.opsForValue().get("sliding:" + key);
+        return cacheMetrics.recordLookup("sliding", CacheMetrics.TIER_REDIS, 
+            withRedis(() -> redisTemplate.opsForValue().get("sliding:" + key), null));
     }
     
     /**
-     * Clear all caches for a specific pattern
+     * Look up a cache region by name
      */
-    public void clearCachePattern(String pattern) {
-        Set<String> keys = redisTemplate.keys(pattern);
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
+    private Cache getCache(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            throw new IllegalArgumentException("Unknown cache: " + cacheName);
         }
+        return cache;
+    }
+    
+    /**
+     * Run a Redis call through the circuit breaker, returning the fallback if Redis is unavailable
+     */
+    private <T> T withRedis(Supplier<T> call, T fallback) {
+        return redisCircuitBreaker.execute(call, () -> fallback);
     }
     
     /**
-     * Clear all caches
+     * Run a Redis call through the circuit breaker, returning whether it succeeded
+     */
+    private boolean withRedis(Runnable call) {
+        return redisCircuitBreaker.run(call);
+    }
+    
+    /**
+     * Run a bulk Redis operation through the circuit breaker without the slow-call rule
+     */
+    private <T> T withRedisBulk(Supplier<T> call, T fallback) {
+        return redisCircuitBreaker.executeBulk(call, () -> fallback);
+    }
+    
+    /**
+     * Run a bulk Redis operation through the circuit breaker without the slow-call rule, returning whether it succeeded
+     */
+    private boolean withRedisBulk(Runnable call) {
+        return redisCircuitBreaker.runBulk(call);
+    }
+    
+    /**
+     * Read a key of a namespace, loading a missing value once per key and caching it with the given TTL and optional tags
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T readThrough(String namespace, String namespaceKey, Duration ttl, Callable<T> loader,
+                              Function<? super T, ? extends Collection<String>> tags) {
+        String key = withRedis(() -> cacheInvalidator.namespacedKey(namespace, namespaceKey), null);
+        if (key == null) {
+            // Redis is unavailable: concurrent misses still share one load, but nothing is cached
+            cacheMetrics.recordMiss(namespace);
+            return load(namespace, namespace + ":" + namespaceKey, loader);
+        }
+        
+        Object cached = withRedis(() -> redisTemplate.opsForValue().get(key), null);
+        if (cached != null) {
+            cacheMetrics.recordHit(namespace, CacheMetrics.TIER_REDIS);
+            return (T) cached;
+        }
+        cacheMetrics.recordMiss(namespace);
+        
+        try {
+            return redisLoads.execute(key, () -> {
+                // A load that finished just before this one started may already have filled the key
+                Object loaded = withRedis(() -> redisTemplate.opsForValue().get(key), null);
+                if (loaded != null) {
+                    return (T) loaded;
+                }
+                
+                long start = System.nanoTime();
+                T value = loader.call();
+                cacheMetrics.recordLoad(namespace, System.nanoTime() - start);
+                if (value != null) {
+                    withRedis(() -> {
+                        redisTemplate.opsForValue().set(key, value, ttl);
+                        if (tags != null) {
+                            cacheInvalidator.tag(key, tags.apply(value), ttl);
+                        }
+                    });
+                }
+                return value;
+            });
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to load cached value for " + key, e);
+        }
+    }
+    
+    /**
+     * Load a value without caching it, once per key across concurrent callers
+     */
+    private <T> T load(String namespace, String flightKey, Callable<T> loader) {
+        try {
+            return redisLoads.execute(flightKey, () -> {
+                long start = System.nanoTime();
+                T value = loader.call();
+                cacheMetrics.recordLoad(namespace, System.nanoTime() - start);
+                return value;
+            });
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to load value for " + flightKey, e);
+        }
+    }
+    
+    /**
+     * Serve a refresh-ahead entry, scheduling a background refresh when it is due, or load it on a miss
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T refreshAhead(String region, String flightKey, Supplier<Object> reader, 
+                               Consumer<RefreshAheadEntry> writer, Duration refreshAfter, Callable<T> loader) {
+        Object cached = reader.get();
+        if (cached instanceof RefreshAheadEntry entry) {
+            if (entry.shouldRefresh(System.currentTimeMillis(), refreshBeta)) {
+                cacheRefreshExecutor.execute(() -> {
+                    try {
+                        refresh(region, flightKey, writer, refreshAfter, loader);
+                    } catch (Exception e) {
+                        // The current entry keeps being served until it expires
+                        logger.warn("Background refresh of {} failed: {}", flightKey, e.getMessage());
+                    }
+                });
+            }
+            return (T) entry.value();
+        }
+        
+        try {
+            return refresh(region, flightKey, writer, refreshAfter, loader);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to load cached value for " + flightKey, e);
+        }
+    }
+    
+    /**
+     * Recompute a refresh-ahead entry once per key, recording how long it took
+     */
+    private <T> T refresh(String region, String flightKey, Consumer<RefreshAheadEntry> writer,
+                          Duration refreshAfter, Callable<T> loader) throws Exception {
+        return refreshes.execute(flightKey, () -> {
+            long start = System.nanoTime();
+            T value = loader.call();
+            long elapsed = System.nanoTime() - start;
+            cacheMetrics.recordLoad(region, elapsed);
+            if (value != null) {
+                writer.accept(new RefreshAheadEntry(value, TimeUnit.NANOSECONDS.toMillis(elapsed), 
+                    System.currentTimeMillis() + refreshAfter.toMillis()));
+            }
+            return value;
+        });
+    }
+    
+    /**
+     * Clear all caches for a specific pattern, scanning instead of blocking Redis with KEYS
+     */
+    public long clearCachePattern(String pattern) {
+        return withRedisBulk(() -> cacheInvalidator.deleteByPattern(pattern), 0L);
+    }
+    
+    /**
+     * Evict every cached result tagged with any of the given tags.
+     * Inside a transaction the eviction runs once the transaction commits, so a
+     * read that reloads the evicted results sees the committed data.
+     */
+    public void invalidateTags(Collection<String> tags) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateTagsNow(tags);
+                }
+            });
+        } else {
+            invalidateTagsNow(tags);
+        }
+    }
+    
+    /**
+     * Evict tagged results, falling back to invalidating whole namespaces once Redis recovers
+     */
+    private void invalidateTagsNow(Collection<String> tags) {
+        if (!withRedisBulk(() -> cacheInvalidator.invalidateTags(tags))) {
+            namespacesStale.set(true);
+        }
+    }
+    
+    /**
+     * Invalidate every entry of a read-through namespace in O(1)
+     */
+    public void invalidateNamespace(String namespace) {
+        if (!withRedis(() -> cacheInvalidator.invalidateNamespace(namespace))) {
+            namespacesStale.set(true);
+        }
+    }
+    
+    /**
+     * Clear all caches owned by this service, leaving sessions, rate limits and other data on the shared server
      */
     public void clearAllCaches() {
-        redisTemplate.getConnectionFactory().getConnection().flushAll();
+        // Cache regions are cleared by the cache writer's SCAN batch strategy
+        for (String cacheName : cacheManager.getCacheNames()) {
+            getCache(cacheName).clear();
+        }
+        
+        invalidateNamespace(PAGINATED_NAMESPACE);
+        invalidateNamespace(SEARCH_NAMESPACE);
+        invalidateNamespace(FREQUENT_NAMESPACE);
+        
+        for (String pattern : CACHED_KEY_PATTERNS) {
+            clearCachePattern(pattern);
+        }
     }
     
     /**
-     * Get cache statistics
+     * Get cache statistics: per-region statistics ranked by benefit, and Redis memory usage
      */
-    public Object getCacheStatistics() {
-        return redisTemplate.getConnectionFactory().getConnection().info("memory");
+    public Map<String, Object> getCacheStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("regions", cacheMetrics.getRegionStatistics());
+        Object redisMemory = withRedisBulk(() -> {
+            try (RedisConnection connection = redisTemplate.getConnectionFactory().getConnection()) {
+                return connection.serverCommands().info("memory");
+            }
+        }, null);
+        if (redisMemory != null) {
+            statistics.put("redisMemory", redisMemory);
+        }
+        return statistics;
     }
 }
 
@@ -0,0 +1,176 @@
+package com.stripeflow.service;
+
+import com.stripeflow.cache.CachedCharge;
+import com.stripeflow.cache.CachedCustomer;
+import com.stripeflow.cache.HotKeyTracker;
+import com.stripeflow.model.Charge;
+import com.stripeflow.model.Customer;
+import com.stripeflow.repository.ChargeRepository;
+import com.stripeflow.repository.CustomerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Preloads the hottest cache keys recorded by the cluster before the node reports ready.
+ *
+ * Runs as an application runner, so Spring Boot marks the node ready only after
+ * it finishes. Keys are warmed in parallel bounded batches through the regular
+ * multi-get path: values still in Redis fill the in-process tier, and the rest
+ * are loaded from the database with one query per batch. Warm-up reads are
+ * not counted as reads of the keys, so they don't feed back into the hot set.
+ */
+@Service
+public class CacheWarmupService implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmupService.class);
+    
+    @Autowired
+    private HotKeyTracker hotKeyTracker;
+    
+    @Autowired
+    private CacheService cacheService;
+    
+    @Autowired
+    private CustomerRepository customerRepository;
+    
+    @Autowired
+    private ChargeRepository chargeRepository;
+    
+    @Value("${api.cache.warmup.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${api.cache.warmup.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${api.cache.warmup.parallelism:4}")
+    private int parallelism;
+    
+    @Value("${api.cache.warmup.max-duration-ms:30000}")
+    private long maxDurationMillis;
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            warmUp();
+        }
+    }
+    
+    /**
+     * Preload the persisted hot keys of every tracked region, returning the number of keys warmed
+     */
+    public int warmUp() {
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        List<Future<Integer>> batches = new ArrayList<>();
+        
+        try {
+            for (String region : hotKeyTracker.getTrackedRegions()) {
+                List<String> hotKeys;
+                try {
+                    hotKeys = hotKeyTracker.loadPersistedHotKeys(region);
+                } catch (Exception e) {
+                    logger.warn("Skipping cache warm-up of {}: {}", region, e.getMessage());
+                    continue;
+                }
+                
+                List<Long> ids = parseIds(hotKeys);
+                for (int i = 0; i < ids.size(); i += batchSize) {
+                    List<Long> batch = ids.subList(i, Math.min(i + batchSize, ids.size()));
+                    batches.add(executor.submit(() -> warmBatch(region, batch)));
+                }
+            }
+            
+            int warmed = 0;
+            long deadline = start + maxDurationMillis;
+            for (Future<Integer> batch : batches) {
+                try {
+                    warmed += batch.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // Out of time; start serving and let the remaining keys load on demand
+                    batch.cancel(true);
+                } catch (ExecutionException e) {
+                    logger.warn("Cache warm-up batch failed: {}", e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            
+            logger.info("Warmed {} hot cache keys in {} batches in {} ms", 
+                warmed, batches.size(), System.currentTimeMillis() - start);
+            return warmed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Warm one batch of keys of a region
+     */
+    private int warmBatch(String region, List<Long> ids) {
+        return hotKeyTracker.withoutRecording(() -> loadBatch(region, ids));
+    }
+    
+    /**
+     * Read one batch of keys of a region through the cache
+     */
+    private int loadBatch(String region, List<Long> ids) {
+        switch (region) {
+            case "customers":
+                return cacheService.getAll(region, ids, CachedCustomer.class, this::loadCustomers).size();
+            case "charges":
+                return cacheService.getAll(region, ids, CachedCharge.class, this::loadCharges).size();
+            default:
+                logger.debug("No warm-up loader for cache {}", region);
+                return 0;
+        }
+    }
+    
+    /**
+     * Load customers by ID with a single query
+     */
+    private Map<Long, CachedCustomer> loadCustomers(Collection<Long> ids) {
+        return customerRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Customer::getId, CachedCustomer::from));
+    }
+    
+    /**
+     * Load charges and their customers by ID with a single query
+     */
+    private Map<Long, CachedCharge> loadCharges(Collection<Long> ids) {
+        return chargeRepository.findAllWithCustomerByIdIn(ids).stream()
+            .collect(Collectors.toMap(Charge::getId, CachedCharge::from));
+    }
+    
+    /**
+     * Parse hot keys into entity IDs, skipping keys that are not IDs
+     */
+    private static List<Long> parseIds(List<String> keys) {
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            try {
+                ids.add(Long.parseLong(key));
+            } catch (NumberFormatException e) {
+                logger.debug("Skipping non-numeric hot key {}", key);
+            }
+        }
+        return ids;
+    }
+}
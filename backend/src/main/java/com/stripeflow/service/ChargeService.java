@@ -6,7 +6,11 @@ import com.stripeflow.model.Charge;
 import com.stripeflow.model.Customer;
 import com.stripeflow.repository.ChargeRepository;
 import com.stripeflow.repository.CustomerRepository;
+import com.stripeflow.util.EntityStreams;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -16,7 +20,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service class for charge operations
@@ -31,6 +37,13 @@ public class ChargeService {
     @Autowired
     private CustomerRepository customerRepository;
     
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    // Days covered by recent listings; 0 lists every charge
+    @Value("${api.partitioning.recent-days:0}")
+    private int recentDays;
+    
     /**
      * Create a new charge
      */
@@ -126,12 +139,28 @@ public class ChargeService {
     }
     
     /**
-     * Get recent charges
+     * Get the most recent charges, newest first; with api.partitioning.recent-days set, only
+     * those created within that many days, so the page and its count read only the latest partitions
      */
     @Transactional(readOnly = true)
     public Page<ChargeResponse> getRecentCharges(Pageable pageable) {
-        return chargeRepository.findRecentCharges(pageable)
-            .map(ChargeResponse::new);
+        Page<Charge> charges = recentDays > 0
+            ? chargeRepository.findRecentCharges(LocalDateTime.now().minusDays(recentDays), pageable)
+            : chargeRepository.findRecentCharges(pageable);
+        return charges.map(ChargeResponse::new);
+    }
+    
+    /**
+     * Pass every charge created within a date range to a consumer, for reports and exports.
+     * Charges are read through a cursor and not collected, so any range runs in constant memory.
+     */
+    @Transactional(readOnly = true)
+    public void forEachChargeCreatedBetween(LocalDateTime startDate, LocalDateTime endDate,
+                                            Consumer<ChargeResponse> consumer) {
+        try (Stream<Charge> charges = chargeRepository.streamChargesCreatedBetween(startDate, endDate)) {
+            EntityStreams.mapClearing(charges, entityManager, EntityStreams.CLEAR_INTERVAL, ChargeResponse::new)
+                .forEach(consumer);
+        }
     }
     
     /**
@@ -1,5 +1,9 @@
 package com.stripeflow.service;
 
+import com.stripeflow.cache.CachedCharge;
+import com.stripeflow.cache.CachedChargePage;
+import com.stripeflow.cache.CachedChargeStatistics;
+import com.stripeflow.cache.CachedCustomer;
 import com.stripeflow.dto.ChargeResponse;
 import com.stripeflow.dto.CreateChargeRequest;
 import com.stripeflow.model.Charge;
@@ -8,15 +12,18 @@ import com.stripeflow.repository.ChargeRepository;
 import com.stripeflow.repository.CustomerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
@@ -39,22 +46,29 @@ public class OptimizedChargeService {
     @Autowired
     private WebhookService webhookService;
     
+    // Cached charge result sets are tagged with what they depend on, so writes evict exactly those
+    private static final Duration RESULTS_TTL = Duration.ofMinutes(30);
+    private static final Duration RECENT_REFRESH = Duration.ofMinutes(5);
+    private static final Duration STATISTICS_REFRESH = Duration.ofMinutes(2);
+    private static final String ALL_CHARGES_TAG = "charges:all";
+    private static final String NEW_CHARGES_TAG = "charges:new";
+    
     /**
      * Create charge with optimized processing
      */
     @Transactional
     public ChargeResponse createCharge(CreateChargeRequest request) {
         // Validate customer exists (with cache)
-        Customer customer = getCachedCustomer(request.getCustomerId());
+        CachedCustomer customer = getCachedCustomer(request.getCustomerId());
         if (customer == null) {
             throw new IllegalArgumentException("Customer not found");
         }
         
-        // Create charge entity
+        // Create charge entity; the customer is only referenced, not loaded
         Charge charge = new Charge();
         charge.setAmount(request.getAmount());
         charge.setCurrency(request.getCurrency());
-        charge.setCustomer(customer);
+        charge.setCustomer(customerRepository.getReferenceById(customer.id()));
         charge.setPaymentMethod(request.getPaymentMethod());
         charge.setDescription(request.getDescription());
         charge.setMetadata(request.getMetadata());
@@ -66,22 +80,28 @@ public class OptimizedChargeService {
         Charge savedCharge = chargeRepository.save(charge);
         
         // Cache the charge
-        cacheService.cacheCharge(savedCharge.getId(), savedCharge);
+        CachedCharge cachedCharge = CachedCharge.from(savedCharge, customer);
+        cacheService.cacheCharge(savedCharge.getId(), cachedCharge);
+        
+        // New charges can appear in any unfiltered, recent or search result
+        cacheService.invalidateTags(chargeTags(savedCharge, null, true));
         
         // Process payment asynchronously
         processPaymentAsync(savedCharge);
         
-        return new ChargeResponse(savedCharge);
+        return cachedCharge.toResponse();
     }
     
     /**
      * Get charge with cache optimization
      */
-    @Cacheable(value = "charges", key = "#id")
     public ChargeResponse getCharge(Long id) {
-        Charge charge = chargeRepository.findById(id)
-            .orElseThrow(() -> new IllegalArgumentException("Charge not found"));
-        return new ChargeResponse(charge);
+        CachedCharge charge = cacheService.get("charges", id, CachedCharge.class,
+            () -> chargeRepository.findById(id).map(CachedCharge::from).orElse(null));
+        if (charge == null) {
+            throw new IllegalArgumentException("Charge not found");
+        }
+        return charge.toResponse();
     }
     
     /**
@@ -89,14 +109,65 @@ public class OptimizedChargeService {
      */
     public Page<ChargeResponse> getCharges(Pageable pageable, String status, String currency, Long customerId) {
         // Try cache first for common queries
-        String cacheKey = String.format("charges:%d:%s:%s:%d", 
-            pageable.getPageNumber(), status, currency, customerId);
+        String cacheKey = String.format("charges:%d:%d:%s:%s:%s:%d", 
+            pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort(), status, currency, customerId);
         
-        Object cachedResult = cacheService.getCachedPaginatedResults(cacheKey);
-        if (cachedResult != null) {
-            return (Page<ChargeResponse>) cachedResult;
+        // Concurrent misses share one query; the page is evicted by writes to the charges it filters on
+        CachedChargePage page = cacheService.getOrLoadPaginatedResults(cacheKey, RESULTS_TTL, 
+            loaded -> List.of(pageTag(status, customerId)),
+            () -> CachedChargePage.from(loadCharges(pageable, status, currency, customerId)));
+        return page.toPage(pageable);
+    }
+    
+    /**
+     * Tag of a page of charges, matching the filter the page's query applies first
+     */
+    private static String pageTag(String status, Long customerId) {
+        if (customerId != null) {
+            return "charges:customer:" + customerId;
         }
-        
+        if (status != null) {
+            return "charges:status:" + status;
+        }
+        return ALL_CHARGES_TAG;
+    }
+    
+    /**
+     * Tags of the cached results a write to a charge affects
+     */
+    private static List<String> chargeTags(Charge charge, Charge.ChargeStatus previousStatus, boolean created) {
+        List<String> tags = new ArrayList<>();
+        tags.add(ALL_CHARGES_TAG);
+        tags.add("charge:" + charge.getId());
+        tags.add("charges:status:" + charge.getStatus().name());
+        if (previousStatus != null && previousStatus != charge.getStatus()) {
+            tags.add("charges:status:" + previousStatus.name());
+        }
+        if (charge.getCustomer() != null) {
+            tags.add("charges:customer:" + charge.getCustomer().getId());
+        }
+        if (created) {
+            tags.add(NEW_CHARGES_TAG);
+        }
+        return tags;
+    }
+    
+    /**
+     * Tags of a cached list of charges: each charge in it, plus new charges that may join it
+     */
+    private static List<String> listTags(List<ChargeResponse> charges) {
+        List<String> tags = new ArrayList<>();
+        tags.add(NEW_CHARGES_TAG);
+        for (ChargeResponse charge : charges) {
+            tags.add("charge:" + charge.getId());
+        }
+        return tags;
+    }
+    
+    /**
+     * Load a page of charges from the database
+     */
+    private Page<ChargeResponse> loadCharges(Pageable pageable, String status, String currency, Long customerId) {
         // Execute optimized query
         Page<Charge> charges;
         if (customerId != null) {
@@ -110,12 +181,7 @@ public class OptimizedChargeService {
             charges = chargeRepository.findAll(pageable);
         }
         
-        Page<ChargeResponse> response = charges.map(ChargeResponse::new);
-        
-        // Cache the result
-        cacheService.cachePaginatedResults(cacheKey, response, java.time.Duration.ofMinutes(5));
-        
-        return response;
+        return charges.map(ChargeResponse::new);
     }
     
     /**
@@ -126,10 +192,12 @@ public class OptimizedChargeService {
         Charge charge = chargeRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Charge not found"));
         
+        Charge.ChargeStatus previousStatus = charge.getStatus();
         charge.setStatus(Charge.ChargeStatus.valueOf(status));
         charge.setUpdatedAt(LocalDateTime.now());
         
         Charge updatedCharge = chargeRepository.save(charge);
+        cacheService.invalidateTags(chargeTags(updatedCharge, previousStatus, false));
         
         // Publish webhook event asynchronously
         publishChargeEventAsync(updatedCharge);
@@ -138,31 +206,33 @@ public class OptimizedChargeService {
     }
     
     /**
-     * Get charge statistics with caching
+     * Get daily charge statistics of the last 30 days with caching.
+     * Read from mv_charge_statistics, so they lag by up to one view refresh.
      */
-    @Cacheable(value = "statistics", key = "'charge_stats'")
-    public Object getChargeStatistics() {
-        // Use materialized view for better performance
-        return chargeRepository.getChargeStatistics();
+    @Transactional(readOnly = true)
+    public List<CachedChargeStatistics> getChargeStatistics() {
+        // Refreshed ahead of the region's 5 minute TTL
+        return cacheService.getOrRefresh("statistics", "charge_stats", STATISTICS_REFRESH, 
+            () -> chargeRepository.getChargeStatistics().stream()
+                .map(CachedChargeStatistics::from)
+                .collect(Collectors.toList()));
     }
     
     /**
      * Get cached customer with fallback
      */
-    private Customer getCachedCustomer(Long customerId) {
-        // Try cache first
-        Object cachedCustomer = cacheService.getCachedCustomer(customerId);
-        if (cachedCustomer != null) {
-            return (Customer) cachedCustomer;
-        }
-        
-        // Fallback to database
-        Customer customer = customerRepository.findById(customerId).orElse(null);
-        if (customer != null) {
-            cacheService.cacheCustomer(customerId, customer);
-        }
-        
-        return customer;
+    private CachedCustomer getCachedCustomer(Long customerId) {
+        // Try cache first, falling back to a single database load per key
+        return cacheService.get("customers", customerId, CachedCustomer.class,
+            () -> customerRepository.findById(customerId).map(CachedCustomer::from).orElse(null));
+    }
+    
+    /**
+     * Load customers by ID with a single query
+     */
+    private Map<Long, CachedCustomer> loadCustomers(Collection<Long> customerIds) {
+        return customerRepository.findAllById(customerIds).stream()
+            .collect(Collectors.toMap(Customer::getId, CachedCustomer::from));
     }
     
     /**
@@ -175,21 +245,27 @@ public class OptimizedChargeService {
             Thread.sleep(50); // Simulate 50ms processing time
             
             // Update charge status
+            Charge.ChargeStatus previousStatus = charge.getStatus();
             charge.setStatus(Charge.ChargeStatus.SUCCEEDED);
             charge.setUpdatedAt(LocalDateTime.now());
             chargeRepository.save(charge);
+            cacheService.invalidateTags(chargeTags(charge, previousStatus, false));
             
-            // Cache the updated charge
-            cacheService.cacheCharge(charge.getId(), charge);
+            // Cache the updated charge, taking the customer from the cache rather than the association
+            cacheService.cacheCharge(charge.getId(), 
+                CachedCharge.from(charge, getCachedCustomer(charge.getCustomer().getId())));
             
             // Publish webhook event
             webhookService.publishEvent("charge.succeeded", charge);
             
         } catch (Exception e) {
             // Handle payment failure
+            Charge.ChargeStatus previousStatus = charge.getStatus();
             charge.setStatus(Charge.ChargeStatus.FAILED);
             charge.setUpdatedAt(LocalDateTime.now());
             chargeRepository.save(charge);
+            cacheService.invalidateTags(chargeTags(charge, previousStatus, false));
+            cacheService.evictCharge(charge.getId());
             
             // Publish webhook event
             webhookService.publishEvent("charge.failed", charge);
@@ -215,6 +291,13 @@ public class OptimizedChargeService {
      */
     @Async("paymentExecutor")
     public CompletableFuture<List<ChargeResponse>> processBatchCharges(List<CreateChargeRequest> requests) {
+        // Warm the customer cache for the whole batch in one multi-get and one query for the misses
+        List<Long> customerIds = requests.stream()
+            .map(CreateChargeRequest::getCustomerId)
+            .distinct()
+            .collect(Collectors.toList());
+        cacheService.getAll("customers", customerIds, CachedCustomer.class, this::loadCustomers);
+        
         List<ChargeResponse> responses = requests.parallelStream()
             .map(this::createCharge)
             .collect(Collectors.toList());
@@ -227,21 +310,12 @@ public class OptimizedChargeService {
      */
     public List<ChargeResponse> getRecentCharges(int limit) {
         String cacheKey = "recent_charges:" + limit;
-        Object cachedResult = cacheService.getCachedFrequentData(cacheKey);
-        
-        if (cachedResult != null) {
-            return (List<ChargeResponse>) cachedResult;
-        }
-        
-        List<Charge> charges = chargeRepository.findTop10ByOrderByCreatedAtDesc();
-        List<ChargeResponse> response = charges.stream()
-            .map(ChargeResponse::new)
-            .collect(Collectors.toList());
         
-        // Cache for 1 minute
-        cacheService.cacheFrequentData(cacheKey, response, java.time.Duration.ofMinutes(1));
-        
-        return response;
+        // Refreshed ahead while hot; evicted by new charges and by writes to any listed charge
+        return cacheService.getOrRefreshFrequentData(cacheKey, RECENT_REFRESH, OptimizedChargeService::listTags,
+            () -> chargeRepository.findTop10ByOrderByCreatedAtDesc().stream()
+                .map(ChargeResponse::new)
+                .collect(Collectors.toList()));
     }
     
     /**
@@ -249,22 +323,12 @@ public class OptimizedChargeService {
      */
     public List<ChargeResponse> searchCharges(String searchTerm, int limit) {
         String cacheKey = "search_charges:" + searchTerm + ":" + limit;
-        Object cachedResult = cacheService.getCachedSearchResults(cacheKey);
-        
-        if (cachedResult != null) {
-            return (List<ChargeResponse>) cachedResult;
-        }
-        
-        // Use database function for optimized search
-        List<Charge> charges = chargeRepository.searchCharges(searchTerm, limit);
-        List<ChargeResponse> response = charges.stream()
-            .map(ChargeResponse::new)
-            .collect(Collectors.toList());
-        
-        // Cache search results for 5 minutes
-        cacheService.cacheSearchResults(cacheKey, response, java.time.Duration.ofMinutes(5));
         
-        return response;
+        // Use database function for optimized search; evicted by new charges and by writes to any result
+        return cacheService.getOrLoadSearchResults(cacheKey, RESULTS_TTL, OptimizedChargeService::listTags,
+            () -> chargeRepository.searchCharges(searchTerm, limit).stream()
+                .map(ChargeResponse::new)
+                .collect(Collectors.toList()));
     }
 }
 
@@ -0,0 +1,41 @@
+package com.stripeflow.service;
+
+import com.stripeflow.repository.ChargeRepository;
+import com.stripeflow.repository.RefundRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service keeping the monthly partitions of charges and refunds ahead of time
+ */
+@Service
+public class PartitionMaintenanceService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+    
+    @Autowired
+    private ChargeRepository chargeRepository;
+    
+    @Autowired
+    private RefundRepository refundRepository;
+    
+    @Value("${api.partitioning.months-ahead:3}")
+    private int monthsAhead;
+    
+    /**
+     * Create the partitions of the coming months that do not exist yet, returning how many were created
+     */
+    @Transactional
+    public int ensurePartitions() {
+        int created = chargeRepository.ensureMonthlyPartitions(monthsAhead)
+            + refundRepository.ensureMonthlyPartitions(monthsAhead);
+        if (created > 0) {
+            logger.info("Created {} monthly partitions for charges and refunds", created);
+        }
+        return created;
+    }
+}
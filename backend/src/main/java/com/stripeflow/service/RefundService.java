@@ -7,6 +7,7 @@ import com.stripeflow.model.Refund;
 import com.stripeflow.repository.ChargeRepository;
 import com.stripeflow.repository.RefundRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -30,6 +31,10 @@ public class RefundService {
     @Autowired
     private ChargeRepository chargeRepository;
     
+    // Days covered by recent listings; 0 lists every refund
+    @Value("${api.partitioning.recent-days:0}")
+    private int recentDays;
+    
     /**
      * Create a new refund
      */
@@ -112,12 +117,15 @@ public class RefundService {
     }
     
     /**
-     * Get recent refunds
+     * Get the most recent refunds, newest first; with api.partitioning.recent-days set, only
+     * those created within that many days, so the page and its count read only the latest partitions
      */
     @Transactional(readOnly = true)
     public Page<RefundResponse> getRecentRefunds(Pageable pageable) {
-        return refundRepository.findRecentRefunds(pageable)
-            .map(RefundResponse::new);
+        Page<Refund> refunds = recentDays > 0
+            ? refundRepository.findRecentRefunds(LocalDateTime.now().minusDays(recentDays), pageable)
+            : refundRepository.findRecentRefunds(pageable);
+        return refunds.map(RefundResponse::new);
     }
     
     /**
@@ -0,0 +1,199 @@
+package com.stripeflow.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory rolling-window delivery statistics per webhook endpoint.
+ * 
+ * Each endpoint keeps one bucket per minute of the window with success and
+ * failure counts and a latency histogram, so success rate and latency
+ * percentiles are computed without touching the webhook_events table.
+ */
+@Component
+public class WebhookDeliveryStats {
+    
+    private static final long BUCKET_MILLIS = 60_000L;
+    
+    // Upper bounds (ms) of the latency histogram buckets, growing ~25% per bucket up to 60s
+    private static final long[] LATENCY_BOUNDS = buildLatencyBounds(60_000L, 1.25);
+    
+    private final int windowMinutes;
+    
+    private final ConcurrentMap<Long, EndpointWindow> windows = new ConcurrentHashMap<>();
+    
+    public WebhookDeliveryStats(@Value("${api.webhook.statistics.window-minutes:15}") int windowMinutes) {
+        this.windowMinutes = windowMinutes;
+    }
+    
+    /**
+     * Record the outcome and latency of a delivery attempt
+     */
+    public void recordDelivery(Long endpointId, boolean success, long latencyMillis) {
+        recordDelivery(endpointId, success, latencyMillis, System.currentTimeMillis());
+    }
+    
+    void recordDelivery(Long endpointId, boolean success, long latencyMillis, long nowMillis) {
+        windows.computeIfAbsent(endpointId, id -> new EndpointWindow(windowMinutes))
+            .record(success, latencyMillis, nowMillis);
+    }
+    
+    /**
+     * Get the statistics for an endpoint over the rolling window
+     */
+    public Snapshot getSnapshot(Long endpointId) {
+        return getSnapshot(endpointId, System.currentTimeMillis());
+    }
+    
+    Snapshot getSnapshot(Long endpointId, long nowMillis) {
+        EndpointWindow window = windows.get(endpointId);
+        if (window == null) {
+            return new Snapshot(windowMinutes, 0, 0, 0, 0);
+        }
+        return window.snapshot(nowMillis);
+    }
+    
+    /**
+     * Drop the statistics of an endpoint, e.g. when it is deleted or recovers from quarantine
+     */
+    public void removeEndpoint(Long endpointId) {
+        windows.remove(endpointId);
+    }
+    
+    private static long[] buildLatencyBounds(long maxMillis, double growth) {
+        List<Long> bounds = new ArrayList<>();
+        long bound = 1;
+        while (bound < maxMillis) {
+            bounds.add(bound);
+            bound = Math.max(bound + 1, (long) Math.ceil(bound * growth));
+        }
+        bounds.add(maxMillis);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+    
+    private static int latencyBucket(long latencyMillis) {
+        for (int i = 0; i < LATENCY_BOUNDS.length; i++) {
+            if (latencyMillis <= LATENCY_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return LATENCY_BOUNDS.length - 1;
+    }
+    
+    /**
+     * Ring of per-minute buckets for a single endpoint
+     */
+    private static class EndpointWindow {
+        private final int windowMinutes;
+        private final long[] bucketMinute;
+        private final long[] successes;
+        private final long[] failures;
+        private final long[][] latencies;
+        
+        EndpointWindow(int windowMinutes) {
+            this.windowMinutes = windowMinutes;
+            this.bucketMinute = new long[windowMinutes];
+            this.successes = new long[windowMinutes];
+            this.failures = new long[windowMinutes];
+            this.latencies = new long[windowMinutes][LATENCY_BOUNDS.length];
+            Arrays.fill(bucketMinute, -1);
+        }
+        
+        synchronized void record(boolean success, long latencyMillis, long nowMillis) {
+            long minute = nowMillis / BUCKET_MILLIS;
+            int slot = (int) (minute % windowMinutes);
+            if (bucketMinute[slot] != minute) {
+                // Slot still holds a minute that fell out of the window
+                bucketMinute[slot] = minute;
+                successes[slot] = 0;
+                failures[slot] = 0;
+                Arrays.fill(latencies[slot], 0);
+            }
+            
+            if (success) {
+                successes[slot]++;
+            } else {
+                failures[slot]++;
+            }
+            latencies[slot][latencyBucket(latencyMillis)]++;
+        }
+        
+        synchronized Snapshot snapshot(long nowMillis) {
+            long oldestMinute = nowMillis / BUCKET_MILLIS - windowMinutes + 1;
+            long totalSuccesses = 0;
+            long totalFailures = 0;
+            long[] histogram = new long[LATENCY_BOUNDS.length];
+            
+            for (int slot = 0; slot < windowMinutes; slot++) {
+                if (bucketMinute[slot] < oldestMinute) {
+                    continue;
+                }
+                totalSuccesses += successes[slot];
+                totalFailures += failures[slot];
+                for (int i = 0; i < histogram.length; i++) {
+                    histogram[i] += latencies[slot][i];
+                }
+            }
+            
+            return new Snapshot(windowMinutes, totalSuccesses, totalFailures,
+                percentile(histogram, 0.50), percentile(histogram, 0.99));
+        }
+        
+        private static long percentile(long[] histogram, double quantile) {
+            long total = 0;
+            for (long count : histogram) {
+                total += count;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            
+            long rank = (long) Math.ceil(quantile * total);
+            long cumulative = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                cumulative += histogram[i];
+                if (cumulative >= rank) {
+                    return LATENCY_BOUNDS[i];
+                }
+            }
+            return LATENCY_BOUNDS[LATENCY_BOUNDS.length - 1];
+        }
+    }
+    
+    /**
+     * Point-in-time statistics for one endpoint
+     */
+    public static class Snapshot {
+        private final int windowMinutes;
+        private final long successfulDeliveries;
+        private final long failedDeliveries;
+        private final long p50LatencyMillis;
+        private final long p99LatencyMillis;
+        
+        public Snapshot(int windowMinutes, long successfulDeliveries, long failedDeliveries,
+                        long p50LatencyMillis, long p99LatencyMillis) {
+            this.windowMinutes = windowMinutes;
+            this.successfulDeliveries = successfulDeliveries;
+            this.failedDeliveries = failedDeliveries;
+            this.p50LatencyMillis = p50LatencyMillis;
+            this.p99LatencyMillis = p99LatencyMillis;
+        }
+        
+        public int getWindowMinutes() { return windowMinutes; }
+        public long getSuccessfulDeliveries() { return successfulDeliveries; }
+        public long getFailedDeliveries() { return failedDeliveries; }
+        public long getAttempts() { return successfulDeliveries + failedDeliveries; }
+        public long getP50LatencyMillis() { return p50LatencyMillis; }
+        public long getP99LatencyMillis() { return p99LatencyMillis; }
+        public double getSuccessRate() {
+            long attempts = getAttempts();
+            return attempts > 0 ? (double) successfulDeliveries / attempts * 100 : 0;
+        }
+    }
+}
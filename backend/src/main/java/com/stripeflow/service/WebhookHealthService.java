@@ -0,0 +1,127 @@
+package com.stripeflow.service;
+
+import com.stripeflow.model.WebhookEndpoint;
+import com.stripeflow.repository.WebhookEndpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service for scoring webhook endpoint health and quarantining dead endpoints
+ */
+@Service
+@Transactional
+public class WebhookHealthService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookHealthService.class);
+
+    private static final double SUCCESS_WEIGHT = 0.8;
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    @Autowired
+    private WebhookEndpointRepository webhookEndpointRepository;
+
+    @Autowired
+    private WebhookDeliveryStats webhookDeliveryStats;
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Value("${api.webhook.health.quarantine-threshold:0.25}")
+    private double quarantineThreshold = 0.25;
+
+    @Value("${api.webhook.health.min-attempts:20}")
+    private long minAttempts = 20;
+
+    @Value("${api.webhook.health.latency-target-ms:2000}")
+    private long latencyTargetMillis = 2000;
+
+    /**
+     * Calculate a health score between 0 and 1 from the rolling success rate and p99 latency.
+     * Latency only counts in proportion to the success rate, so a fast endpoint that mostly
+     * fails still scores low.
+     */
+    public double calculateHealthScore(WebhookDeliveryStats.Snapshot snapshot) {
+        if (snapshot.getAttempts() == 0) {
+            return 1.0;
+        }
+
+        double successFactor = snapshot.getSuccessRate() / 100.0;
+        double latencyFactor = snapshot.getP99LatencyMillis() <= latencyTargetMillis
+            ? 1.0
+            : (double) latencyTargetMillis / snapshot.getP99LatencyMillis();
+
+        return successFactor * (SUCCESS_WEIGHT + LATENCY_WEIGHT * latencyFactor);
+    }
+
+    /**
+     * Quarantine enabled endpoints whose health score fell below the threshold
+     */
+    public int quarantineUnhealthyEndpoints() {
+        int quarantined = 0;
+
+        for (WebhookEndpoint endpoint : webhookEndpointRepository.findByEnabledTrueAndQuarantined(false)) {
+            WebhookDeliveryStats.Snapshot snapshot = webhookDeliveryStats.getSnapshot(endpoint.getId());
+
+            // Too few attempts in the window to judge the endpoint
+            if (snapshot.getAttempts() < minAttempts) {
+                continue;
+            }
+
+            double score = calculateHealthScore(snapshot);
+            if (score >= quarantineThreshold) {
+                continue;
+            }
+
+            // Targeted update, so concurrent changes to the endpoint's other columns survive
+            if (webhookEndpointRepository.quarantine(endpoint.getId(), LocalDateTime.now()) > 0) {
+                quarantined++;
+
+                logger.warn("Quarantined webhook endpoint {} with health score {} ({}% success over {} attempts)",
+                    endpoint.getUrl(), String.format("%.2f", score),
+                    String.format("%.1f", snapshot.getSuccessRate()), snapshot.getAttempts());
+            }
+        }
+
+        return quarantined;
+    }
+
+    /**
+     * Probe each quarantined endpoint with a synthetic ping and release it on success.
+     * Runs outside a transaction: the HTTP calls hold no connection, and the endpoint
+     * columns are updated by targeted statements.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int probeQuarantinedEndpoints() {
+        int released = 0;
+        List<WebhookEndpoint> endpoints = webhookEndpointRepository.findByEnabledTrueAndQuarantined(true);
+
+        for (WebhookEndpoint endpoint : endpoints) {
+            boolean healthy = webhookService.sendProbe(endpoint);
+            LocalDateTime probedAt = LocalDateTime.now();
+
+            if (healthy) {
+                webhookEndpointRepository.releaseQuarantine(endpoint.getId(), probedAt);
+
+                // Start from a clean window so old failures do not quarantine it again;
+                // the retry scheduler then drains its backlog
+                webhookDeliveryStats.removeEndpoint(endpoint.getId());
+                released++;
+
+                logger.info("Released webhook endpoint {} from quarantine", endpoint.getUrl());
+            } else {
+                webhookEndpointRepository.recordProbe(endpoint.getId(), probedAt);
+                logger.info("Webhook endpoint {} is still unhealthy, keeping it quarantined", endpoint.getUrl());
+            }
+        }
+
+        return released;
+    }
+}
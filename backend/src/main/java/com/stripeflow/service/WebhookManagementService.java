@@ -13,6 +13,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -29,6 +30,12 @@ public class WebhookManagementService {
     @Autowired
     private WebhookEventRepository webhookEventRepository;
     
+    @Autowired
+    private WebhookDeliveryStats webhookDeliveryStats;
+    
+    @Autowired
+    private WebhookHealthService webhookHealthService;
+    
     /**
      * Create a new webhook endpoint
      */
@@ -43,6 +50,8 @@ public class WebhookManagementService {
         endpoint.setSecret(request.getSecret());
         endpoint.setEnabled(request.getEnabled());
         endpoint.setDescription(request.getDescription());
+        endpoint.setCoalesceEvents(Boolean.TRUE.equals(request.getCoalesceEvents()));
+        endpoint.setAcceptGzip(Boolean.TRUE.equals(request.getAcceptGzip()));
         
         WebhookEndpoint savedEndpoint = webhookEndpointRepository.save(endpoint);
         return new WebhookEndpointResponse(savedEndpoint);
@@ -93,6 +102,8 @@ public class WebhookManagementService {
         endpoint.setSecret(request.getSecret());
         endpoint.setEnabled(request.getEnabled());
         endpoint.setDescription(request.getDescription());
+        endpoint.setCoalesceEvents(Boolean.TRUE.equals(request.getCoalesceEvents()));
+        endpoint.setAcceptGzip(Boolean.TRUE.equals(request.getAcceptGzip()));
         
         WebhookEndpoint updatedEndpoint = webhookEndpointRepository.save(endpoint);
         return new WebhookEndpointResponse(updatedEndpoint);
@@ -106,6 +117,7 @@ public class WebhookManagementService {
             throw new IllegalArgumentException("Webhook endpoint not found with ID: " + id);
         }
         webhookEndpointRepository.deleteById(id);
+        webhookDeliveryStats.removeEndpoint(id);
     }
     
     /**
@@ -116,6 +128,12 @@ public class WebhookManagementService {
             .orElseThrow(() -> new IllegalArgumentException("Webhook endpoint not found with ID: " + id));
         
         endpoint.setEnabled(enabled);
+        if (Boolean.TRUE.equals(enabled)) {
+            // Re-enabling by hand gives a quarantined endpoint a fresh start
+            endpoint.setQuarantined(false);
+            endpoint.setQuarantinedAt(null);
+            webhookDeliveryStats.removeEndpoint(id);
+        }
         WebhookEndpoint updatedEndpoint = webhookEndpointRepository.save(endpoint);
         return new WebhookEndpointResponse(updatedEndpoint);
     }
@@ -179,23 +197,82 @@ public class WebhookManagementService {
     }
     
     /**
-     * Get webhook statistics
+     * Get webhook statistics.
+     * Total, delivered and failed counts all come from the mv_webhook_statistics view and lag by up to
+     * one refresh; the response carries the first day the view covers, so clients don't read them as
+     * all-time totals. The pending backlog is read live and reported separately.
      */
     @Transactional(readOnly = true)
     public WebhookStatistics getWebhookStatistics() {
         long totalEndpoints = webhookEndpointRepository.count();
         long enabledEndpoints = webhookEndpointRepository.countEnabledEndpoints();
-        long totalEvents = webhookEventRepository.count();
-        long pendingEvents = webhookEventRepository.countEventsByStatus(WebhookEvent.WebhookEventStatus.PENDING);
-        long deliveredEvents = webhookEventRepository.countEventsByStatus(WebhookEvent.WebhookEventStatus.DELIVERED);
-        long failedEvents = webhookEventRepository.countEventsByStatus(WebhookEvent.WebhookEventStatus.FAILED);
+        long pendingEvents = webhookEventRepository.countPendingEvents();
+        
+        long totalEvents = 0;
+        long deliveredEvents = 0;
+        long failedEvents = 0;
+        LocalDate eventsSince = null;
+        for (Object[] row : webhookEventRepository.summarizeStatusCountsFromView()) {
+            String status = (String) row[0];
+            long count = ((Number) row[1]).longValue();
+            LocalDate firstDate = toLocalDate(row[2]);
+            totalEvents += count;
+            if (WebhookEvent.WebhookEventStatus.DELIVERED.name().equals(status)) {
+                deliveredEvents = count;
+            } else if (WebhookEvent.WebhookEventStatus.FAILED.name().equals(status)) {
+                failedEvents = count;
+            }
+            if (firstDate != null && (eventsSince == null || firstDate.isBefore(eventsSince))) {
+                eventsSince = firstDate;
+            }
+        }
         
         return new WebhookStatistics(totalEndpoints, enabledEndpoints, totalEvents, 
-                                    pendingEvents, deliveredEvents, failedEvents);
+                                    pendingEvents, deliveredEvents, failedEvents, eventsSince);
+    }
+    
+    /**
+     * Get rolling-window delivery statistics for an endpoint.
+     * Success rate and latency come from in-memory counters, history from mv_webhook_statistics.
+     */
+    @Transactional(readOnly = true)
+    public EndpointStatistics getEndpointStatistics(Long endpointId) {
+        if (!webhookEndpointRepository.existsById(endpointId)) {
+            throw new IllegalArgumentException("Webhook endpoint not found with ID: " + endpointId);
+        }
+        
+        WebhookDeliveryStats.Snapshot snapshot = webhookDeliveryStats.getSnapshot(endpointId);
+        long backlog = webhookEventRepository.countPendingEventsByEndpoint(endpointId);
+        
+        long deliveredEvents = 0;
+        long failedEvents = 0;
+        double averageDeliverySeconds = 0;
+        for (Object[] row : webhookEventRepository.summarizeEndpointStatusCountsFromView(endpointId)) {
+            String status = (String) row[0];
+            long count = ((Number) row[1]).longValue();
+            if (WebhookEvent.WebhookEventStatus.DELIVERED.name().equals(status)) {
+                deliveredEvents = count;
+                averageDeliverySeconds = row[2] != null ? ((Number) row[2]).doubleValue() : 0;
+            } else if (WebhookEvent.WebhookEventStatus.FAILED.name().equals(status)) {
+                failedEvents = count;
+            }
+        }
+        
+        return new EndpointStatistics(endpointId, snapshot, webhookHealthService.calculateHealthScore(snapshot),
+                                      backlog, deliveredEvents, failedEvents, averageDeliverySeconds);
     }
     
     /**
-     * Webhook statistics inner class
+     * Convert a DATE column of a native query row, which the driver may return as java.sql.Date
+     */
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+    
+    /**
+     * Webhook statistics inner class.
+     * Event counts except pendingEvents cover the events created since eventsSince, as of the last
+     * refresh of mv_webhook_statistics; pendingEvents is the live backlog and is not part of totalEvents.
      */
     public static class WebhookStatistics {
         private final long totalEndpoints;
@@ -204,15 +281,18 @@ public class WebhookManagementService {
         private final long pendingEvents;
         private final long deliveredEvents;
         private final long failedEvents;
+        private final LocalDate eventsSince;
         
         public WebhookStatistics(long totalEndpoints, long enabledEndpoints, long totalEvents,
-                               long pendingEvents, long deliveredEvents, long failedEvents) {
+                               long pendingEvents, long deliveredEvents, long failedEvents,
+                               LocalDate eventsSince) {
             this.totalEndpoints = totalEndpoints;
             this.enabledEndpoints = enabledEndpoints;
             this.totalEvents = totalEvents;
             this.pendingEvents = pendingEvents;
             this.deliveredEvents = deliveredEvents;
             this.failedEvents = failedEvents;
+            this.eventsSince = eventsSince;
         }
         
         public long getTotalEndpoints() { return totalEndpoints; }
@@ -221,10 +301,56 @@ public class WebhookManagementService {
         public long getPendingEvents() { return pendingEvents; }
         public long getDeliveredEvents() { return deliveredEvents; }
         public long getFailedEvents() { return failedEvents; }
+        public LocalDate getEventsSince() { return eventsSince; }
         public double getDeliverySuccessRate() { 
             return totalEvents > 0 ? (double) deliveredEvents / totalEvents * 100 : 0; 
         }
     }
+    
+    /**
+     * Endpoint statistics inner class
+     */
+    public static class EndpointStatistics {
+        private final Long endpointId;
+        private final int windowMinutes;
+        private final long attempts;
+        private final double successRate;
+        private final long p50LatencyMillis;
+        private final long p99LatencyMillis;
+        private final double healthScore;
+        private final long backlog;
+        private final long deliveredEvents;
+        private final long failedEvents;
+        private final double averageDeliverySeconds;
+        
+        public EndpointStatistics(Long endpointId, WebhookDeliveryStats.Snapshot snapshot, double healthScore,
+                                  long backlog, long deliveredEvents, long failedEvents,
+                                  double averageDeliverySeconds) {
+            this.endpointId = endpointId;
+            this.windowMinutes = snapshot.getWindowMinutes();
+            this.attempts = snapshot.getAttempts();
+            this.successRate = snapshot.getSuccessRate();
+            this.p50LatencyMillis = snapshot.getP50LatencyMillis();
+            this.p99LatencyMillis = snapshot.getP99LatencyMillis();
+            this.healthScore = healthScore;
+            this.backlog = backlog;
+            this.deliveredEvents = deliveredEvents;
+            this.failedEvents = failedEvents;
+            this.averageDeliverySeconds = averageDeliverySeconds;
+        }
+        
+        public Long getEndpointId() { return endpointId; }
+        public int getWindowMinutes() { return windowMinutes; }
+        public long getAttempts() { return attempts; }
+        public double getSuccessRate() { return successRate; }
+        public long getP50LatencyMillis() { return p50LatencyMillis; }
+        public long getP99LatencyMillis() { return p99LatencyMillis; }
+        public double getHealthScore() { return healthScore; }
+        public long getBacklog() { return backlog; }
+        public long getDeliveredEvents() { return deliveredEvents; }
+        public long getFailedEvents() { return failedEvents; }
+        public double getAverageDeliverySeconds() { return averageDeliverySeconds; }
+    }
 }
 
 
@@ -0,0 +1,203 @@
+package com.stripeflow.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripeflow.model.WebhookEndpoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip compression of large webhook payloads.
+ *
+ * The event data is compressed once into its own gzip member and cached by
+ * content digest, so retries and every endpoint receiving the same event reuse
+ * it. Only the small per-attempt envelope (id, type, created, signature) is
+ * compressed on each attempt; the body is the concatenation of the members,
+ * which is a valid gzip stream (RFC 1952).
+ */
+@Component
+public class WebhookPayloadCompressor {
+    
+    private final ObjectMapper objectMapper;
+    private final int minSizeBytes;
+    private final long cacheMaxBytes;
+    
+    private final Map<String, byte[]> compressedData = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    
+    private final DistributionSummary compressionRatio;
+    private final Timer compressionCpuTime;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter bytesSaved;
+    
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    
+    public WebhookPayloadCompressor(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                    @Value("${api.webhook.compression.min-size-bytes:8192}") int minSizeBytes,
+                                    @Value("${api.webhook.compression.cache-max-bytes:16777216}") long cacheMaxBytes) {
+        this.objectMapper = objectMapper;
+        this.minSizeBytes = minSizeBytes;
+        this.cacheMaxBytes = cacheMaxBytes;
+        
+        this.compressionRatio = DistributionSummary.builder("stripeflow.webhooks.compression.ratio")
+            .description("Compressed size divided by uncompressed size of webhook payloads")
+            .register(meterRegistry);
+        this.compressionCpuTime = Timer.builder("stripeflow.webhooks.compression.cpu.time")
+            .description("CPU time spent compressing webhook event data")
+            .register(meterRegistry);
+        this.cacheHits = Counter.builder("stripeflow.webhooks.compression.cache")
+            .tag("result", "hit")
+            .description("Compressed webhook event data reused from the cache")
+            .register(meterRegistry);
+        this.cacheMisses = Counter.builder("stripeflow.webhooks.compression.cache")
+            .tag("result", "miss")
+            .description("Webhook event data compressed because it was not cached")
+            .register(meterRegistry);
+        this.bytesSaved = Counter.builder("stripeflow.webhooks.compression.bytes.saved")
+            .description("Bytes saved on the wire by compressing webhook payloads")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Check whether a payload should be sent gzip-compressed to an endpoint
+     */
+    public boolean shouldCompress(WebhookEndpoint endpoint, WebhookService.WebhookPayload payload) {
+        return Boolean.TRUE.equals(endpoint.getAcceptGzip())
+            && payload.getData() != null
+            && payload.getData().length() >= minSizeBytes;
+    }
+    
+    /**
+     * Build the gzip-compressed JSON body of a webhook payload
+     */
+    public byte[] compress(WebhookService.WebhookPayload payload) {
+        String prefix = "{\"id\":" + toJson(payload.getId())
+            + ",\"type\":" + toJson(payload.getType())
+            + ",\"data\":";
+        String suffix = ",\"created\":" + toJson(payload.getCreated())
+            + ",\"signature\":" + toJson(payload.getSignature())
+            + "}";
+        
+        byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        byte[] data = toJson(payload.getData()).getBytes(StandardCharsets.UTF_8);
+        byte[] suffixBytes = suffix.getBytes(StandardCharsets.UTF_8);
+        
+        byte[] prefixMember = gzip(prefixBytes);
+        byte[] dataMember = getCompressedData(data);
+        byte[] suffixMember = gzip(suffixBytes);
+        
+        byte[] body = new byte[prefixMember.length + dataMember.length + suffixMember.length];
+        System.arraycopy(prefixMember, 0, body, 0, prefixMember.length);
+        System.arraycopy(dataMember, 0, body, prefixMember.length, dataMember.length);
+        System.arraycopy(suffixMember, 0, body, prefixMember.length + dataMember.length, suffixMember.length);
+        
+        long uncompressedSize = prefixBytes.length + data.length + suffixBytes.length;
+        compressionRatio.record((double) body.length / uncompressedSize);
+        bytesSaved.increment(Math.max(0, uncompressedSize - body.length));
+        
+        return body;
+    }
+    
+    /**
+     * Get the gzip member of the event data, compressing it on a cache miss
+     */
+    private byte[] getCompressedData(byte[] data) {
+        String digest = sha256(data);
+        
+        synchronized (compressedData) {
+            byte[] cached = compressedData.get(digest);
+            if (cached != null) {
+                cacheHits.increment();
+                return cached;
+            }
+        }
+        
+        cacheMisses.increment();
+        long cpuStart = currentCpuNanos();
+        byte[] compressed = gzip(data);
+        compressionCpuTime.record(currentCpuNanos() - cpuStart, TimeUnit.NANOSECONDS);
+        
+        synchronized (compressedData) {
+            if (compressedData.putIfAbsent(digest, compressed) == null) {
+                cachedBytes += compressed.length;
+                evictOverflow();
+            }
+        }
+        return compressed;
+    }
+    
+    /**
+     * Evict least recently used entries until the cache fits its byte budget
+     */
+    private void evictOverflow() {
+        Iterator<byte[]> iterator = compressedData.values().iterator();
+        while (cachedBytes > cacheMaxBytes && iterator.hasNext()) {
+            cachedBytes -= iterator.next().length;
+            iterator.remove();
+        }
+    }
+    
+    /**
+     * CPU time of the current thread, falling back to wall time where unsupported
+     */
+    private long currentCpuNanos() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported()
+            ? threadMXBean.getCurrentThreadCpuTime()
+            : System.nanoTime();
+    }
+    
+    /**
+     * Serialize a single JSON value
+     */
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize webhook payload", e);
+        }
+    }
+    
+    /**
+     * Compress bytes into a standalone gzip member
+     */
+    private static byte[] gzip(byte[] input) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+    
+    /**
+     * Hex SHA-256 digest used as the cache key of compressed event data
+     */
+    private static String sha256(byte[] input) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(input));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,20 +1,34 @@
 package com.stripeflow.service;
 
+import com.stripeflow.model.Charge;
+import com.stripeflow.model.Customer;
+import com.stripeflow.model.Refund;
+import com.stripeflow.model.Subscription;
 import com.stripeflow.model.WebhookEndpoint;
 import com.stripeflow.model.WebhookEvent;
 import com.stripeflow.repository.WebhookEndpointRepository;
 import com.stripeflow.repository.WebhookEventRepository;
+import com.stripeflow.util.KeyedSerialExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Service for webhook event publishing and delivery
@@ -25,6 +39,15 @@ public class WebhookService {
     
     private static final Logger logger = LoggerFactory.getLogger(WebhookService.class);
     
+    // Delay before re-checking an event held back behind an earlier undelivered event
+    private static final int ORDERING_RETRY_DELAY_SECONDS = 5;
+    
+    // In-flight attempts older than this are treated as abandoned and no longer block ordering
+    private static final int STALE_ATTEMPT_MINUTES = 5;
+    
+    // Event type of the synthetic payload sent to probe quarantined endpoints
+    public static final String PROBE_EVENT_TYPE = "webhook.ping";
+    
     @Autowired
     private WebhookEndpointRepository webhookEndpointRepository;
     
@@ -34,6 +57,20 @@ public class WebhookService {
     @Autowired
     private RestTemplate restTemplate;
     
+    @Autowired
+    private KeyedSerialExecutor webhookDeliveryExecutor;
+    
+    @Autowired
+    private WebhookDeliveryStats webhookDeliveryStats;
+    
+    @Autowired
+    private WebhookPayloadCompressor webhookPayloadCompressor;
+    
+    // Own proxy, so deliveries run on the serial executor still get their transaction
+    @Autowired
+    @Lazy
+    private WebhookService self;
+    
     /**
      * Publish a webhook event to all enabled endpoints
      */
@@ -42,20 +79,30 @@ public class WebhookService {
         logger.info("Publishing webhook event: {}", eventType);
         
         List<WebhookEndpoint> endpoints = webhookEndpointRepository.findByEnabledTrue();
+        String objectId = resolveObjectId(eventData);
         
         for (WebhookEndpoint endpoint : endpoints) {
             try {
                 WebhookEvent webhookEvent = new WebhookEvent();
                 webhookEvent.setEndpoint(endpoint);
                 webhookEvent.setEventType(eventType);
+                webhookEvent.setObjectId(objectId);
                 webhookEvent.setEventData(convertToJson(eventData));
                 webhookEvent.setStatus(WebhookEvent.WebhookEventStatus.PENDING);
                 webhookEvent.setNextRetry(LocalDateTime.now());
                 
                 WebhookEvent savedEvent = webhookEventRepository.save(webhookEvent);
                 
-                // Process webhook delivery asynchronously
-                processWebhookDelivery(savedEvent);
+                // Collapse older pending events for the same object that this one supersedes
+                if (Boolean.TRUE.equals(endpoint.getCoalesceEvents()) && objectId != null) {
+                    coalesceSupersededEvents(savedEvent);
+                }
+                
+                // Quarantined endpoints keep their events, but only health probes attempt them
+                if (!Boolean.TRUE.equals(endpoint.getQuarantined())) {
+                    // Deliver after commit, in order with other events for the same object
+                    dispatchDelivery(savedEvent);
+                }
                 
             } catch (Exception e) {
                 logger.error("Error publishing webhook event {} to endpoint {}: {}", 
@@ -67,25 +114,67 @@ public class WebhookService {
     }
     
     /**
-     * Process webhook delivery with retry logic
+     * Queue delivery of an event behind earlier events for the same endpoint and object.
+     * Inside a transaction the event is queued once the transaction commits.
+     * When the delivery executor is saturated the event stays PENDING for the retry scheduler.
      */
-    @Async
-    public CompletableFuture<Void> processWebhookDelivery(WebhookEvent webhookEvent) {
+    public void dispatchDelivery(WebhookEvent webhookEvent) {
+        Runnable dispatch = () -> {
+            try {
+                webhookDeliveryExecutor.execute(getOrderingKey(webhookEvent), () -> self.deliverWebhookEvent(webhookEvent));
+            } catch (RejectedExecutionException e) {
+                logger.warn("Webhook delivery executor saturated, leaving event {} for the retry scheduler", 
+                    webhookEvent.getId());
+            }
+        };
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch.run();
+                }
+            });
+        } else {
+            dispatch.run();
+        }
+    }
+    
+    /**
+     * Attempt delivery of an event on the calling thread, holding it back behind earlier events for its object
+     */
+    public void deliverWebhookEvent(WebhookEvent webhookEvent) {
         logger.info("Processing webhook delivery for event {} to endpoint {}", 
             webhookEvent.getId(), webhookEvent.getEndpoint().getUrl());
         
+        // Skip events that a newer event superseded after they were queued
+        if (isSuperseded(webhookEvent)) {
+            logger.info("Skipping webhook event {} superseded by a newer event for object {}", 
+                webhookEvent.getId(), webhookEvent.getObjectId());
+            return;
+        }
+        
+        // Hold the event back while an earlier event for the same object is undelivered
+        if (hasEarlierUndeliveredEvent(webhookEvent)) {
+            webhookEvent.setNextRetry(LocalDateTime.now().plusSeconds(ORDERING_RETRY_DELAY_SECONDS));
+            webhookEventRepository.save(webhookEvent);
+            logger.info("Deferring webhook event {} until earlier events for object {} are delivered", 
+                webhookEvent.getId(), webhookEvent.getObjectId());
+            return;
+        }
+        
+        long startTime = 0;
         try {
             // Update attempt timestamp
             webhookEvent.setLastAttempt(LocalDateTime.now());
             webhookEvent.setStatus(WebhookEvent.WebhookEventStatus.RETRYING);
             webhookEventRepository.save(webhookEvent);
             
+            startTime = System.currentTimeMillis();
             // Make HTTP request to webhook endpoint
-            String response = restTemplate.postForObject(
-                webhookEvent.getEndpoint().getUrl(),
-                createWebhookPayload(webhookEvent),
-                String.class
-            );
+            String response = postPayload(webhookEvent.getEndpoint(), createWebhookPayload(webhookEvent));
+            webhookDeliveryStats.recordDelivery(webhookEvent.getEndpoint().getId(), true, 
+                System.currentTimeMillis() - startTime);
             
             // Mark as delivered
             webhookEvent.setStatus(WebhookEvent.WebhookEventStatus.DELIVERED);
@@ -100,10 +189,139 @@ public class WebhookService {
             logger.error("Webhook delivery failed for event {}: {}", 
                 webhookEvent.getId(), e.getMessage());
             
+            // Only count failures of the HTTP attempt itself against the endpoint
+            if (startTime > 0) {
+                webhookDeliveryStats.recordDelivery(webhookEvent.getEndpoint().getId(), false, 
+                    System.currentTimeMillis() - startTime);
+            }
             handleWebhookFailure(webhookEvent, e);
         }
+    }
+    
+    /**
+     * Send a synthetic ping to an endpoint and report whether it answered with a 2xx.
+     * Runs outside any transaction and touches no events, so probing neither holds a
+     * connection during the HTTP call nor uses up retries of real events.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean sendProbe(WebhookEndpoint endpoint) {
+        WebhookPayload payload = new WebhookPayload();
+        payload.setId("probe_" + endpoint.getId() + "_" + System.currentTimeMillis());
+        payload.setType(PROBE_EVENT_TYPE);
+        payload.setData("{}");
+        payload.setCreated(LocalDateTime.now());
+        if (endpoint.getSecret() != null) {
+            payload.setSignature(generateSignature(payload, endpoint.getSecret()));
+        }
         
-        return CompletableFuture.completedFuture(null);
+        try {
+            restTemplate.postForObject(endpoint.getUrl(), payload, String.class);
+            return true;
+        } catch (Exception e) {
+            logger.info("Probe of webhook endpoint {} failed: {}", endpoint.getUrl(), e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Post a payload to an endpoint, gzip-compressed when the endpoint accepts it and the payload is large
+     */
+    private String postPayload(WebhookEndpoint endpoint, WebhookPayload payload) {
+        if (!webhookPayloadCompressor.shouldCompress(endpoint, payload)) {
+            return restTemplate.postForObject(endpoint.getUrl(), payload, String.class);
+        }
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        
+        try {
+            return restTemplate.postForObject(endpoint.getUrl(), 
+                new HttpEntity<>(webhookPayloadCompressor.compress(payload), headers), String.class);
+        } catch (HttpClientErrorException.UnsupportedMediaType e) {
+            // The receiver rejected gzip; stop compressing for it and resend uncompressed
+            logger.warn("Webhook endpoint {} rejected gzip payloads, disabling compression", endpoint.getUrl());
+            endpoint.setAcceptGzip(false);
+            webhookEndpointRepository.disableGzip(endpoint.getId());
+            return restTemplate.postForObject(endpoint.getUrl(), payload, String.class);
+        }
+    }
+    
+    /**
+     * Cancel pending events for the same object and event family as the given event
+     */
+    private void coalesceSupersededEvents(WebhookEvent latestEvent) {
+        int canceled = webhookEventRepository.cancelSupersededEvents(
+            latestEvent.getEndpoint(),
+            latestEvent.getObjectId(),
+            getEventFamily(latestEvent.getEventType()) + ".%",
+            latestEvent.getId()
+        );
+        
+        if (canceled > 0) {
+            logger.info("Coalesced {} superseded webhook events for object {} on endpoint {}", 
+                canceled, latestEvent.getObjectId(), latestEvent.getEndpoint().getUrl());
+        }
+    }
+    
+    /**
+     * Check whether a queued event was canceled by coalescing before it was attempted
+     */
+    private boolean isSuperseded(WebhookEvent webhookEvent) {
+        if (!Boolean.TRUE.equals(webhookEvent.getEndpoint().getCoalesceEvents()) || webhookEvent.getId() == null) {
+            return false;
+        }
+        return webhookEventRepository.findStatusById(webhookEvent.getId()) == WebhookEvent.WebhookEventStatus.CANCELED;
+    }
+    
+    /**
+     * Check whether an earlier event for the same endpoint and object has not been delivered yet
+     */
+    private boolean hasEarlierUndeliveredEvent(WebhookEvent webhookEvent) {
+        if (webhookEvent.getObjectId() == null || webhookEvent.getId() == null) {
+            return false;
+        }
+        return webhookEventRepository.existsEarlierUndeliveredEvent(
+            webhookEvent.getEndpoint(),
+            webhookEvent.getObjectId(),
+            webhookEvent.getId(),
+            LocalDateTime.now().minusMinutes(STALE_ATTEMPT_MINUTES)
+        );
+    }
+    
+    /**
+     * Ordering key for delivery; events without an object ID are not ordered
+     */
+    private String getOrderingKey(WebhookEvent webhookEvent) {
+        if (webhookEvent.getObjectId() == null) {
+            return null;
+        }
+        return webhookEvent.getEndpoint().getId() + ":" + webhookEvent.getObjectId();
+    }
+    
+    /**
+     * Get the event family, e.g. "charge" for "charge.succeeded"
+     */
+    private String getEventFamily(String eventType) {
+        int separator = eventType.indexOf('.');
+        return separator > 0 ? eventType.substring(0, separator) : eventType;
+    }
+    
+    /**
+     * Resolve the ID of the object an event describes, used as the coalescing key
+     */
+    private String resolveObjectId(Object eventData) {
+        Long id = null;
+        if (eventData instanceof Charge charge) {
+            id = charge.getId();
+        } else if (eventData instanceof Refund refund) {
+            id = refund.getId();
+        } else if (eventData instanceof Subscription subscription) {
+            id = subscription.getId();
+        } else if (eventData instanceof Customer customer) {
+            id = customer.getId();
+        }
+        return id != null ? id.toString() : null;
     }
     
     /**
@@ -0,0 +1,78 @@
+package com.stripeflow.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch: approximate frequency counts of arbitrary items in fixed memory.
+ *
+ * Estimates never undercount; they overcount by at most e/width of the total
+ * count with probability 1 - e^-depth. Safe for concurrent use.
+ */
+public class CountMinSketch {
+    
+    private final int width;
+    private final int depth;
+    private final AtomicLongArray counts;
+    
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Count-min sketch width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counts = new AtomicLongArray(width * depth);
+    }
+    
+    /**
+     * Count one occurrence of an item and return its new estimated count
+     */
+    public long add(Object item) {
+        int hash1 = spread(item.hashCode());
+        int hash2 = spread(hash1);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts.incrementAndGet(index(row, hash1, hash2)));
+        }
+        return estimate;
+    }
+    
+    /**
+     * Get the estimated count of an item
+     */
+    public long estimate(Object item) {
+        int hash1 = spread(item.hashCode());
+        int hash2 = spread(hash1);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts.get(index(row, hash1, hash2)));
+        }
+        return estimate;
+    }
+    
+    /**
+     * Halve every count, so estimates favour recent occurrences
+     */
+    public void halve() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.getAndUpdate(i, count -> count >>> 1);
+        }
+    }
+    
+    /**
+     * Cell of an item in a row, using double hashing to derive one hash per row
+     */
+    private int index(int row, int hash1, int hash2) {
+        return row * width + Math.floorMod(hash1 + row * hash2, width);
+    }
+    
+    /**
+     * Mix the bits of a hash so that similar keys land in unrelated cells
+     */
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,66 @@
+package com.stripeflow.util;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Helpers for processing entities streamed from a database cursor.
+ * 
+ * Every entity read through a stream stays in the persistence context until it
+ * is cleared, so these clear it after every so many processed entities; memory
+ * then stays bounded however many rows the cursor returns. Streams must be
+ * consumed inside a transaction and closed afterwards.
+ */
+public final class EntityStreams {
+    
+    // Rows fetched per cursor round-trip by streaming repository queries
+    public static final String FETCH_SIZE = "500";
+    
+    // Entities processed between two clears of the persistence context
+    public static final int CLEAR_INTERVAL = 500;
+    
+    private EntityStreams() {
+    }
+    
+    /**
+     * Map streamed entities that are only read, clearing the persistence context after every interval entities.
+     * Each clear is preceded by a flush, so changes a surrounding read-write transaction made before the stream
+     * are not discarded; in a read-only transaction the entities are loaded read-only and the flush finds nothing.
+     */
+    public static <T, R> Stream<R> mapClearing(Stream<T> entities, EntityManager entityManager, int interval,
+                                               Function<? super T, ? extends R> mapper) {
+        AtomicLong processed = new AtomicLong();
+        return entities.map(entity -> {
+            R result = mapper.apply(entity);
+            if (processed.incrementAndGet() % interval == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+            return result;
+        });
+    }
+    
+    /**
+     * Run an action on each streamed entity, flushing its changes and clearing the persistence context
+     * after every interval entities; returns how many entities were processed
+     */
+    public static <T> long forEachClearing(Stream<T> entities, EntityManager entityManager, int interval,
+                                           Consumer<? super T> action) {
+        long processed = 0;
+        Iterator<T> iterator = entities.iterator();
+        while (iterator.hasNext()) {
+            action.accept(iterator.next());
+            if (++processed % interval == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        return processed;
+    }
+}
@@ -0,0 +1,52 @@
+package com.stripeflow.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor that runs tasks sharing a key one at a time, in submission order,
+ * while tasks for different keys run in parallel on the delegate executor.
+ * 
+ * Each key maps to the tail of its task chain; new tasks are appended to the
+ * tail, and the entry is removed once the last task for the key completes.
+ */
+public class KeyedSerialExecutor {
+    
+    private final Executor delegate;
+    
+    private final ConcurrentMap<Object, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    
+    public KeyedSerialExecutor(Executor delegate) {
+        this.delegate = delegate;
+    }
+    
+    /**
+     * Run a task after all previously submitted tasks with the same key.
+     * Tasks with a null key are not ordered and run directly on the delegate.
+     */
+    public CompletableFuture<Void> execute(Object key, Runnable task) {
+        if (key == null) {
+            return CompletableFuture.runAsync(task, delegate);
+        }
+        
+        CompletableFuture<Void> next = tails.compute(key, (k, tail) -> {
+            if (tail == null) {
+                return CompletableFuture.runAsync(task, delegate);
+            }
+            // A failed predecessor must not block the tasks queued behind it
+            return tail.handle((result, error) -> null).thenRunAsync(task, delegate);
+        });
+        
+        next.whenComplete((result, error) -> tails.remove(key, next));
+        return next;
+    }
+    
+    /**
+     * Number of keys with queued or running tasks
+     */
+    public int getActiveKeyCount() {
+        return tails.size();
+    }
+}
@@ -0,0 +1,65 @@
+package com.stripeflow.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Deduplicates concurrent loads of the same key: the first caller runs the
+ * loader and every caller arriving while it runs waits for the same result.
+ * 
+ * The in-flight entry is removed as soon as the load completes, so results are
+ * never retained here; caching them is up to the caller.
+ */
+public class SingleFlight {
+    
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    
+    /**
+     * Run the loader for a key, or wait for the load already in flight for it
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Object key, Callable<T> loader) throws Exception {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        
+        if (existing != null) {
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+        
+        try {
+            T value = loader.call();
+            future.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+    
+    /**
+     * Number of keys with a load in flight
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+    
+    /**
+     * Rethrow the loader's own exception to waiting callers
+     */
+    private static Exception unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return cause instanceof Exception exception ? exception : e;
+    }
+}
@@ -0,0 +1,11 @@
+-- When each analytics materialized view was last refreshed.
+-- The application locks a view's row while refreshing it, so one node refreshes
+-- each view per interval; replaces the pg_cron schedule left commented out in V5.
+CREATE TABLE analytics_view_refreshes (
+    view_name VARCHAR(63) PRIMARY KEY,
+    refreshed_at TIMESTAMP
+);
+
+INSERT INTO analytics_view_refreshes (view_name) VALUES
+    ('mv_charge_statistics'),
+    ('mv_webhook_statistics');
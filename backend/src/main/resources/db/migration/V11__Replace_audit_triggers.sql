@@ -0,0 +1,8 @@
+-- Audit records are now captured by the application (AuditEventListener) and
+-- written in batches, so charge and customer writes no longer pay for a
+-- synchronous to_jsonb audit insert per row.
+DROP TRIGGER IF EXISTS customers_audit_trigger ON customers;
+DROP TRIGGER IF EXISTS charges_audit_trigger ON charges;
+
+DROP FUNCTION IF EXISTS audit_trigger_function();
+DROP FUNCTION IF EXISTS charge_audit_trigger_function();
@@ -0,0 +1,12 @@
+-- Entities draw ids from their sequences through Hibernate's pooled optimizer,
+-- which reserves 50 ids per nextval so inserts can be sent as JDBC batches.
+-- Existing ids are kept: each nextval now returns the top of a fresh block above them.
+-- Inserts that use the column defaults still get unique ids and skip the rest of their block.
+ALTER SEQUENCE customers_id_seq INCREMENT BY 50;
+ALTER SEQUENCE charges_id_seq INCREMENT BY 50;
+ALTER SEQUENCE refunds_id_seq INCREMENT BY 50;
+ALTER SEQUENCE subscriptions_id_seq INCREMENT BY 50;
+ALTER SEQUENCE webhook_endpoints_id_seq INCREMENT BY 50;
+ALTER SEQUENCE api_keys_id_seq INCREMENT BY 50;
+-- webhook_events_id_seq stays at 1: event ids order deliveries of an object, and blocks
+-- handed out per node would let a later event get a lower id.
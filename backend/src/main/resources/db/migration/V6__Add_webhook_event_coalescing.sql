@@ -0,0 +1,11 @@
+-- Support coalescing of superseded webhook events per object
+
+-- Opt-in coalescing mode per endpoint
+ALTER TABLE webhook_endpoints ADD COLUMN coalesce_events BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- ID of the object an event describes (charge, refund, subscription, customer)
+ALTER TABLE webhook_events ADD COLUMN object_id VARCHAR(100);
+
+-- Index over undelivered events per object: coalescing looks for pending events superseded by a
+-- newer one, delivery ordering for earlier pending or in-flight retrying events of the same object
+CREATE INDEX idx_webhook_events_undelivered ON webhook_events (endpoint_id, object_id, id) WHERE status IN ('PENDING', 'RETRYING');
@@ -0,0 +1,8 @@
+-- Track automatic quarantine of unhealthy webhook endpoints
+
+ALTER TABLE webhook_endpoints ADD COLUMN quarantined BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE webhook_endpoints ADD COLUMN quarantined_at TIMESTAMP;
+ALTER TABLE webhook_endpoints ADD COLUMN last_probe_at TIMESTAMP;
+
+-- Index for finding quarantined endpoints to probe
+CREATE INDEX idx_webhook_endpoints_quarantined ON webhook_endpoints (id) WHERE quarantined = TRUE;
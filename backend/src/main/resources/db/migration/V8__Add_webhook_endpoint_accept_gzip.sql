@@ -0,0 +1,3 @@
+-- Allow webhook endpoints to opt in to gzip-compressed payloads
+
+ALTER TABLE webhook_endpoints ADD COLUMN accept_gzip BOOLEAN NOT NULL DEFAULT FALSE;
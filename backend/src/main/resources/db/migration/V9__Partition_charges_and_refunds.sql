@@ -0,0 +1,194 @@
+-- Range-partition charges and refunds by month of created_at
+--
+-- Range queries, analytics and recent-data listings on created_at only touch
+-- the partitions covering their range. Old months can later be detached or
+-- dropped without a bulk DELETE. Requires PostgreSQL 13+ for row triggers on
+-- partitioned tables.
+--
+-- Unique constraints on a partitioned table must include the partition key, so
+-- the primary keys become (id, created_at); ids still come from the existing
+-- sequences and stay unique. The global uniqueness of charge idempotency keys
+-- moves to charge_idempotency_keys, maintained by trigger. refunds.charge_id can
+-- no longer reference charges(id) and is enforced by the application.
+
+-- Create monthly partitions of a table covering [p_from, p_to), returning how many were created
+CREATE OR REPLACE FUNCTION create_monthly_partitions(p_table TEXT, p_from DATE, p_to DATE)
+RETURNS INTEGER AS $$
+DECLARE
+    month_start DATE := DATE_TRUNC('month', p_from)::DATE;
+    partition_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    WHILE month_start < p_to LOOP
+        partition_name := p_table || '_' || TO_CHAR(month_start, 'YYYY_MM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, p_table, month_start, (month_start + INTERVAL '1 month')::DATE);
+            created := created + 1;
+        END IF;
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Make sure partitions exist from the current month to p_months_ahead months ahead
+CREATE OR REPLACE FUNCTION ensure_monthly_partitions(p_table TEXT, p_months_ahead INTEGER)
+RETURNS INTEGER AS $$
+BEGIN
+    RETURN create_monthly_partitions(p_table, CURRENT_DATE,
+        (DATE_TRUNC('month', CURRENT_DATE) + (p_months_ahead + 1) * INTERVAL '1 month')::DATE);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Objects depending on the old tables
+DROP MATERIALIZED VIEW IF EXISTS mv_charge_statistics;
+ALTER TABLE refunds DROP CONSTRAINT IF EXISTS refunds_charge_id_fkey;
+
+ALTER TABLE charges RENAME TO charges_unpartitioned;
+ALTER TABLE refunds RENAME TO refunds_unpartitioned;
+
+CREATE TABLE charges (
+    id BIGINT NOT NULL DEFAULT nextval('charges_id_seq'),
+    amount DECIMAL(19,2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    customer_id BIGINT NOT NULL REFERENCES customers(id),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    payment_method VARCHAR(255),
+    description VARCHAR(255),
+    metadata TEXT,
+    idempotency_key VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE refunds (
+    id BIGINT NOT NULL DEFAULT nextval('refunds_id_seq'),
+    charge_id BIGINT NOT NULL,
+    amount DECIMAL(19,2) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    reason VARCHAR(255),
+    notes VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+) PARTITION BY RANGE (created_at);
+
+-- Rows outside every monthly partition land here instead of failing; normally empty
+CREATE TABLE charges_default PARTITION OF charges DEFAULT;
+CREATE TABLE refunds_default PARTITION OF refunds DEFAULT;
+
+-- Partitions for all existing data and the next three months
+SELECT create_monthly_partitions('charges',
+    COALESCE((SELECT MIN(created_at) FROM charges_unpartitioned)::DATE, CURRENT_DATE),
+    (DATE_TRUNC('month', CURRENT_DATE) + INTERVAL '4 months')::DATE);
+SELECT create_monthly_partitions('refunds',
+    COALESCE((SELECT MIN(created_at) FROM refunds_unpartitioned)::DATE, CURRENT_DATE),
+    (DATE_TRUNC('month', CURRENT_DATE) + INTERVAL '4 months')::DATE);
+
+INSERT INTO charges (id, amount, currency, customer_id, status, payment_method, description, metadata,
+                     idempotency_key, created_at, updated_at)
+SELECT id, amount, currency, customer_id, status, payment_method, description, metadata,
+       idempotency_key, created_at, updated_at
+FROM charges_unpartitioned;
+
+INSERT INTO refunds (id, charge_id, amount, status, reason, notes, created_at, updated_at)
+SELECT id, charge_id, amount, status, reason, notes, created_at, updated_at
+FROM refunds_unpartitioned;
+
+-- Globally unique idempotency keys, pointing at the charge's partition
+CREATE TABLE charge_idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    charge_id BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+INSERT INTO charge_idempotency_keys (idempotency_key, charge_id, created_at)
+SELECT idempotency_key, id, created_at
+FROM charges_unpartitioned
+WHERE idempotency_key IS NOT NULL;
+
+-- Keep the sequences when the old tables go
+ALTER SEQUENCE charges_id_seq OWNED BY charges.id;
+ALTER SEQUENCE refunds_id_seq OWNED BY refunds.id;
+
+DROP TABLE charges_unpartitioned;
+DROP TABLE refunds_unpartitioned;
+
+-- Keys and indexes are created on the parents and cascade to every partition, including future ones.
+-- Duplicates among the V1, V3 and V5 indexes are not recreated.
+ALTER TABLE charges ADD CONSTRAINT charges_pkey PRIMARY KEY (id, created_at);
+ALTER TABLE refunds ADD CONSTRAINT refunds_pkey PRIMARY KEY (id, created_at);
+
+CREATE INDEX idx_charges_customer_created ON charges (customer_id, created_at DESC);
+CREATE INDEX idx_charges_customer_status_created ON charges (customer_id, status, created_at DESC);
+CREATE INDEX idx_charges_status_created_at ON charges (status, created_at);
+CREATE INDEX idx_charges_status_currency_created ON charges (status, currency, created_at DESC);
+CREATE INDEX idx_charges_created_at_desc ON charges (created_at DESC);
+CREATE INDEX idx_charges_amount ON charges (amount);
+CREATE INDEX idx_charges_active_pending ON charges (id, created_at) WHERE status IN ('PENDING', 'PROCESSING');
+CREATE INDEX idx_charges_payment_method ON charges (payment_method) WHERE payment_method IS NOT NULL;
+CREATE INDEX idx_charges_analytics_daily ON charges (DATE(created_at), currency, status);
+CREATE INDEX idx_charges_timeseries ON charges (created_at, status, amount);
+CREATE INDEX idx_charges_search ON charges USING gin (to_tsvector('english', COALESCE(description, '')));
+
+CREATE INDEX idx_refunds_charge_status_created ON refunds (charge_id, status, created_at DESC);
+CREATE INDEX idx_refunds_status_created_at ON refunds (status, created_at);
+CREATE INDEX idx_refunds_created_at_desc ON refunds (created_at DESC);
+CREATE INDEX idx_refunds_amount ON refunds (amount);
+CREATE INDEX idx_refunds_analytics_daily ON refunds (DATE(created_at), status);
+
+-- Maintain charge_idempotency_keys; a duplicate key fails the insert as the old unique constraint did
+CREATE OR REPLACE FUNCTION charge_idempotency_key_trigger_function()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.idempotency_key IS NOT NULL THEN
+        DELETE FROM charge_idempotency_keys WHERE idempotency_key = OLD.idempotency_key;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.idempotency_key IS NOT NULL THEN
+        INSERT INTO charge_idempotency_keys (idempotency_key, charge_id, created_at)
+        VALUES (NEW.idempotency_key, NEW.id, NEW.created_at);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER charges_idempotency_key_insert_delete_trigger
+    AFTER INSERT OR DELETE ON charges
+    FOR EACH ROW EXECUTE FUNCTION charge_idempotency_key_trigger_function();
+
+-- UPDATE OF fires whenever the columns appear in the SET list, and Hibernate sets every column on update;
+-- only touch charge_idempotency_keys when the key or the partition column actually changed
+CREATE TRIGGER charges_idempotency_key_update_trigger
+    AFTER UPDATE OF idempotency_key, created_at ON charges
+    FOR EACH ROW
+    WHEN (OLD.idempotency_key IS DISTINCT FROM NEW.idempotency_key OR OLD.created_at IS DISTINCT FROM NEW.created_at)
+    EXECUTE FUNCTION charge_idempotency_key_trigger_function();
+
+-- Triggers of the old tables
+CREATE TRIGGER update_charges_updated_at BEFORE UPDATE ON charges
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
+CREATE TRIGGER update_refunds_updated_at BEFORE UPDATE ON refunds
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
+CREATE TRIGGER charges_audit_trigger
+    AFTER INSERT OR UPDATE OR DELETE ON charges
+    FOR EACH ROW EXECUTE FUNCTION charge_audit_trigger_function();
+
+-- The 30-day window prunes to the last two monthly partitions
+CREATE MATERIALIZED VIEW mv_charge_statistics AS
+SELECT
+    DATE(created_at) as date,
+    currency,
+    status,
+    COUNT(*) as count,
+    SUM(amount) as total_amount,
+    AVG(amount) as avg_amount
+FROM charges
+WHERE created_at >= CURRENT_DATE - INTERVAL '30 days'
+GROUP BY DATE(created_at), currency, status;
+
+CREATE UNIQUE INDEX idx_mv_charge_statistics_unique ON mv_charge_statistics (date, currency, status);
+
+ANALYZE charges;
+ANALYZE refunds;
@@ -0,0 +1,147 @@
+package com.stripeflow.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripeflow.model.Charge;
+import com.stripeflow.model.Customer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.jdbc.Work;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AuditEventListener
+ */
+@ExtendWith(MockitoExtension.class)
+class AuditEventListenerTest {
+    
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Mock
+    private AuditWriter auditWriter;
+    
+    @Mock
+    private EventSource session;
+    
+    @Mock
+    private ActionQueue actionQueue;
+    
+    @Mock
+    private EntityPersister persister;
+    
+    @Mock
+    private SessionImplementor completingSession;
+    
+    @Mock
+    private Connection connection;
+    
+    private AuditEventListener auditEventListener;
+    
+    @BeforeEach
+    void setUp() {
+        auditEventListener = new AuditEventListener(entityManagerFactory, auditWriter, new ObjectMapper(),
+            true, Set.of("Charge"));
+        when(session.getActionQueue()).thenReturn(actionQueue);
+        when(persister.getPropertyNames()).thenReturn(new String[] {"status"});
+        when(persister.getPropertyTypes()).thenReturn(new Type[] {mock(Type.class)});
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void onPostUpdate_WritesTransactionalEntitiesBeforeCommit() throws Exception {
+        // Given
+        when(persister.getMappedClass()).thenReturn((Class) Charge.class);
+        doAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connection);
+            return null;
+        }).when(completingSession).doWork(any(Work.class));
+        
+        // When
+        auditEventListener.onPostUpdate(new PostUpdateEvent(new Charge(), 7L,
+            new Object[] {"SUCCEEDED"}, new Object[] {"PENDING"}, new int[] {0}, persister, session));
+        beforeCompletion().doBeforeTransactionCompletion(completingSession);
+        afterCompletion().doAfterTransactionCompletion(true, completingSession);
+        
+        // Then
+        ArgumentCaptor<List<AuditRecord>> records = ArgumentCaptor.forClass(List.class);
+        verify(auditWriter).write(eq(connection), records.capture());
+        AuditRecord record = records.getValue().get(0);
+        assertEquals("charge_audit", record.table());
+        assertEquals(7L, record.entityId());
+        assertEquals("{\"status\":\"PENDING\"}", record.oldValues());
+        assertEquals("{\"status\":\"SUCCEEDED\"}", record.newValues());
+        verify(auditWriter, never()).enqueue(anyList());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void onPostInsert_EnqueuesDeferredEntitiesAfterCommit() throws Exception {
+        // Given
+        when(persister.getMappedClass()).thenReturn((Class) Customer.class);
+        
+        // When
+        auditEventListener.onPostInsert(new PostInsertEvent(new Customer(), 3L, new Object[] {"ACTIVE"}, persister, session));
+        beforeCompletion().doBeforeTransactionCompletion(completingSession);
+        afterCompletion().doAfterTransactionCompletion(true, completingSession);
+        
+        // Then
+        ArgumentCaptor<List<AuditRecord>> records = ArgumentCaptor.forClass(List.class);
+        verify(auditWriter).enqueue(records.capture());
+        assertEquals("customer_audit", records.getValue().get(0).table());
+        assertEquals("INSERT", records.getValue().get(0).action());
+        verify(auditWriter, never()).write(any(), anyList());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void onPostInsert_DiscardsDeferredRecordsOnRollback() {
+        // Given
+        when(persister.getMappedClass()).thenReturn((Class) Customer.class);
+        auditEventListener.onPostInsert(new PostInsertEvent(new Customer(), 3L, new Object[] {"ACTIVE"}, persister, session));
+        
+        // When
+        afterCompletion().doAfterTransactionCompletion(false, completingSession);
+        auditEventListener.onPostInsert(new PostInsertEvent(new Customer(), 4L, new Object[] {"ACTIVE"}, persister, session));
+        
+        // Then - nothing is enqueued, and the next transaction collects its records afresh
+        verify(auditWriter, never()).enqueue(anyList());
+        verify(actionQueue, times(2)).registerProcess(any(AfterTransactionCompletionProcess.class));
+    }
+    
+    private BeforeTransactionCompletionProcess beforeCompletion() {
+        ArgumentCaptor<BeforeTransactionCompletionProcess> process =
+            ArgumentCaptor.forClass(BeforeTransactionCompletionProcess.class);
+        verify(actionQueue).registerProcess(process.capture());
+        return process.getValue();
+    }
+    
+    private AfterTransactionCompletionProcess afterCompletion() {
+        ArgumentCaptor<AfterTransactionCompletionProcess> process =
+            ArgumentCaptor.forClass(AfterTransactionCompletionProcess.class);
+        verify(actionQueue).registerProcess(process.capture());
+        return process.getValue();
+    }
+}
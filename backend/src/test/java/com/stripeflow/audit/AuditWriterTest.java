@@ -0,0 +1,128 @@
+package com.stripeflow.audit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AuditWriter
+ */
+@ExtendWith(MockitoExtension.class)
+class AuditWriterTest {
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
+    @Mock
+    private Connection connection;
+    
+    @Mock
+    private PreparedStatement statement;
+    
+    private AuditWriter auditWriter;
+    
+    @BeforeEach
+    void setUp() {
+        auditWriter = new AuditWriter(jdbcTemplate, transactionManager, new SimpleMeterRegistry(), 100, 2);
+    }
+    
+    @Test
+    void flush_WritesBufferedRecordsInBatchesPerTable() throws Exception {
+        // Given
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+            .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        auditWriter.enqueue(List.of(chargeRecord(1L), chargeRecord(2L), 
+            new AuditRecord("customer_audit", "customer_id", 3L, "INSERT", null, "{\"name\":\"Jane\"}", LocalDateTime.now())));
+        
+        // When
+        int written = auditWriter.flush();
+        
+        // Then
+        assertEquals(3, written);
+        assertEquals(0, auditWriter.getBufferedCount());
+        verify(jdbcTemplate, times(2)).execute(any(ConnectionCallback.class));
+        verify(connection).prepareStatement(
+            "INSERT INTO charge_audit (charge_id, action, old_values, new_values, changed_at) VALUES (?, ?, ?::jsonb, ?::jsonb, ?)");
+        verify(connection).prepareStatement(
+            "INSERT INTO customer_audit (customer_id, action, old_values, new_values, changed_at) VALUES (?, ?, ?::jsonb, ?::jsonb, ?)");
+        verify(statement, times(3)).addBatch();
+        verify(transactionManager, times(2)).commit(any());
+    }
+    
+    @Test
+    void flush_KeepsRecordsWhenWriteFails() {
+        // Given
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+            .thenThrow(new DataAccessResourceFailureException("connection lost"));
+        auditWriter.enqueue(List.of(chargeRecord(1L), chargeRecord(2L)));
+        
+        // When
+        int written = auditWriter.flush();
+        
+        // Then
+        assertEquals(0, written);
+        assertEquals(2, auditWriter.getBufferedCount());
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+    
+    @Test
+    void flush_KeepsWholeBatchWhenSecondTableFails() throws Exception {
+        // Given - the charge insert succeeds, the customer insert of the same batch fails
+        auditWriter = new AuditWriter(jdbcTemplate, transactionManager, new SimpleMeterRegistry(), 100, 10);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+            .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeBatch()).thenReturn(new int[] {1}).thenThrow(new SQLException("constraint violated"));
+        auditWriter.enqueue(List.of(chargeRecord(1L), 
+            new AuditRecord("customer_audit", "customer_id", 3L, "INSERT", null, "{\"name\":\"Jane\"}", LocalDateTime.now())));
+        
+        // When
+        int written = auditWriter.flush();
+        
+        // Then - the charge insert is rolled back with the batch and both records are kept
+        assertEquals(0, written);
+        assertEquals(2, auditWriter.getBufferedCount());
+        verify(transactionManager).rollback(any());
+    }
+    
+    @Test
+    void changed_IncludesOnlyDirtyPropertiesOfUpdates() {
+        // Given
+        Object[] oldState = {"PENDING", "usd"};
+        Object[] newState = {"SUCCEEDED", "usd"};
+        
+        // When / Then
+        assertTrue(AuditEventListener.changed(0, oldState, newState, null));
+        assertFalse(AuditEventListener.changed(1, oldState, newState, null));
+        assertFalse(AuditEventListener.changed(0, oldState, newState, new int[] {1}));
+        assertTrue(AuditEventListener.changed(1, null, newState, null));
+    }
+    
+    private static AuditRecord chargeRecord(Long chargeId) {
+        return new AuditRecord("charge_audit", "charge_id", chargeId, "UPDATE",
+            "{\"status\":\"PENDING\"}", "{\"status\":\"SUCCEEDED\"}", LocalDateTime.now());
+    }
+}
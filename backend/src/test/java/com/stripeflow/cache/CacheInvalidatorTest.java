@@ -0,0 +1,135 @@
+package com.stripeflow.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CacheInvalidator
+ */
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidatorTest {
+    
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    
+    @Mock
+    private SetOperations<String, String> setOperations;
+    
+    @Mock
+    private Cursor<String> cursor;
+    
+    private CacheInvalidator cacheInvalidator;
+    
+    @BeforeEach
+    void setUp() {
+        cacheInvalidator = new CacheInvalidator(redisTemplate, 2, 60000);
+    }
+    
+    @Test
+    void deleteByPattern_UnlinksScannedKeysInBatches() {
+        // Given
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, true, true, false);
+        when(cursor.next()).thenReturn("search:a", "search:b", "search:c");
+        when(redisTemplate.unlink(anyCollection())).thenAnswer(invocation -> 
+            (long) invocation.<Collection<?>>getArgument(0).size());
+        
+        // When
+        long deleted = cacheInvalidator.deleteByPattern("search:*");
+        
+        // Then
+        assertEquals(3, deleted);
+        verify(redisTemplate, times(2)).unlink(anyCollection());
+        verify(redisTemplate, never()).keys(any());
+        verify(cursor).close();
+    }
+    
+    @Test
+    void invalidateTags_UnlinksTaggedKeysUntilTagSetIsEmpty() {
+        // Given
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.pop(CacheInvalidator.TAG_PREFIX + "charges:customer:1", 2L))
+            .thenReturn(List.of("paginated:v0:a", "paginated:v0:b"), List.of("paginated:v0:c"), List.of());
+        when(redisTemplate.unlink(anyCollection())).thenAnswer(invocation -> 
+            (long) invocation.<Collection<?>>getArgument(0).size());
+        
+        // When
+        long deleted = cacheInvalidator.invalidateTags(List.of("charges:customer:1"));
+        
+        // Then
+        assertEquals(3, deleted);
+        verify(redisTemplate, times(2)).unlink(anyCollection());
+    }
+    
+    @Test
+    void tag_IndexesKeyWithoutShorteningTagSetTtl() {
+        // When
+        cacheInvalidator.tag("frequent:v0:recent_charges:10", List.of("charges:new", "charge:7"), Duration.ofMinutes(10));
+        
+        // Then
+        verify(redisTemplate).execute(CacheInvalidator.TAG_SCRIPT, 
+            List.of(CacheInvalidator.TAG_PREFIX + "charges:new", CacheInvalidator.TAG_PREFIX + "charge:7"),
+            "frequent:v0:recent_charges:10", "600");
+    }
+    
+    @Test
+    void namespacedKey_ChangesWhenNamespaceIsInvalidated() {
+        // Given
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(CacheInvalidator.GENERATION_PREFIX + "search")).thenReturn(null);
+        when(valueOperations.increment(CacheInvalidator.GENERATION_PREFIX + "search")).thenReturn(1L);
+        
+        // When
+        String before = cacheInvalidator.namespacedKey("search", "refund");
+        long generation = cacheInvalidator.invalidateNamespace("search");
+        String after = cacheInvalidator.namespacedKey("search", "refund");
+        
+        // Then
+        assertEquals("search:v0:refund", before);
+        assertEquals(1L, generation);
+        assertEquals("search:v1:refund", after);
+        verify(redisTemplate).convertAndSend(TwoTierCacheManager.INVALIDATION_CHANNEL, 
+            CacheInvalidator.GENERATION_PREFIX + "search");
+    }
+    
+    @Test
+    void namespacedKey_ReadsGenerationOnceUntilAnotherNodeBumpsIt() {
+        // Given
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(CacheInvalidator.GENERATION_PREFIX + "paginated")).thenReturn("3", "4");
+        
+        // When
+        String first = cacheInvalidator.namespacedKey("paginated", "a");
+        String second = cacheInvalidator.namespacedKey("paginated", "b");
+        cacheInvalidator.onMessage(new DefaultMessage(TwoTierCacheManager.INVALIDATION_CHANNEL.getBytes(), 
+            (CacheInvalidator.GENERATION_PREFIX + "paginated").getBytes()), null);
+        String third = cacheInvalidator.namespacedKey("paginated", "c");
+        
+        // Then
+        assertEquals("paginated:v3:a", first);
+        assertEquals("paginated:v3:b", second);
+        assertEquals("paginated:v4:c", third);
+        verify(valueOperations, times(2)).get(CacheInvalidator.GENERATION_PREFIX + "paginated");
+    }
+}
@@ -0,0 +1,100 @@
+package com.stripeflow.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CacheValueSerializer
+ */
+class CacheValueSerializerTest {
+    
+    private CacheValueSerializer serializer;
+    private CachedCharge charge;
+    
+    @BeforeEach
+    void setUp() {
+        serializer = new CacheValueSerializer(List.of(new CachedCustomerCodec(), new CachedChargeCodec()), 512);
+        
+        LocalDateTime now = LocalDateTime.of(2024, 1, 15, 10, 30, 45, 123000000);
+        CachedCustomer customer = new CachedCustomer(1L, "test@example.com", "Test Customer", "+1234567890",
+            new CachedCustomer.Address("1 Main St", null, "Springfield", "IL", "62701", "US"), now, now);
+        charge = new CachedCharge(42L, new BigDecimal("1000.50"), "USD", customer, "SUCCEEDED", "card",
+            "Test charge", null, "idem-42", now, now);
+    }
+    
+    @Test
+    void serialize_RoundTripsChargeWithCustomer() throws Exception {
+        // When
+        byte[] bytes = serializer.serialize(charge);
+        
+        // Then
+        assertEquals(CacheValueSerializer.MAGIC, bytes[0]);
+        assertEquals(CachedChargeCodec.TYPE_ID, bytes[1]);
+        assertEquals(charge, serializer.deserialize(bytes));
+        assertTrue(bytes.length < new ObjectMapper().findAndRegisterModules().writeValueAsBytes(charge).length);
+    }
+    
+    @Test
+    void serialize_CompressesLargeValues() {
+        // Given
+        CachedCharge large = new CachedCharge(charge.id(), charge.amount(), charge.currency(), charge.customer(),
+            charge.status(), charge.paymentMethod(), charge.description(), "{\"note\":\"" + "x".repeat(4096) + "\"}",
+            charge.idempotencyKey(), charge.createdAt(), charge.updatedAt());
+        
+        // When
+        byte[] bytes = serializer.serialize(large);
+        
+        // Then
+        assertEquals(CacheValueSerializer.FLAG_LZ4, bytes[3]);
+        assertTrue(bytes.length < 1024);
+        assertEquals(large, serializer.deserialize(bytes));
+    }
+    
+    @Test
+    void serialize_RoundTripsJsonValuesWithDates() {
+        // Given
+        CachedChargePage page = new CachedChargePage(new ArrayList<>(List.of(charge.toResponse())), 11);
+        
+        // When
+        CachedChargePage read = (CachedChargePage) serializer.deserialize(serializer.serialize(page));
+        
+        // Then
+        assertEquals(11, read.totalElements());
+        assertEquals(charge.createdAt(), read.content().get(0).getCreatedAt());
+        assertEquals(charge.customer().email(), read.content().get(0).getCustomer().getEmail());
+    }
+    
+    @Test
+    void deserialize_SchemaVersionMismatch_ReturnsNull() {
+        // Given
+        byte[] bytes = serializer.serialize(charge);
+        bytes[2] = (byte) (new CachedChargeCodec().getSchemaVersion() + 1);
+        
+        // When & Then
+        assertNull(serializer.deserialize(bytes));
+    }
+    
+    @Test
+    void deserialize_ReadsLegacyJsonAndUnregisteredTypes() {
+        // Given
+        List<String> value = new ArrayList<>(List.of("ch_1", "ch_2"));
+        byte[] legacy = new GenericJackson2JsonRedisSerializer().serialize(value);
+        
+        // When
+        Object legacyValue = serializer.deserialize(legacy);
+        Object jsonValue = serializer.deserialize(serializer.serialize(value));
+        
+        // Then
+        assertEquals(value, legacyValue);
+        assertEquals(value, jsonValue);
+    }
+}
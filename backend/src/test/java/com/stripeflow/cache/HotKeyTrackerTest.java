@@ -0,0 +1,86 @@
+package com.stripeflow.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for HotKeyTracker
+ */
+@ExtendWith(MockitoExtension.class)
+class HotKeyTrackerTest {
+    
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    
+    private HotKeyTracker hotKeyTracker;
+    
+    @BeforeEach
+    void setUp() {
+        hotKeyTracker = new HotKeyTracker(redisTemplate, new String[]{"customers"}, 3, 24, 60000);
+    }
+    
+    @Test
+    void getHotKeys_KeepsMostReadKeysHottestFirst() {
+        // Given - key i is read i times, with reads of different keys interleaved
+        for (int round = 1; round <= 10; round++) {
+            for (int key = round; key <= 10; key++) {
+                hotKeyTracker.recordAccess("customers", String.valueOf(key));
+            }
+        }
+        
+        // When
+        List<String> hotKeys = hotKeyTracker.getHotKeys("customers");
+        
+        // Then
+        assertEquals(List.of("10", "9", "8"), hotKeys);
+    }
+    
+    @Test
+    void recordAccess_IgnoresUntrackedRegions() {
+        // When
+        hotKeyTracker.recordAccess("statistics", "charge_stats");
+        
+        // Then
+        assertTrue(hotKeyTracker.getHotKeys("statistics").isEmpty());
+    }
+    
+    @Test
+    void recordAccess_IgnoresReadsWithoutRecording() {
+        // When
+        Integer read = hotKeyTracker.withoutRecording(() -> {
+            hotKeyTracker.recordAccess("customers", "1");
+            return 1;
+        });
+        hotKeyTracker.recordAccess("customers", "2");
+        
+        // Then
+        assertEquals(1, read);
+        assertEquals(List.of("2"), hotKeyTracker.getHotKeys("customers"));
+    }
+    
+    @Test
+    void persist_MergesHotKeysIntoSharedSet() {
+        // Given
+        hotKeyTracker.recordAccess("customers", "1");
+        
+        // When
+        hotKeyTracker.persist();
+        
+        // Then
+        String redisKey = HotKeyTracker.HOT_KEYS_PREFIX + "customers";
+        verify(redisTemplate).execute(eq(HotKeyTracker.MERGE_SCRIPT), 
+            eq(List.of(redisKey, redisKey + HotKeyTracker.DECAYED_AT_SUFFIX)), any(Object[].class));
+        verify(redisTemplate, never()).unlink(any(String.class));
+    }
+}
@@ -0,0 +1,148 @@
+package com.stripeflow.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RedisCircuitBreaker
+ */
+class RedisCircuitBreakerTest {
+    
+    @Test
+    void execute_OpensAfterConsecutiveFailuresAndSkipsRedis() {
+        // Given
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(new SimpleMeterRegistry(), Runnable::run, 2, 250, 60_000);
+        AtomicInteger calls = new AtomicInteger();
+        
+        // When
+        for (int i = 0; i < 3; i++) {
+            breaker.execute(() -> {
+                calls.incrementAndGet();
+                throw new QueryTimeoutException("Redis command timed out");
+            }, () -> "fallback");
+        }
+        String result = breaker.execute(() -> "redis", () -> "fallback");
+        
+        // Then
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, calls.get());
+        assertEquals("fallback", result);
+    }
+    
+    @Test
+    void execute_ClosesAfterSuccessfulProbeAndRunsRecoveryListeners() {
+        // Given
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(new SimpleMeterRegistry(), Runnable::run, 1, 250, 0);
+        AtomicInteger recoveries = new AtomicInteger();
+        breaker.addRecoveryListener(recoveries::incrementAndGet);
+        breaker.run(() -> {
+            throw new QueryTimeoutException("Redis command timed out");
+        });
+        
+        // When
+        String result = breaker.execute(() -> "redis", () -> "fallback");
+        
+        // Then
+        assertEquals("redis", result);
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1, recoveries.get());
+    }
+    
+    @Test
+    void execute_CountsSlowCallsAsFailures() {
+        // Given
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(new SimpleMeterRegistry(), Runnable::run, 1, 0, 60_000);
+        
+        // When
+        String result = breaker.execute(() -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "redis";
+        }, () -> "fallback");
+        
+        // Then
+        assertEquals("redis", result);
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+    }
+    
+    @Test
+    void executeBulk_DoesNotCountSlowBulkOperationsAsFailures() {
+        // Given
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(new SimpleMeterRegistry(), Runnable::run, 1, 0, 60_000);
+        
+        // When
+        boolean ran = breaker.runBulk(() -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        
+        // Then
+        assertTrue(ran);
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+    
+    @Test
+    void execute_ReopensWhenProbeThrowsNonRedisException() {
+        // Given
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(new SimpleMeterRegistry(), Runnable::run, 1, 250, 0);
+        breaker.run(() -> {
+            throw new QueryTimeoutException("Redis command timed out");
+        });
+        
+        // When
+        assertThrows(IllegalStateException.class, () -> breaker.execute(() -> {
+            throw new IllegalStateException("Serialization failed");
+        }, () -> "fallback"));
+        
+        // Then
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals("redis", breaker.execute(() -> "redis", () -> "fallback"));
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+    
+    @Test
+    void execute_RunsRecoveryListenersOnRecoveryExecutor() {
+        // Given
+        List<Runnable> scheduled = new ArrayList<>();
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(new SimpleMeterRegistry(), scheduled::add, 1, 250, 0);
+        AtomicInteger recoveries = new AtomicInteger();
+        breaker.addRecoveryListener(recoveries::incrementAndGet);
+        breaker.run(() -> {
+            throw new QueryTimeoutException("Redis command timed out");
+        });
+        
+        // When
+        breaker.execute(() -> "redis", () -> "fallback");
+        
+        // Then
+        assertEquals(0, recoveries.get());
+        assertEquals(1, scheduled.size());
+        scheduled.get(0).run();
+        assertEquals(1, recoveries.get());
+    }
+    
+    @Test
+    void execute_PropagatesNonRedisExceptions() {
+        // Given
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(new SimpleMeterRegistry(), Runnable::run, 1, 250, 60_000);
+        
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> breaker.execute(() -> {
+            throw new IllegalStateException("Serialization failed");
+        }, () -> "fallback"));
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
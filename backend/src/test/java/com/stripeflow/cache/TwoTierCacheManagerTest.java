@@ -0,0 +1,219 @@
+package com.stripeflow.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TwoTierCacheManager
+ */
+@ExtendWith(MockitoExtension.class)
+class TwoTierCacheManagerTest {
+    
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    
+    private ConcurrentMapCacheManager remoteCacheManager;
+    private CacheMetrics cacheMetrics;
+    private TwoTierCacheManager cacheManager;
+    
+    @BeforeEach
+    void setUp() {
+        remoteCacheManager = new ConcurrentMapCacheManager("charges", "customers");
+        cacheMetrics = new CacheMetrics(new SimpleMeterRegistry());
+        cacheManager = new TwoTierCacheManager(remoteCacheManager, redisTemplate,
+            Map.of("charges", new TwoTierCacheManager.LocalCacheSpec(100, Duration.ofMinutes(1))),
+            new TwoTierCacheManager.LocalCacheSpec(10, Duration.ofMinutes(1)), cacheMetrics);
+    }
+    
+    @Test
+    void get_ServesFromLocalTierAfterRemoteMiss() {
+        // Given
+        remoteCacheManager.getCache("charges").put(1L, "charge-1");
+        Cache cache = cacheManager.getCache("charges");
+        
+        // When
+        cache.get(1L);
+        remoteCacheManager.getCache("charges").evict(1L);
+        Cache.ValueWrapper cached = cache.get(1L);
+        
+        // Then
+        assertNotNull(cached);
+        assertEquals("charge-1", cached.get());
+    }
+    
+    @Test
+    void get_RecordsHitsByTierMissesAndLoads() {
+        // Given
+        remoteCacheManager.getCache("customers").put(1L, "customer-1");
+        Cache cache = cacheManager.getCache("customers");
+        
+        // When
+        cache.get(1L);
+        cache.get(1L);
+        cache.get(2L, () -> "customer-2");
+        
+        // Then
+        CacheMetrics.RegionStatistics statistics = cacheMetrics.getRegionStatistics().get(0);
+        assertEquals("customers", statistics.getName());
+        assertEquals(2, statistics.getHits());
+        assertEquals(1, statistics.getLocalHits());
+        assertEquals(1, statistics.getMisses());
+        assertEquals(1, statistics.getLoads());
+        assertEquals(2L, statistics.getLocalSize());
+    }
+    
+    @Test
+    void put_WritesBothTiersAndPublishesInvalidation() {
+        // Given
+        Cache cache = cacheManager.getCache("charges");
+        
+        // When
+        cache.put(1L, "charge-1");
+        
+        // Then
+        assertEquals("charge-1", remoteCacheManager.getCache("charges").get(1L).get());
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(TwoTierCacheManager.INVALIDATION_CHANNEL), message.capture());
+        assertTrue(message.getValue().endsWith("|charges|1"));
+    }
+    
+    @Test
+    void put_NullValueEvictsBothTiers() {
+        // Given - like Redis, the remote tier rejects null values
+        remoteCacheManager.setAllowNullValues(false);
+        Cache cache = cacheManager.getCache("charges");
+        cache.put(1L, "charge-1");
+        
+        // When
+        cache.put(1L, null);
+        
+        // Then
+        assertNull(remoteCacheManager.getCache("charges").get(1L));
+        assertNull(cache.get(1L));
+        verify(redisTemplate, times(2)).convertAndSend(eq(TwoTierCacheManager.INVALIDATION_CHANNEL), anyString());
+    }
+    
+    @Test
+    void onMessage_EvictsLocalEntryForOtherNode() {
+        // Given
+        TwoTierCache cache = (TwoTierCache) cacheManager.getCache("charges");
+        cache.put(1L, "charge-1");
+        remoteCacheManager.getCache("charges").evict(1L);
+        
+        // When
+        cacheManager.onMessage(message("other-node|charges|1"), null);
+        
+        // Then
+        assertNull(cache.get(1L));
+        assertEquals(0, cache.getLocalSize());
+    }
+    
+    @Test
+    void onMessage_IgnoresOwnInvalidations() {
+        // Given
+        TwoTierCache cache = (TwoTierCache) cacheManager.getCache("charges");
+        cache.put(1L, "charge-1");
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(TwoTierCacheManager.INVALIDATION_CHANNEL), published.capture());
+        remoteCacheManager.getCache("charges").evict(1L);
+        
+        // When
+        cacheManager.onMessage(message(published.getValue()), null);
+        
+        // Then
+        assertEquals("charge-1", cache.get(1L).get());
+    }
+    
+    @Test
+    void getWithLoader_LoadsOnceAndServesFromCache() {
+        // Given
+        Cache cache = cacheManager.getCache("charges");
+        AtomicInteger loads = new AtomicInteger();
+        
+        // When
+        String first = cache.get(1L, () -> "charge-" + loads.incrementAndGet());
+        String second = cache.get(1L, () -> "charge-" + loads.incrementAndGet());
+        
+        // Then
+        assertEquals("charge-1", first);
+        assertEquals("charge-1", second);
+        assertEquals(1, loads.get());
+        assertEquals("charge-1", remoteCacheManager.getCache("charges").get(1L).get());
+    }
+    
+    @Test
+    void getWithLoader_WaitsForValueLoadedByLeaseHolder() {
+        // Given
+        cacheManager.setLoadLease(Duration.ofSeconds(5), Duration.ofMillis(500));
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenAnswer(invocation -> {
+            // Another node holds the lease and stores its value meanwhile
+            remoteCacheManager.getCache("charges").put(1L, "charge-from-other-node");
+            return false;
+        });
+        Cache cache = cacheManager.getCache("charges");
+        
+        // When
+        String value = cache.get(1L, () -> "charge-loaded-here");
+        
+        // Then
+        assertEquals("charge-from-other-node", value);
+    }
+    
+    @Test
+    void evict_DefersRemoteEvictionWhileRedisIsUnavailableAndReplaysOnRecovery() {
+        // Given
+        RedisCircuitBreaker circuitBreaker = mock(RedisCircuitBreaker.class);
+        cacheManager.setCircuitBreaker(circuitBreaker);
+        ArgumentCaptor<Runnable> recoveryListener = ArgumentCaptor.forClass(Runnable.class);
+        verify(circuitBreaker).addRecoveryListener(recoveryListener.capture());
+        remoteCacheManager.getCache("charges").put(1L, "charge-1");
+        Cache cache = cacheManager.getCache("charges");
+        when(circuitBreaker.run(any())).thenReturn(false);
+        
+        // When
+        cache.evict(1L);
+        
+        // Then
+        assertNotNull(remoteCacheManager.getCache("charges").get(1L));
+        
+        // When
+        when(circuitBreaker.run(any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return true;
+        });
+        recoveryListener.getValue().run();
+        
+        // Then
+        assertNull(remoteCacheManager.getCache("charges").get(1L));
+    }
+    
+    private DefaultMessage message(String body) {
+        return new DefaultMessage(TwoTierCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+            body.getBytes(StandardCharsets.UTF_8));
+    }
+}
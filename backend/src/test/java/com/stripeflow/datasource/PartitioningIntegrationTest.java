@@ -0,0 +1,162 @@
+package com.stripeflow.datasource;
+
+import com.stripeflow.model.Charge;
+import com.stripeflow.model.Customer;
+import com.stripeflow.repository.ChargeRepository;
+import com.stripeflow.repository.CustomerRepository;
+import com.stripeflow.service.PartitionMaintenanceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the monthly partitions of charges and refunds and the charge idempotency key table
+ */
+@SpringBootTest(properties = "api.partitioning.months-ahead=3")
+@Testcontainers(disabledWithoutDocker = true)
+class PartitioningIntegrationTest {
+    
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+    
+    @Container
+    static final GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+    
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379));
+    }
+    
+    @Autowired
+    private PartitionMaintenanceService partitionMaintenanceService;
+    
+    @Autowired
+    private ChargeRepository chargeRepository;
+    
+    @Autowired
+    private CustomerRepository customerRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @Test
+    void ensurePartitions_CreatesMissingMonthsOnce() {
+        // Given - the furthest month ahead is missing for both tables
+        String month = query(
+            "SELECT TO_CHAR(DATE_TRUNC('month', CURRENT_DATE) + INTERVAL '3 months', 'YYYY_MM')", String.class);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("DROP TABLE charges_" + month);
+            jdbcTemplate.execute("DROP TABLE refunds_" + month);
+        });
+        
+        // When
+        int created = partitionMaintenanceService.ensurePartitions();
+        int createdAgain = partitionMaintenanceService.ensurePartitions();
+        
+        // Then
+        assertEquals(2, created);
+        assertEquals(0, createdAgain);
+        assertTrue(partitionExists("charges", "charges_" + month));
+        assertTrue(partitionExists("refunds", "refunds_" + month));
+    }
+    
+    @Test
+    void insert_RejectsDuplicateIdempotencyKey() {
+        // Given
+        Customer customer = saveCustomer("duplicate-key@example.com");
+        saveCharge(customer, "idem_duplicate");
+        
+        // When & Then
+        assertThrows(DataIntegrityViolationException.class, () -> saveCharge(customer, "idem_duplicate"));
+        assertEquals(1, query("SELECT COUNT(*) FROM charges WHERE idempotency_key = ?", Integer.class, "idem_duplicate"));
+    }
+    
+    @Test
+    void statusUpdate_LeavesIdempotencyKeyRowUntouched() {
+        // Given
+        Charge charge = saveCharge(saveCustomer("status-update@example.com"), "idem_status_update");
+        String keyRowVersion = keyRowVersion("idem_status_update");
+        
+        // When - Hibernate sets idempotency_key again along with the status
+        transactionTemplate.executeWithoutResult(status -> {
+            Charge managed = chargeRepository.findById(charge.getId()).orElseThrow();
+            managed.setStatus(Charge.ChargeStatus.SUCCEEDED);
+        });
+        
+        // Then - the key row was neither deleted nor rewritten
+        assertEquals("SUCCEEDED", query("SELECT status FROM charges WHERE id = ?", String.class, charge.getId()));
+        assertEquals(keyRowVersion, keyRowVersion("idem_status_update"));
+    }
+    
+    @Test
+    void findByIdempotencyKey_ResolvesThroughKeyTable() {
+        // Given
+        Charge charge = saveCharge(saveCustomer("find-by-key@example.com"), "idem_find");
+        
+        // When
+        Optional<Charge> found = transactionTemplate.execute(status -> chargeRepository.findByIdempotencyKey("idem_find"));
+        Optional<Charge> missing = transactionTemplate.execute(status -> chargeRepository.findByIdempotencyKey("idem_missing"));
+        
+        // Then
+        assertTrue(found.isPresent());
+        assertEquals(charge.getId(), found.get().getId());
+        assertFalse(missing.isPresent());
+        assertEquals(charge.getId(), query(
+            "SELECT charge_id FROM charge_idempotency_keys WHERE idempotency_key = ?", Long.class, "idem_find"));
+    }
+    
+    private Customer saveCustomer(String email) {
+        return transactionTemplate.execute(status -> customerRepository.save(new Customer(email, "Partition Customer")));
+    }
+    
+    private Charge saveCharge(Customer customer, String idempotencyKey) {
+        return transactionTemplate.execute(status -> {
+            Charge charge = new Charge(new BigDecimal("10.00"), "USD", customer);
+            charge.setIdempotencyKey(idempotencyKey);
+            return chargeRepository.saveAndFlush(charge);
+        });
+    }
+    
+    private boolean partitionExists(String parent, String partition) {
+        return query("SELECT EXISTS (SELECT 1 FROM pg_inherits WHERE inhparent = ?::regclass AND inhrelid = ?::regclass)",
+            Boolean.class, parent, partition);
+    }
+    
+    private String keyRowVersion(String idempotencyKey) {
+        return query("SELECT xmin::text FROM charge_idempotency_keys WHERE idempotency_key = ?", String.class, idempotencyKey);
+    }
+    
+    private <T> T query(String sql, Class<T> type, Object... args) {
+        return transactionTemplate.execute(status -> jdbcTemplate.queryForObject(sql, type, args));
+    }
+}
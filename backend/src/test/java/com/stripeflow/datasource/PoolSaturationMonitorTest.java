@@ -0,0 +1,78 @@
+package com.stripeflow.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PoolSaturationMonitor
+ */
+@ExtendWith(MockitoExtension.class)
+class PoolSaturationMonitorTest {
+    
+    @Mock
+    private HikariDataSource primaryDataSource;
+    
+    @Mock
+    private HikariPoolMXBean poolBean;
+    
+    @Mock
+    private ReplicaRoutingDataSource routingDataSource;
+    
+    private SimpleMeterRegistry meterRegistry;
+    private PoolSaturationMonitor monitor;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(primaryDataSource.getPoolName()).thenReturn("primary");
+        when(primaryDataSource.getHikariPoolMXBean()).thenReturn(poolBean);
+        when(routingDataSource.getReplicas()).thenReturn(List.of());
+        monitor = new PoolSaturationMonitor(primaryDataSource, routingDataSource, meterRegistry, 2);
+    }
+    
+    @Test
+    void check_AlarmsAfterConsecutiveChecksWithWaitingThreads() {
+        // Given
+        when(poolBean.getThreadsAwaitingConnection()).thenReturn(4, 0, 3, 5);
+        
+        // When
+        monitor.check();
+        monitor.check();
+        monitor.check();
+        boolean saturatedBeforeThreshold = monitor.isSaturated("primary");
+        monitor.check();
+        
+        // Then
+        assertFalse(saturatedBeforeThreshold);
+        assertTrue(monitor.isSaturated("primary"));
+        assertEquals(1.0, meterRegistry.get("stripeflow.datasource.pool.wait.alarms").tag("pool", "primary").counter().count());
+        assertEquals(1.0, meterRegistry.get("stripeflow.datasource.pool.saturated").tag("pool", "primary").gauge().value());
+    }
+    
+    @Test
+    void check_ClearsAlarmWhenNoThreadWaits() {
+        // Given
+        when(poolBean.getThreadsAwaitingConnection()).thenReturn(2, 2, 0);
+        
+        // When
+        monitor.check();
+        monitor.check();
+        monitor.check();
+        
+        // Then
+        assertFalse(monitor.isSaturated("primary"));
+        assertEquals(0.0, meterRegistry.get("stripeflow.datasource.pool.saturated").tag("pool", "primary").gauge().value());
+        assertEquals(1.0, meterRegistry.get("stripeflow.datasource.pool.wait.alarms").tag("pool", "primary").counter().count());
+    }
+}
@@ -0,0 +1,118 @@
+package com.stripeflow.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for QueryInspector and InstrumentedDataSource
+ */
+class QueryInspectorTest {
+    
+    private SimpleMeterRegistry meterRegistry;
+    private QueryInspector queryInspector;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        queryInspector = new QueryInspector(meterRegistry, 200, 1.0, 2, 3);
+    }
+    
+    @Test
+    void redact_ReplacesLiteralsAndPlaceholderLists() {
+        // When
+        String redacted = QueryInspector.redact(
+            "SELECT * FROM customers\n WHERE email = 'jane@example.com' AND id IN (?, ?, ?) AND score > 4.5");
+        
+        // Then
+        assertEquals("SELECT * FROM customers WHERE email = ? AND id IN (?, ...) AND score > ?", redacted);
+    }
+    
+    @Test
+    void record_TypesCommentPrefixedStatementsByTheirKeyword() {
+        // When
+        queryInspector.record("/* select c from Charge c where c.id = :id */ select c1_0.id from charges c1_0 where c1_0.id=7",
+            1_000);
+        
+        // Then
+        assertEquals(1, meterRegistry.get("stripeflow.database.query.time")
+            .tag("repository", QueryInspector.NO_REPOSITORY).tag("type", "select").timer().count());
+        assertEquals("select c1_0.id from charges c1_0 where c1_0.id=?", 
+            QueryInspector.redact("/* <criteria> */\n/* dynamic */ select c1_0.id from charges c1_0 where c1_0.id=7"));
+    }
+    
+    @Test
+    void endRequest_ReportsSelectsRepeatedWithinRequest() {
+        // Given
+        queryInspector.beginRequest("GET /api/v1/charges");
+        for (long id = 1; id <= 3; id++) {
+            queryInspector.record("select c.name from customers c where c.id=" + id, 1_000);
+        }
+        queryInspector.record("select ch.id from charges ch", 1_000);
+        
+        // When
+        queryInspector.endRequest();
+        
+        // Then
+        assertEquals(1, queryInspector.getNPlusOnePatterns().size());
+        QueryInspector.NPlusOnePattern pattern = queryInspector.getNPlusOnePatterns().get(0);
+        assertEquals("select c.name from customers c where c.id=?", pattern.getStatement());
+        assertEquals(3, pattern.getMaxExecutions());
+        assertEquals("GET /api/v1/charges", pattern.getLastRequest());
+    }
+    
+    @Test
+    void record_TimesStatementsByRepositoryMethodAndKeepsRecentSlowQueries() throws Throwable {
+        // When
+        QueryInspector.withRepositoryMethod("ChargeRepository.findById", () -> {
+            queryInspector.record("select * from charges where id=?", TimeUnit.MILLISECONDS.toNanos(5));
+            return null;
+        });
+        for (int i = 1; i <= 3; i++) {
+            queryInspector.record("update charges set status='SUCCEEDED' where id=" + i, 
+                TimeUnit.MILLISECONDS.toNanos(200 + i));
+        }
+        
+        // Then
+        assertEquals(1, meterRegistry.get("stripeflow.database.query.time")
+            .tag("repository", "ChargeRepository.findById").tag("type", "select").timer().count());
+        assertEquals(3, meterRegistry.get("stripeflow.database.query.time")
+            .tag("repository", QueryInspector.NO_REPOSITORY).tag("type", "update").timer().count());
+        assertEquals(2, queryInspector.getSlowQueries().size());
+        assertEquals(203, queryInspector.getSlowQueries().get(0).getMillis());
+        assertEquals("update charges set status=? where id=?", queryInspector.getSlowQueries().get(0).getStatement());
+    }
+    
+    @Test
+    void instrumentedDataSource_RecordsPreparedStatementExecutions() throws Exception {
+        // Given
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("select * from refunds where charge_id=?")).thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(1);
+        
+        // When
+        try (Connection instrumented = new InstrumentedDataSource(target, queryInspector).getConnection();
+             PreparedStatement prepared = instrumented.prepareStatement("select * from refunds where charge_id=?")) {
+            prepared.setLong(1, 42L);
+            prepared.executeUpdate();
+            assertSame(instrumented, prepared.getConnection());
+        }
+        
+        // Then
+        verify(statement).setLong(1, 42L);
+        verify(statement).close();
+        verify(connection).close();
+        assertEquals(1, meterRegistry.get("stripeflow.database.query.time").tag("type", "select").timer().count());
+    }
+}
@@ -0,0 +1,141 @@
+package com.stripeflow.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ReplicaRoutingDataSource
+ */
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+    
+    @Mock
+    private DataSource primary;
+    
+    @Mock
+    private DataSource replicaDataSource;
+    
+    @Mock
+    private Connection primaryConnection;
+    
+    @Mock
+    private Connection replicaConnection;
+    
+    private ReplicaRoutingDataSource.Replica replica;
+    private ReplicaRoutingDataSource routingDataSource;
+    
+    @BeforeEach
+    void setUp() {
+        replica = new ReplicaRoutingDataSource.Replica("replica-1", replicaDataSource);
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica), 5000, new SimpleMeterRegistry());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+    
+    @Test
+    void getConnection_RoutesReadOnlyTransactionsToCaughtUpReplica() throws SQLException {
+        // Given
+        replicaReportsLag(100);
+        routingDataSource.checkReplicaLag();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        
+        // When
+        Connection connection = routingDataSource.getConnection();
+        
+        // Then
+        assertTrue(replica.isHealthy());
+        assertSame(replicaConnection, connection);
+    }
+    
+    @Test
+    void getConnection_UsesPrimaryWhenReplicaLagsTooFarBehind() throws SQLException {
+        // Given
+        replicaReportsLag(60_000);
+        routingDataSource.checkReplicaLag();
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        
+        // When
+        Connection connection = routingDataSource.getConnection();
+        
+        // Then
+        assertFalse(replica.isHealthy());
+        assertSame(primaryConnection, connection);
+    }
+    
+    @Test
+    void getConnection_FallsBackToPrimaryWhenReplicaRefusesConnection() throws SQLException {
+        // Given
+        replicaReportsLag(0);
+        routingDataSource.checkReplicaLag();
+        when(replicaDataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        
+        // When
+        Connection connection = routingDataSource.getConnection();
+        
+        // Then
+        assertSame(primaryConnection, connection);
+        assertFalse(replica.isHealthy());
+    }
+    
+    @Test
+    void getConnection_UsesPrimaryOutsideReadOnlyTransactions() throws SQLException {
+        // Given
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        
+        // When
+        Connection connection = routingDataSource.getConnection();
+        
+        // Then
+        assertSame(primaryConnection, connection);
+        verifyNoInteractions(replicaDataSource);
+    }
+    
+    private void replicaReportsLag(double lagMillis) throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(replicaDataSource.getConnection()).thenReturn(replicaConnection);
+        when(replicaConnection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn(lagMillis);
+    }
+    
+    @Test
+    void destroy_ClosesReplicaPoolsButNotPrimary() throws Exception {
+        // Given
+        DataSource closeablePrimary = mock(DataSource.class, withSettings().extraInterfaces(AutoCloseable.class));
+        DataSource replicaPool = mock(DataSource.class, withSettings().extraInterfaces(AutoCloseable.class));
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(closeablePrimary,
+            List.of(new ReplicaRoutingDataSource.Replica("replica-1", replicaPool)), 5000, new SimpleMeterRegistry());
+        
+        // When
+        dataSource.destroy();
+        
+        // Then
+        verify((AutoCloseable) replicaPool).close();
+        verify((AutoCloseable) closeablePrimary, never()).close();
+    }
+}
@@ -0,0 +1,95 @@
+package com.stripeflow.datasource;
+
+import com.stripeflow.model.Customer;
+import com.stripeflow.repository.CustomerRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for transactions on the pooled Postgres DataSource
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class TransactionIntegrationTest {
+    
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+    
+    @Container
+    static final GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+    
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379));
+    }
+    
+    @Autowired
+    private CustomerRepository customerRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private HikariDataSource primaryDataSource;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @Test
+    void primaryPool_DisablesAutoCommit() {
+        // Then
+        assertFalse(primaryDataSource.isAutoCommit());
+    }
+    
+    @Test
+    void transaction_CommitsWrite() {
+        // When
+        transactionTemplate.executeWithoutResult(status -> 
+            customerRepository.save(new Customer("committed@example.com", "Committed Customer")));
+        
+        // Then - read on another connection
+        assertEquals(1, countCustomers("committed@example.com"));
+    }
+    
+    @Test
+    void transaction_RollsBackWrite() {
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            customerRepository.saveAndFlush(new Customer("rolled-back@example.com", "Rolled Back Customer"));
+            status.setRollbackOnly();
+        });
+        
+        // Then
+        assertEquals(0, countCustomers("rolled-back@example.com"));
+    }
+    
+    private int countCustomers(String email) {
+        return transactionTemplate.execute(status -> 
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customers WHERE email = ?", Integer.class, email));
+    }
+}
@@ -0,0 +1,102 @@
+package com.stripeflow.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.stripeflow.cache.CachedApiKey;
+import com.stripeflow.service.ApiKeyService;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ApiKeyAuthenticationFilter
+ */
+@ExtendWith(MockitoExtension.class)
+class ApiKeyAuthenticationFilterTest {
+    
+    @Mock
+    private ApiKeyService apiKeyService;
+    
+    @Mock
+    private TokenBucketRateLimiter rateLimiter;
+    
+    @Mock
+    private FilterChain filterChain;
+    
+    private ApiKeyAuthenticationFilter filter;
+    
+    @BeforeEach
+    void setUp() {
+        filter = new ApiKeyAuthenticationFilter(apiKeyService, rateLimiter,
+            new ObjectMapper().registerModule(new JavaTimeModule()), "X-API-Key", true, true);
+    }
+    
+    @Test
+    void doFilter_AcceptsCachedKeyWithoutSpendingLookupTokens() throws Exception {
+        // Given
+        when(apiKeyService.findCached("sk_test_123")).thenReturn(new CachedApiKey(1L, "Test key"));
+        
+        // When
+        MockHttpServletResponse response = filter(request("sk_test_123"));
+        
+        // Then
+        assertEquals(200, response.getStatus());
+        verify(filterChain).doFilter(any(), any());
+        verify(rateLimiter, never()).tryAcquire(anyString());
+        verify(apiKeyService, never()).authenticate(anyString());
+    }
+    
+    @Test
+    void doFilter_RateLimitsLookupsByClientAddressBeforeTheDatabase() throws Exception {
+        // Given
+        when(rateLimiter.tryAcquire("lookup:ip:10.0.0.7"))
+            .thenReturn(new TokenBucketRateLimiter.Decision(false, 0, 1500));
+        
+        // When
+        MockHttpServletResponse response = filter(request("sk_invalid"));
+        
+        // Then
+        assertEquals(429, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        verify(apiKeyService, never()).authenticate(anyString());
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+    
+    @Test
+    void doFilter_RejectsUnknownKeyAfterLookup() throws Exception {
+        // Given
+        when(rateLimiter.tryAcquire("lookup:ip:10.0.0.7"))
+            .thenReturn(new TokenBucketRateLimiter.Decision(true, 99, 0));
+        
+        // When
+        MockHttpServletResponse response = filter(request("sk_invalid"));
+        
+        // Then
+        assertEquals(401, response.getStatus());
+        verify(apiKeyService).authenticate("sk_invalid");
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+    
+    private MockHttpServletRequest request(String apiKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers");
+        request.setRemoteAddr("10.0.0.7");
+        request.addHeader("X-API-Key", apiKey);
+        return request;
+    }
+    
+    private MockHttpServletResponse filter(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, filterChain);
+        return response;
+    }
+}
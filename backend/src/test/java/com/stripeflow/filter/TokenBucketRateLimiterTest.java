@@ -0,0 +1,87 @@
+package com.stripeflow.filter;
+
+import com.stripeflow.cache.RedisCircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TokenBucketRateLimiter
+ */
+@ExtendWith(MockitoExtension.class)
+class TokenBucketRateLimiterTest {
+    
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    
+    private TokenBucketRateLimiter rateLimiter;
+    
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new TokenBucketRateLimiter(redisTemplate,
+            new RedisCircuitBreaker(new SimpleMeterRegistry(), Runnable::run, 5, 250, 5000), new SimpleMeterRegistry(), 60, 100, 10);
+    }
+    
+    @Test
+    void tryAcquire_LeasesLargerBatchesForBusyClients() {
+        // Given
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString(), anyString()))
+            .thenAnswer(invocation -> List.of(Long.parseLong(invocation.getArgument(4)), 90L, 0L));
+        
+        // When
+        for (int i = 0; i < 7; i++) {
+            assertTrue(rateLimiter.tryAcquire("key:client").isAllowed());
+        }
+        
+        // Then
+        verify(redisTemplate).execute(any(RedisScript.class), anyList(), anyString(), anyString(), eq("1"));
+        verify(redisTemplate).execute(any(RedisScript.class), anyList(), anyString(), anyString(), eq("2"));
+        verify(redisTemplate).execute(any(RedisScript.class), anyList(), anyString(), anyString(), eq("4"));
+        verify(redisTemplate, times(3)).execute(any(RedisScript.class), anyList(), anyString(), anyString(), anyString());
+    }
+    
+    @Test
+    void tryAcquire_RejectsLocallyUntilBucketRefills() {
+        // Given
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString(), anyString()))
+            .thenReturn(List.of(0L, 0L, 2000L));
+        
+        // When
+        TokenBucketRateLimiter.Decision first = rateLimiter.tryAcquire("key:client");
+        TokenBucketRateLimiter.Decision second = rateLimiter.tryAcquire("key:client");
+        
+        // Then
+        assertFalse(first.isAllowed());
+        assertFalse(second.isAllowed());
+        assertTrue(second.getRetryAfterMillis() > 0 && second.getRetryAfterMillis() <= 2000);
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), anyList(), anyString(), anyString(), anyString());
+    }
+    
+    @Test
+    void tryAcquire_AllowsRequestsWhileRedisIsUnavailable() {
+        // Given
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString(), anyString()))
+            .thenThrow(new QueryTimeoutException("Redis command timed out"));
+        
+        // When
+        TokenBucketRateLimiter.Decision decision = rateLimiter.tryAcquire("key:client");
+        
+        // Then
+        assertTrue(decision.isAllowed());
+    }
+}
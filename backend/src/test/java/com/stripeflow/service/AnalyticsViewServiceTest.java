@@ -0,0 +1,90 @@
+package com.stripeflow.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AnalyticsViewService
+ */
+@ExtendWith(MockitoExtension.class)
+class AnalyticsViewServiceTest {
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    
+    @InjectMocks
+    private AnalyticsViewService analyticsViewService;
+    
+    @Test
+    void refreshDueViews_RefreshesOnlyDueViews() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(Boolean.class), any(), eq("mv_charge_statistics")))
+            .thenReturn(List.of(true));
+        when(jdbcTemplate.queryForList(anyString(), eq(Boolean.class), any(), eq("mv_webhook_statistics")))
+            .thenReturn(List.of(false));
+        
+        // When
+        int refreshed = analyticsViewService.refreshDueViews();
+        
+        // Then
+        assertEquals(1, refreshed);
+        verify(jdbcTemplate).execute("REFRESH MATERIALIZED VIEW CONCURRENTLY mv_charge_statistics");
+        verify(jdbcTemplate, never()).execute("REFRESH MATERIALIZED VIEW CONCURRENTLY mv_webhook_statistics");
+        assertEquals(1, meterRegistry.get("stripeflow.analytics.view.refresh")
+            .tag("view", "mv_charge_statistics").tag("result", "success").timer().count());
+    }
+    
+    @Test
+    void refreshDueViews_SkipsViewsLockedByAnotherNode() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(Boolean.class), any(), anyString())).thenReturn(List.of());
+        
+        // When
+        int refreshed = analyticsViewService.refreshDueViews();
+        
+        // Then
+        assertEquals(0, refreshed);
+        verify(jdbcTemplate, never()).execute(anyString());
+        assertEquals(1, meterRegistry.get("stripeflow.analytics.view.refresh.skipped")
+            .tag("view", "mv_webhook_statistics").tag("reason", "locked").counter().count());
+    }
+    
+    @Test
+    void refreshDueViews_ContinuesAfterFailedRefresh() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(Boolean.class), any(), anyString())).thenReturn(List.of(true));
+        doThrow(new DataAccessResourceFailureException("connection lost"))
+            .when(jdbcTemplate).execute("REFRESH MATERIALIZED VIEW CONCURRENTLY mv_charge_statistics");
+        
+        // When
+        int refreshed = analyticsViewService.refreshDueViews();
+        
+        // Then
+        assertEquals(1, refreshed);
+        verify(transactionManager).rollback(any());
+        verify(jdbcTemplate).update(anyString(), eq("mv_webhook_statistics"));
+    }
+}
@@ -0,0 +1,118 @@
+package com.stripeflow.service;
+
+import com.stripeflow.cache.CachedApiKey;
+import com.stripeflow.model.ApiKey;
+import com.stripeflow.repository.ApiKeyRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ApiKeyService
+ */
+@ExtendWith(MockitoExtension.class)
+class ApiKeyServiceTest {
+    
+    @Mock
+    private ApiKeyRepository apiKeyRepository;
+    
+    @Mock
+    private CacheService cacheService;
+    
+    @Mock
+    private CacheManager cacheManager;
+    
+    @InjectMocks
+    private ApiKeyService apiKeyService;
+    
+    @Test
+    void authenticate_LooksUpKeyByHash() throws Exception {
+        // Given
+        ApiKey apiKey = new ApiKey(ApiKeyService.hashKey("sk_test_123"), "Test key");
+        apiKey.setId(1L);
+        when(apiKeyRepository.findByKeyHashAndEnabledTrue(ApiKeyService.hashKey("sk_test_123")))
+            .thenReturn(Optional.of(apiKey));
+        loadThroughCache();
+        
+        // When
+        CachedApiKey result = apiKeyService.authenticate("sk_test_123");
+        
+        // Then
+        assertEquals(new CachedApiKey(1L, "Test key"), result);
+    }
+    
+    @Test
+    void authenticate_RemembersUnknownKeys() throws Exception {
+        // Given
+        when(apiKeyRepository.findByKeyHashAndEnabledTrue(anyString())).thenReturn(Optional.empty());
+        loadThroughCache();
+        
+        // When
+        CachedApiKey first = apiKeyService.authenticate("sk_unknown");
+        CachedApiKey second = apiKeyService.authenticate("sk_unknown");
+        
+        // Then
+        assertNull(first);
+        assertNull(second);
+        verify(apiKeyRepository, times(1)).findByKeyHashAndEnabledTrue(anyString());
+    }
+    
+    @Test
+    void authenticate_RejectsDisabledKeyOnceCacheEntryIsGone() throws Exception {
+        // Given - the key is enabled on the first load and disabled before its cache entry expires
+        ApiKey apiKey = new ApiKey(ApiKeyService.hashKey("sk_test_123"), "Test key");
+        apiKey.setId(1L);
+        when(apiKeyRepository.findByKeyHashAndEnabledTrue(ApiKeyService.hashKey("sk_test_123")))
+            .thenReturn(Optional.of(apiKey), Optional.empty());
+        loadThroughCache();
+        
+        // When
+        CachedApiKey beforeDisable = apiKeyService.authenticate("sk_test_123");
+        CachedApiKey afterExpiry = apiKeyService.authenticate("sk_test_123");
+        
+        // Then
+        assertEquals(new CachedApiKey(1L, "Test key"), beforeDisable);
+        assertNull(afterExpiry);
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushLastUsed_WritesAllUsedKeysInOneUpdate() {
+        // Given
+        apiKeyService.recordUsage(1L);
+        apiKeyService.recordUsage(2L);
+        apiKeyService.recordUsage(1L);
+        when(apiKeyRepository.updateLastUsed(any(), any(LocalDateTime.class))).thenReturn(2);
+        
+        // When
+        int updated = apiKeyService.flushLastUsed();
+        int updatedAgain = apiKeyService.flushLastUsed();
+        
+        // Then
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(apiKeyRepository, times(1)).updateLastUsed(ids.capture(), any(LocalDateTime.class));
+        assertEquals(2, ids.getValue().size());
+        assertEquals(2, updated);
+        assertEquals(0, updatedAgain);
+    }
+    
+    private void loadThroughCache() throws Exception {
+        when(cacheService.get(eq("apiKeys"), anyString(), eq(CachedApiKey.class), any()))
+            .thenAnswer(invocation -> invocation.<Callable<?>>getArgument(3).call());
+    }
+}
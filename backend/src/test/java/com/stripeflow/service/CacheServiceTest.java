@@ -0,0 +1,141 @@
+package com.stripeflow.service;
+
+import com.stripeflow.cache.CacheInvalidator;
+import com.stripeflow.cache.CacheMetrics;
+import com.stripeflow.cache.RedisCircuitBreaker;
+import com.stripeflow.cache.TwoTierCacheManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CacheService
+ */
+@ExtendWith(MockitoExtension.class)
+class CacheServiceTest {
+    
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+    
+    @Mock
+    private CacheManager cacheManager;
+    
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    
+    @Mock
+    private CacheInvalidator cacheInvalidator;
+    
+    @Mock
+    private CacheMetrics cacheMetrics;
+    
+    @Mock
+    private Executor cacheRefreshExecutor;
+    
+    @Spy
+    private RedisCircuitBreaker redisCircuitBreaker = new RedisCircuitBreaker(new SimpleMeterRegistry(), Runnable::run, 5, 250, 5000);
+    
+    @InjectMocks
+    private CacheService cacheService;
+    
+    private TwoTierCacheManager twoTierCacheManager;
+    
+    @BeforeEach
+    void setUp() {
+        twoTierCacheManager = new TwoTierCacheManager(new ConcurrentMapCacheManager("customers"), stringRedisTemplate,
+            Map.of(), new TwoTierCacheManager.LocalCacheSpec(100, Duration.ofMinutes(1)), 
+            new CacheMetrics(new SimpleMeterRegistry()));
+        when(cacheManager.getCache("customers")).thenReturn(twoTierCacheManager.getCache("customers"));
+    }
+    
+    @Test
+    void get_LoadsMissOnceAndReturnsTypedValue() {
+        // When
+        String first = cacheService.get("customers", 1L, String.class, () -> "customer-1");
+        String second = cacheService.get("customers", 1L, String.class, () -> "reloaded");
+        
+        // Then
+        assertEquals("customer-1", first);
+        assertEquals("customer-1", second);
+    }
+    
+    @Test
+    void get_RejectsValueOfWrongType() {
+        // Given
+        cacheService.get("customers", 1L, String.class, () -> "customer-1");
+        
+        // When & Then
+        assertThrows(IllegalStateException.class, 
+            () -> cacheService.get("customers", 1L, Integer.class, () -> 1));
+    }
+    
+    @Test
+    void getAll_BulkLoadsOnlyMissesInRequestedOrder() {
+        // Given
+        cacheService.get("customers", 2L, String.class, () -> "customer-2");
+        List<Collection<Long>> bulkLoads = new ArrayList<>();
+        
+        // When
+        Map<Long, String> customers = cacheService.getAll("customers", Arrays.asList(3L, 2L, 1L, 4L), String.class,
+            ids -> {
+                bulkLoads.add(new ArrayList<>(ids));
+                return ids.stream()
+                    .filter(id -> id != 4L)
+                    .collect(Collectors.toMap(id -> id, id -> "customer-" + id));
+            });
+        
+        // Then
+        assertEquals(Arrays.asList(3L, 2L, 1L), new ArrayList<>(customers.keySet()));
+        assertEquals("customer-3", customers.get(3L));
+        assertEquals(1, bulkLoads.size());
+        assertEquals(Arrays.asList(3L, 1L, 4L), bulkLoads.get(0));
+        
+        // Loaded values are cached for the next multi-get
+        Map<Long, String> cached = cacheService.getAll("customers", Arrays.asList(1L, 3L), String.class,
+            ids -> { throw new AssertionError("Unexpected bulk load of " + ids); });
+        assertEquals(2, cached.size());
+    }
+    
+    @Test
+    void getOrRefresh_ServesCurrentValueWhileRefreshingInBackground() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> "stats-" + loads.incrementAndGet();
+        cacheService.getOrRefresh("customers", "stats", Duration.ZERO, loader);
+        
+        // When - the entry is due, so the read schedules a refresh and returns the current value
+        String served = cacheService.getOrRefresh("customers", "stats", Duration.ZERO, loader);
+        ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(Runnable.class);
+        verify(cacheRefreshExecutor).execute(refresh.capture());
+        refresh.getValue().run();
+        
+        // Then
+        assertEquals("stats-1", served);
+        assertEquals("stats-2", cacheService.getOrRefresh("customers", "stats", Duration.ofMinutes(5), loader));
+        assertEquals(2, loads.get());
+    }
+}
@@ -18,9 +18,13 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -324,6 +328,25 @@ class ChargeServiceTest {
         verify(chargeRepository).countChargesByStatus(Charge.ChargeStatus.SUCCEEDED);
         verify(chargeRepository).countChargesByStatus(Charge.ChargeStatus.FAILED);
     }
+    
+    @Test
+    void forEachChargeCreatedBetween_PassesEachChargeAndClosesCursor() {
+        // Given
+        LocalDateTime startDate = LocalDateTime.now().minusDays(30);
+        LocalDateTime endDate = LocalDateTime.now();
+        AtomicBoolean closed = new AtomicBoolean();
+        when(chargeRepository.streamChargesCreatedBetween(startDate, endDate))
+            .thenReturn(Stream.of(testCharge).onClose(() -> closed.set(true)));
+        List<ChargeResponse> exported = new ArrayList<>();
+        
+        // When
+        chargeService.forEachChargeCreatedBetween(startDate, endDate, exported::add);
+        
+        // Then
+        assertEquals(1, exported.size());
+        assertEquals(1L, exported.get(0).getId());
+        assertTrue(closed.get());
+    }
 }
 
 
@@ -0,0 +1,64 @@
+package com.stripeflow.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WebhookDeliveryStats
+ */
+class WebhookDeliveryStatsTest {
+    
+    private static final long NOW = 1_700_000_000_000L;
+    
+    private WebhookDeliveryStats stats;
+    
+    @BeforeEach
+    void setUp() {
+        stats = new WebhookDeliveryStats(15);
+    }
+    
+    @Test
+    void getSnapshot_ComputesSuccessRateAndPercentiles() {
+        // Given
+        for (int i = 0; i < 98; i++) {
+            stats.recordDelivery(1L, true, 100, NOW);
+        }
+        stats.recordDelivery(1L, false, 5000, NOW);
+        stats.recordDelivery(1L, false, 5000, NOW);
+        
+        // When
+        WebhookDeliveryStats.Snapshot snapshot = stats.getSnapshot(1L, NOW);
+        
+        // Then
+        assertEquals(100, snapshot.getAttempts());
+        assertEquals(98.0, snapshot.getSuccessRate());
+        assertTrue(snapshot.getP50LatencyMillis() >= 100 && snapshot.getP50LatencyMillis() < 130);
+        assertTrue(snapshot.getP99LatencyMillis() >= 5000 && snapshot.getP99LatencyMillis() < 6500);
+    }
+    
+    @Test
+    void getSnapshot_DropsBucketsOutsideWindow() {
+        // Given
+        stats.recordDelivery(1L, false, 100, NOW);
+        stats.recordDelivery(1L, true, 100, NOW + 20 * 60_000L);
+        
+        // When
+        WebhookDeliveryStats.Snapshot snapshot = stats.getSnapshot(1L, NOW + 20 * 60_000L);
+        
+        // Then
+        assertEquals(1, snapshot.getAttempts());
+        assertEquals(100.0, snapshot.getSuccessRate());
+    }
+    
+    @Test
+    void getSnapshot_UnknownEndpoint() {
+        // When
+        WebhookDeliveryStats.Snapshot snapshot = stats.getSnapshot(2L, NOW);
+        
+        // Then
+        assertEquals(0, snapshot.getAttempts());
+        assertEquals(0.0, snapshot.getSuccessRate());
+    }
+}
@@ -0,0 +1,126 @@
+package com.stripeflow.service;
+
+import com.stripeflow.model.WebhookEndpoint;
+import com.stripeflow.repository.WebhookEndpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for WebhookHealthService
+ */
+@ExtendWith(MockitoExtension.class)
+class WebhookHealthServiceTest {
+    
+    @Mock
+    private WebhookEndpointRepository webhookEndpointRepository;
+    
+    @Mock
+    private WebhookDeliveryStats webhookDeliveryStats;
+    
+    @Mock
+    private WebhookService webhookService;
+    
+    @InjectMocks
+    private WebhookHealthService webhookHealthService;
+    
+    private WebhookEndpoint testEndpoint;
+    
+    @BeforeEach
+    void setUp() {
+        testEndpoint = new WebhookEndpoint();
+        testEndpoint.setId(1L);
+        testEndpoint.setUrl("https://example.com/webhook");
+        testEndpoint.setEnabled(true);
+    }
+    
+    @Test
+    void calculateHealthScore_WeighsSuccessAndLatency() {
+        // Given
+        WebhookDeliveryStats.Snapshot healthy = new WebhookDeliveryStats.Snapshot(15, 100, 0, 100, 500);
+        WebhookDeliveryStats.Snapshot slow = new WebhookDeliveryStats.Snapshot(15, 100, 0, 100, 8000);
+        WebhookDeliveryStats.Snapshot dead = new WebhookDeliveryStats.Snapshot(15, 0, 50, 100, 500);
+        WebhookDeliveryStats.Snapshot mostlyFailing = new WebhookDeliveryStats.Snapshot(15, 10, 90, 100, 500);
+        
+        // When & Then
+        assertEquals(1.0, webhookHealthService.calculateHealthScore(healthy), 0.001);
+        assertEquals(0.85, webhookHealthService.calculateHealthScore(slow), 0.001);
+        assertEquals(0.0, webhookHealthService.calculateHealthScore(dead), 0.001);
+        assertEquals(0.1, webhookHealthService.calculateHealthScore(mostlyFailing), 0.001);
+    }
+    
+    @Test
+    void quarantineUnhealthyEndpoints_QuarantinesFailingEndpoint() {
+        // Given
+        when(webhookEndpointRepository.findByEnabledTrueAndQuarantined(false)).thenReturn(Arrays.asList(testEndpoint));
+        when(webhookDeliveryStats.getSnapshot(1L)).thenReturn(new WebhookDeliveryStats.Snapshot(15, 1, 49, 100, 500));
+        when(webhookEndpointRepository.quarantine(eq(1L), any())).thenReturn(1);
+        
+        // When
+        int quarantined = webhookHealthService.quarantineUnhealthyEndpoints();
+        
+        // Then
+        assertEquals(1, quarantined);
+        verify(webhookEndpointRepository).quarantine(eq(1L), any());
+        verify(webhookEndpointRepository, never()).save(any());
+    }
+    
+    @Test
+    void quarantineUnhealthyEndpoints_IgnoresEndpointWithFewAttempts() {
+        // Given
+        when(webhookEndpointRepository.findByEnabledTrueAndQuarantined(false)).thenReturn(Arrays.asList(testEndpoint));
+        when(webhookDeliveryStats.getSnapshot(1L)).thenReturn(new WebhookDeliveryStats.Snapshot(15, 0, 5, 100, 500));
+        
+        // When
+        int quarantined = webhookHealthService.quarantineUnhealthyEndpoints();
+        
+        // Then
+        assertEquals(0, quarantined);
+        verify(webhookEndpointRepository, never()).quarantine(anyLong(), any());
+    }
+    
+    @Test
+    void probeQuarantinedEndpoints_ReleasesRecoveredEndpoint() {
+        // Given
+        testEndpoint.setQuarantined(true);
+        when(webhookEndpointRepository.findByEnabledTrueAndQuarantined(true)).thenReturn(Arrays.asList(testEndpoint));
+        when(webhookService.sendProbe(testEndpoint)).thenReturn(true);
+        
+        // When
+        int released = webhookHealthService.probeQuarantinedEndpoints();
+        
+        // Then
+        assertEquals(1, released);
+        verify(webhookEndpointRepository).releaseQuarantine(eq(1L), any());
+        verify(webhookDeliveryStats).removeEndpoint(1L);
+        verify(webhookService, never()).deliverWebhookEvent(any());
+    }
+    
+    @Test
+    void probeQuarantinedEndpoints_KeepsFailingEndpointQuarantined() {
+        // Given
+        testEndpoint.setQuarantined(true);
+        when(webhookEndpointRepository.findByEnabledTrueAndQuarantined(true)).thenReturn(Arrays.asList(testEndpoint));
+        when(webhookService.sendProbe(testEndpoint)).thenReturn(false);
+        
+        // When
+        int released = webhookHealthService.probeQuarantinedEndpoints();
+        
+        // Then
+        assertEquals(0, released);
+        verify(webhookEndpointRepository).recordProbe(eq(1L), any());
+        verify(webhookEndpointRepository, never()).releaseQuarantine(anyLong(), any());
+        verify(webhookDeliveryStats, never()).removeEndpoint(any());
+    }
+}
@@ -17,6 +17,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 
+import java.sql.Date;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -39,6 +41,12 @@ class WebhookManagementServiceTest {
     @Mock
     private WebhookEventRepository webhookEventRepository;
     
+    @Mock
+    private WebhookDeliveryStats webhookDeliveryStats;
+    
+    @Mock
+    private WebhookHealthService webhookHealthService;
+    
     @InjectMocks
     private WebhookManagementService webhookManagementService;
     
@@ -231,10 +239,12 @@ class WebhookManagementServiceTest {
         // Given
         when(webhookEndpointRepository.count()).thenReturn(5L);
         when(webhookEndpointRepository.countEnabledEndpoints()).thenReturn(3L);
-        when(webhookEventRepository.count()).thenReturn(100L);
-        when(webhookEventRepository.countEventsByStatus(WebhookEvent.WebhookEventStatus.PENDING)).thenReturn(10L);
-        when(webhookEventRepository.countEventsByStatus(WebhookEvent.WebhookEventStatus.DELIVERED)).thenReturn(80L);
-        when(webhookEventRepository.countEventsByStatus(WebhookEvent.WebhookEventStatus.FAILED)).thenReturn(10L);
+        when(webhookEventRepository.summarizeStatusCountsFromView()).thenReturn(Arrays.asList(
+            new Object[]{"PENDING", 10L, Date.valueOf("2026-10-13")},
+            new Object[]{"DELIVERED", 80L, Date.valueOf("2026-10-12")},
+            new Object[]{"FAILED", 10L, Date.valueOf("2026-10-14")}
+        ));
+        when(webhookEventRepository.countPendingEvents()).thenReturn(25L);
         
         // When
         WebhookManagementService.WebhookStatistics statistics = webhookManagementService.getWebhookStatistics();
@@ -244,17 +254,51 @@ class WebhookManagementServiceTest {
         assertEquals(5L, statistics.getTotalEndpoints());
         assertEquals(3L, statistics.getEnabledEndpoints());
         assertEquals(100L, statistics.getTotalEvents());
-        assertEquals(10L, statistics.getPendingEvents());
+        assertEquals(25L, statistics.getPendingEvents());
         assertEquals(80L, statistics.getDeliveredEvents());
         assertEquals(10L, statistics.getFailedEvents());
         assertEquals(80.0, statistics.getDeliverySuccessRate());
+        assertEquals(LocalDate.of(2026, 10, 12), statistics.getEventsSince());
         
         verify(webhookEndpointRepository).count();
         verify(webhookEndpointRepository).countEnabledEndpoints();
-        verify(webhookEventRepository).count();
-        verify(webhookEventRepository).countEventsByStatus(WebhookEvent.WebhookEventStatus.PENDING);
-        verify(webhookEventRepository).countEventsByStatus(WebhookEvent.WebhookEventStatus.DELIVERED);
-        verify(webhookEventRepository).countEventsByStatus(WebhookEvent.WebhookEventStatus.FAILED);
+        verify(webhookEventRepository).summarizeStatusCountsFromView();
+        verify(webhookEventRepository).countPendingEvents();
+        verify(webhookEventRepository, never()).count();
+    }
+    
+    @Test
+    void getEndpointStatistics_Success() {
+        // Given
+        when(webhookEndpointRepository.existsById(1L)).thenReturn(true);
+        when(webhookDeliveryStats.getSnapshot(1L)).thenReturn(new WebhookDeliveryStats.Snapshot(15, 95, 5, 120, 900));
+        when(webhookEventRepository.countPendingEventsByEndpoint(1L)).thenReturn(3L);
+        when(webhookEventRepository.summarizeEndpointStatusCountsFromView(1L)).thenReturn(Arrays.asList(
+            new Object[]{"DELIVERED", 500L, 0.8},
+            new Object[]{"FAILED", 20L, 2.5}
+        ));
+        
+        // When
+        WebhookManagementService.EndpointStatistics statistics = webhookManagementService.getEndpointStatistics(1L);
+        
+        // Then
+        assertEquals(100L, statistics.getAttempts());
+        assertEquals(95.0, statistics.getSuccessRate());
+        assertEquals(120L, statistics.getP50LatencyMillis());
+        assertEquals(900L, statistics.getP99LatencyMillis());
+        assertEquals(3L, statistics.getBacklog());
+        assertEquals(500L, statistics.getDeliveredEvents());
+        assertEquals(20L, statistics.getFailedEvents());
+        assertEquals(0.8, statistics.getAverageDeliverySeconds());
+    }
+    
+    @Test
+    void getEndpointStatistics_NotFound() {
+        // Given
+        when(webhookEndpointRepository.existsById(99L)).thenReturn(false);
+        
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> webhookManagementService.getEndpointStatistics(99L));
     }
 }
 
@@ -0,0 +1,94 @@
+package com.stripeflow.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripeflow.model.WebhookEndpoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WebhookPayloadCompressor
+ */
+class WebhookPayloadCompressorTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    
+    private SimpleMeterRegistry meterRegistry;
+    private WebhookPayloadCompressor compressor;
+    private WebhookEndpoint endpoint;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        compressor = new WebhookPayloadCompressor(objectMapper, meterRegistry, 100, 1024 * 1024);
+        endpoint = new WebhookEndpoint();
+        endpoint.setAcceptGzip(true);
+    }
+    
+    @Test
+    void shouldCompress_OnlyLargePayloadsForAcceptingEndpoints() {
+        // Given
+        WebhookService.WebhookPayload small = payload("1", "x");
+        WebhookService.WebhookPayload large = payload("1", "x".repeat(200));
+        WebhookEndpoint plainEndpoint = new WebhookEndpoint();
+        
+        // When & Then
+        assertFalse(compressor.shouldCompress(endpoint, small));
+        assertTrue(compressor.shouldCompress(endpoint, large));
+        assertFalse(compressor.shouldCompress(plainEndpoint, large));
+    }
+    
+    @Test
+    void compress_ProducesGzipJsonBody() throws IOException {
+        // Given
+        String data = "{\"metadata\":\"" + "value ".repeat(100) + "\"}";
+        WebhookService.WebhookPayload payload = payload("42", data);
+        payload.setSignature("sha256=abc");
+        
+        // When
+        byte[] body = compressor.compress(payload);
+        
+        // Then
+        JsonNode json = objectMapper.readTree(new GZIPInputStream(new ByteArrayInputStream(body)));
+        assertEquals("42", json.get("id").asText());
+        assertEquals("customer.updated", json.get("type").asText());
+        assertEquals(data, json.get("data").asText());
+        assertEquals("sha256=abc", json.get("signature").asText());
+        assertTrue(body.length < data.length());
+    }
+    
+    @Test
+    void compress_ReusesCompressedDataAcrossAttempts() throws IOException {
+        // Given
+        String data = "value ".repeat(100);
+        
+        // When
+        compressor.compress(payload("1", data));
+        byte[] retry = compressor.compress(payload("2", data));
+        
+        // Then
+        JsonNode json = objectMapper.readTree(new GZIPInputStream(new ByteArrayInputStream(retry)));
+        assertEquals("2", json.get("id").asText());
+        assertEquals(data, json.get("data").asText());
+        assertEquals(1.0, meterRegistry.get("stripeflow.webhooks.compression.cache").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("stripeflow.webhooks.compression.cache").tag("result", "miss").counter().count());
+        assertEquals(2L, meterRegistry.get("stripeflow.webhooks.compression.ratio").summary().count());
+    }
+    
+    private WebhookService.WebhookPayload payload(String id, String data) {
+        WebhookService.WebhookPayload payload = new WebhookService.WebhookPayload();
+        payload.setId(id);
+        payload.setType("customer.updated");
+        payload.setData(data);
+        payload.setCreated(LocalDateTime.now());
+        return payload;
+    }
+}
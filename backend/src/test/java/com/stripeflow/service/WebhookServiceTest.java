@@ -1,24 +1,32 @@
 package com.stripeflow.service;
 
+import com.stripeflow.model.Charge;
 import com.stripeflow.model.WebhookEndpoint;
 import com.stripeflow.model.WebhookEvent;
 import com.stripeflow.repository.WebhookEndpointRepository;
 import com.stripeflow.repository.WebhookEventRepository;
+import com.stripeflow.util.KeyedSerialExecutor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -36,6 +44,15 @@ class WebhookServiceTest {
     @Mock
     private RestTemplate restTemplate;
     
+    @Mock
+    private KeyedSerialExecutor webhookDeliveryExecutor;
+    
+    @Mock
+    private WebhookDeliveryStats webhookDeliveryStats;
+    
+    @Mock
+    private WebhookPayloadCompressor webhookPayloadCompressor;
+    
     @InjectMocks
     private WebhookService webhookService;
     
@@ -80,7 +97,7 @@ class WebhookServiceTest {
     }
     
     @Test
-    void processWebhookDelivery_Success() {
+    void deliverWebhookEvent_Success() {
         // Given
         WebhookEvent webhookEvent = new WebhookEvent();
         webhookEvent.setId(1L);
@@ -92,16 +109,15 @@ class WebhookServiceTest {
         when(webhookEventRepository.save(any(WebhookEvent.class))).thenReturn(webhookEvent);
         
         // When
-        CompletableFuture<Void> result = webhookService.processWebhookDelivery(webhookEvent);
+        webhookService.deliverWebhookEvent(webhookEvent);
         
         // Then
-        assertNotNull(result);
         verify(restTemplate).postForObject(anyString(), any(), any());
         verify(webhookEventRepository, atLeastOnce()).save(any(WebhookEvent.class));
     }
     
     @Test
-    void processWebhookDelivery_Failure() {
+    void deliverWebhookEvent_Failure() {
         // Given
         WebhookEvent webhookEvent = new WebhookEvent();
         webhookEvent.setId(1L);
@@ -116,16 +132,15 @@ class WebhookServiceTest {
         when(webhookEventRepository.save(any(WebhookEvent.class))).thenReturn(webhookEvent);
         
         // When
-        CompletableFuture<Void> result = webhookService.processWebhookDelivery(webhookEvent);
+        webhookService.deliverWebhookEvent(webhookEvent);
         
         // Then
-        assertNotNull(result);
         verify(restTemplate).postForObject(anyString(), any(), any());
         verify(webhookEventRepository, atLeastOnce()).save(any(WebhookEvent.class));
     }
     
     @Test
-    void processWebhookDelivery_MaxRetriesExceeded() {
+    void deliverWebhookEvent_MaxRetriesExceeded() {
         // Given
         WebhookEvent webhookEvent = new WebhookEvent();
         webhookEvent.setId(1L);
@@ -140,14 +155,174 @@ class WebhookServiceTest {
         when(webhookEventRepository.save(any(WebhookEvent.class))).thenReturn(webhookEvent);
         
         // When
-        CompletableFuture<Void> result = webhookService.processWebhookDelivery(webhookEvent);
+        webhookService.deliverWebhookEvent(webhookEvent);
         
         // Then
-        assertNotNull(result);
         verify(restTemplate).postForObject(anyString(), any(), any());
         verify(webhookEventRepository, atLeastOnce()).save(any(WebhookEvent.class));
     }
+    
+    @Test
+    void publishEvent_CoalescesSupersededEvents() {
+        // Given
+        testEndpoint.setCoalesceEvents(true);
+        Charge charge = new Charge();
+        charge.setId(42L);
+        
+        when(webhookEndpointRepository.findByEnabledTrue()).thenReturn(Arrays.asList(testEndpoint));
+        when(webhookEventRepository.save(any(WebhookEvent.class))).thenAnswer(invocation -> {
+            WebhookEvent event = invocation.getArgument(0);
+            if (event.getId() == null) {
+                event.setId(7L);
+            }
+            return event;
+        });
+        when(webhookEventRepository.cancelSupersededEvents(testEndpoint, "42", "charge.%", 7L)).thenReturn(2);
+        
+        // When
+        webhookService.publishEvent("charge.succeeded", charge);
+        
+        // Then
+        verify(webhookEventRepository).cancelSupersededEvents(testEndpoint, "42", "charge.%", 7L);
+    }
+    
+    @Test
+    void publishEvent_DoesNotCoalesceWhenDisabled() {
+        // Given
+        Charge charge = new Charge();
+        charge.setId(42L);
+        
+        when(webhookEndpointRepository.findByEnabledTrue()).thenReturn(Arrays.asList(testEndpoint));
+        when(webhookEventRepository.save(any(WebhookEvent.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // When
+        webhookService.publishEvent("charge.succeeded", charge);
+        
+        // Then
+        verify(webhookEventRepository, never()).cancelSupersededEvents(any(), anyString(), anyString(), any());
+    }
+    
+    @Test
+    void deliverWebhookEvent_SkipsSupersededEvent() {
+        // Given
+        testEndpoint.setCoalesceEvents(true);
+        WebhookEvent webhookEvent = new WebhookEvent();
+        webhookEvent.setId(1L);
+        webhookEvent.setEndpoint(testEndpoint);
+        webhookEvent.setEventType("charge.pending");
+        webhookEvent.setEventData("test data");
+        
+        when(webhookEventRepository.findStatusById(1L)).thenReturn(WebhookEvent.WebhookEventStatus.CANCELED);
+        
+        // When
+        webhookService.deliverWebhookEvent(webhookEvent);
+        
+        // Then
+        verify(restTemplate, never()).postForObject(anyString(), any(), any());
+        verify(webhookEventRepository, never()).save(any(WebhookEvent.class));
+    }
+    
+    @Test
+    void publishEvent_DispatchesDeliveryByObject() {
+        // Given
+        Charge charge = new Charge();
+        charge.setId(42L);
+        
+        when(webhookEndpointRepository.findByEnabledTrue()).thenReturn(Arrays.asList(testEndpoint));
+        when(webhookEventRepository.save(any(WebhookEvent.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // When
+        webhookService.publishEvent("charge.succeeded", charge);
+        
+        // Then
+        verify(webhookDeliveryExecutor).execute(eq("1:42"), any(Runnable.class));
+    }
+    
+    @Test
+    void publishEvent_LeavesEventPendingWhenDeliveryRejected() {
+        // Given
+        Charge charge = new Charge();
+        charge.setId(42L);
+        
+        when(webhookEndpointRepository.findByEnabledTrue()).thenReturn(Arrays.asList(testEndpoint));
+        when(webhookEventRepository.save(any(WebhookEvent.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(webhookDeliveryExecutor.execute(eq("1:42"), any(Runnable.class)))
+            .thenThrow(new RejectedExecutionException("queue full"));
+        
+        // When
+        webhookService.publishEvent("charge.succeeded", charge);
+        
+        // Then
+        ArgumentCaptor<WebhookEvent> saved = ArgumentCaptor.forClass(WebhookEvent.class);
+        verify(webhookEventRepository).save(saved.capture());
+        assertEquals(WebhookEvent.WebhookEventStatus.PENDING, saved.getValue().getStatus());
+        verify(restTemplate, never()).postForObject(anyString(), any(), any());
+    }
+    
+    @Test
+    void deliverWebhookEvent_DefersBehindEarlierEvent() {
+        // Given
+        WebhookEvent webhookEvent = new WebhookEvent();
+        webhookEvent.setId(2L);
+        webhookEvent.setEndpoint(testEndpoint);
+        webhookEvent.setObjectId("42");
+        webhookEvent.setEventType("charge.succeeded");
+        webhookEvent.setEventData("test data");
+        
+        when(webhookEventRepository.existsEarlierUndeliveredEvent(eq(testEndpoint), eq("42"), eq(2L), any()))
+            .thenReturn(true);
+        
+        // When
+        webhookService.deliverWebhookEvent(webhookEvent);
+        
+        // Then
+        verify(restTemplate, never()).postForObject(anyString(), any(), any());
+        verify(webhookEventRepository).save(webhookEvent);
+        assertEquals(WebhookEvent.WebhookEventStatus.PENDING, webhookEvent.getStatus());
+    }
+    
+    @Test
+    void sendProbe_PostsSyntheticPingWithoutTouchingEvents() {
+        // Given
+        when(restTemplate.postForObject(eq("https://example.com/webhook"), any(WebhookService.WebhookPayload.class), 
+            eq(String.class))).thenReturn("ok");
+        
+        // When
+        boolean healthy = webhookService.sendProbe(testEndpoint);
+        
+        // Then
+        assertTrue(healthy);
+        ArgumentCaptor<WebhookService.WebhookPayload> payload = ArgumentCaptor.forClass(WebhookService.WebhookPayload.class);
+        verify(restTemplate).postForObject(anyString(), payload.capture(), eq(String.class));
+        assertEquals(WebhookService.PROBE_EVENT_TYPE, payload.getValue().getType());
+        verifyNoInteractions(webhookEventRepository, webhookDeliveryStats);
+    }
+    
+    @Test
+    void deliverWebhookEvent_FallsBackToUncompressedWhenGzipRejected() {
+        // Given
+        testEndpoint.setAcceptGzip(true);
+        WebhookEvent webhookEvent = new WebhookEvent();
+        webhookEvent.setId(1L);
+        webhookEvent.setEndpoint(testEndpoint);
+        webhookEvent.setEventType("customer.updated");
+        webhookEvent.setEventData("large data");
+        
+        when(webhookPayloadCompressor.shouldCompress(eq(testEndpoint), any())).thenReturn(true);
+        when(webhookPayloadCompressor.compress(any())).thenReturn(new byte[]{31, -117});
+        when(restTemplate.postForObject(anyString(), any(HttpEntity.class), eq(String.class)))
+            .thenThrow(HttpClientErrorException.create(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Unsupported", null, null, null));
+        when(restTemplate.postForObject(anyString(), any(WebhookService.WebhookPayload.class), eq(String.class)))
+            .thenReturn("success");
+        when(webhookEventRepository.save(any(WebhookEvent.class))).thenReturn(webhookEvent);
+        
+        // When
+        webhookService.deliverWebhookEvent(webhookEvent);
+        
+        // Then
+        assertFalse(testEndpoint.getAcceptGzip());
+        assertEquals(WebhookEvent.WebhookEventStatus.DELIVERED, webhookEvent.getStatus());
+        verify(webhookEndpointRepository).disableGzip(1L);
+        verify(webhookEndpointRepository, never()).save(any());
+    }
 }
-
-
-
@@ -0,0 +1,43 @@
+package com.stripeflow.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CountMinSketch
+ */
+class CountMinSketchTest {
+    
+    @Test
+    void estimate_NeverUndercounts() {
+        // Given
+        CountMinSketch sketch = new CountMinSketch(64, 4);
+        for (int i = 0; i < 1000; i++) {
+            for (int j = 0; j <= i % 10; j++) {
+                sketch.add("key-" + i);
+            }
+        }
+        
+        // Then
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(sketch.estimate("key-" + i) >= i % 10 + 1);
+        }
+    }
+    
+    @Test
+    void halve_AgesCounts() {
+        // Given
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        for (int i = 0; i < 8; i++) {
+            sketch.add("hot");
+        }
+        
+        // When
+        sketch.halve();
+        
+        // Then
+        assertEquals(4, sketch.estimate("hot"));
+        assertEquals(0, sketch.estimate("cold"));
+    }
+}
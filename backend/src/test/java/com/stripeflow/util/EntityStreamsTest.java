@@ -0,0 +1,62 @@
+package com.stripeflow.util;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EntityStreams
+ */
+class EntityStreamsTest {
+    
+    private final EntityManager entityManager = mock(EntityManager.class);
+    
+    @Test
+    void mapClearing_FlushesAndClearsAfterEveryIntervalOfMappedEntities() {
+        // Given
+        List<String> cleared = new ArrayList<>();
+        List<Integer> mapped = new ArrayList<>();
+        doAnswer(invocation -> cleared.add("after " + mapped.size())).when(entityManager).clear();
+        
+        // When
+        List<String> result = EntityStreams.mapClearing(Stream.of(1, 2, 3, 4, 5), entityManager, 2, entity -> {
+            mapped.add(entity);
+            return "entity-" + entity;
+        }).collect(Collectors.toList());
+        
+        // Then
+        assertEquals(List.of("entity-1", "entity-2", "entity-3", "entity-4", "entity-5"), result);
+        assertEquals(List.of("after 2", "after 4"), cleared);
+        InOrder inOrder = inOrder(entityManager);
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(entityManager).clear();
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(entityManager).clear();
+    }
+    
+    @Test
+    void forEachClearing_FlushesBeforeEachClearAndAtTheEnd() {
+        // Given
+        List<Integer> processed = new ArrayList<>();
+        
+        // When
+        long count = EntityStreams.forEachClearing(Stream.of(1, 2, 3), entityManager, 2, processed::add);
+        
+        // Then
+        assertEquals(3, count);
+        assertEquals(List.of(1, 2, 3), processed);
+        InOrder inOrder = inOrder(entityManager);
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(entityManager).clear();
+        inOrder.verify(entityManager).flush();
+        verifyNoMoreInteractions(entityManager);
+    }
+}
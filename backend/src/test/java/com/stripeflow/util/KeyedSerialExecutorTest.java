@@ -0,0 +1,113 @@
+package com.stripeflow.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for KeyedSerialExecutor
+ */
+class KeyedSerialExecutorTest {
+    
+    private ExecutorService threadPool;
+    private KeyedSerialExecutor executor;
+    
+    @BeforeEach
+    void setUp() {
+        threadPool = Executors.newFixedThreadPool(8);
+        executor = new KeyedSerialExecutor(threadPool);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        threadPool.shutdownNow();
+    }
+    
+    @Test
+    void execute_RunsSameKeyInSubmissionOrder() throws Exception {
+        // Given
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        
+        // When
+        for (int i = 0; i < 50; i++) {
+            int value = i;
+            futures.add(executor.execute("1:42", () -> {
+                sleepQuietly(1);
+                order.add(value);
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        
+        // Then
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+    
+    @Test
+    void execute_RunsDifferentKeysInParallel() throws Exception {
+        // Given
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        
+        // When
+        CompletableFuture<Void> first = executor.execute("1:1", () -> awaitQuietly(bothStarted));
+        CompletableFuture<Void> second = executor.execute("1:2", () -> awaitQuietly(bothStarted));
+        
+        // Then
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        assertEquals(0, bothStarted.getCount());
+    }
+    
+    @Test
+    void execute_ContinuesAfterFailedTask() throws Exception {
+        // Given
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        
+        // When
+        executor.execute("1:42", () -> {
+            throw new IllegalStateException("delivery failed");
+        });
+        executor.execute("1:42", () -> executed.add("second")).get(5, TimeUnit.SECONDS);
+        
+        // Then
+        assertEquals(List.of("second"), executed);
+    }
+    
+    @Test
+    void execute_ReleasesKeyWhenDrained() throws Exception {
+        // When
+        executor.execute("1:42", () -> sleepQuietly(1)).get(5, TimeUnit.SECONDS);
+        
+        // Then
+        assertEquals(0, executor.getActiveKeyCount());
+    }
+    
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static void awaitQuietly(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
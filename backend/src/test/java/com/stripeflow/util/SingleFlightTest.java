@@ -0,0 +1,74 @@
+package com.stripeflow.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SingleFlight
+ */
+class SingleFlightTest {
+    
+    private ExecutorService threadPool;
+    private SingleFlight singleFlight;
+    
+    @BeforeEach
+    void setUp() {
+        threadPool = Executors.newFixedThreadPool(8);
+        singleFlight = new SingleFlight();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        threadPool.shutdownNow();
+    }
+    
+    @Test
+    void execute_RunsOneLoaderForConcurrentCallers() throws Exception {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        
+        // When
+        for (int i = 0; i < 8; i++) {
+            results.add(threadPool.submit(() -> singleFlight.execute("charge:1", () -> {
+                loads.incrementAndGet();
+                release.await(5, TimeUnit.SECONDS);
+                return "charge-1";
+            })));
+        }
+        while (loads.get() == 0) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(50);
+        release.countDown();
+        
+        // Then
+        for (Future<String> result : results) {
+            assertEquals("charge-1", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+    
+    @Test
+    void execute_PropagatesLoaderFailureAndAllowsRetry() throws Exception {
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("charge:1", () -> {
+            throw new IllegalStateException("database unavailable");
+        }));
+        assertEquals("charge-1", singleFlight.execute("charge:1", () -> "charge-1"));
+    }
+}